@@ -0,0 +1,118 @@
+package edu.rit.se.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compares two JMH result files written with -rf json, and reports the change in score
+ * and in allocation (when both runs used -prof gc) for every benchmark found in both.
+ *
+ * A benchmark is reported as a regression if it got slower by more than the threshold
+ * and by more than the combined error of the two runs. Exits with status 1 if any
+ * benchmark regressed.
+ *
+ * usage: BaselineComparison <baseline.json> <current.json> [threshold percent, default 5]
+ */
+public class BaselineComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if( args.length < 2 ) {
+            System.err.println("usage: BaselineComparison <baseline.json> <current.json> [threshold percent]");
+            System.exit(2);
+        }
+        final Map<String, JsonObject> baseline = readResults(args[0]);
+        final Map<String, JsonObject> current = readResults(args[1]);
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+
+        final int nameWidth = current.keySet().stream().mapToInt(String::length).max().orElse(0);
+        final String headerFormat = "%-" + nameWidth + "s %14s %14s %9s %14s %14s";
+        final String rowFormat = "%-" + nameWidth + "s %14.3f %14.3f %+8.1f%% %14s %14s%s";
+
+        int nRegressions = 0;
+        System.out.println(String.format(headerFormat,
+                "Benchmark", "Baseline", "Current", "Change", "Base B/op", "Cur B/op"));
+        for( Map.Entry<String, JsonObject> result : current.entrySet() ) {
+            final JsonObject baseResult = baseline.get(result.getKey());
+            if( baseResult == null ) {
+                continue;
+            }
+            final JsonObject baseMetric = baseResult.getAsJsonObject("primaryMetric");
+            final JsonObject curMetric = result.getValue().getAsJsonObject("primaryMetric");
+            final double baseScore = baseMetric.get("score").getAsDouble();
+            final double curScore = curMetric.get("score").getAsDouble();
+            // Throughput gets better as it increases, every other mode as it decreases
+            final boolean higherIsBetter = "thrpt".equals(result.getValue().get("mode").getAsString());
+            final double change = (curScore - baseScore) / baseScore * 100;
+            final double slowdown = higherIsBetter ? -change : change;
+            final double error = errorOf(baseMetric) + errorOf(curMetric);
+            final boolean isRegression = slowdown > threshold && Math.abs(curScore - baseScore) > error;
+            if( isRegression ) {
+                nRegressions++;
+            }
+            System.out.println(String.format(rowFormat,
+                    result.getKey(), baseScore, curScore, change,
+                    allocationOf(baseResult), allocationOf(result.getValue()),
+                    isRegression ? "  REGRESSION" : ""));
+        }
+        System.out.println(nRegressions + " regression(s) over " + threshold + "%");
+        System.exit(nRegressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Reads a JMH JSON result file
+     * @param file the result file
+     * @return the results keyed by benchmark name and parameters
+     */
+    private static Map<String, JsonObject> readResults(String file) throws IOException {
+        final Map<String, JsonObject> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            final JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            for( JsonElement element : array ) {
+                final JsonObject result = element.getAsJsonObject();
+                results.put(keyOf(result), result);
+            }
+        }
+        return results;
+    }
+
+    private static String keyOf(JsonObject result) {
+        final String benchmark = result.get("benchmark").getAsString();
+        if( !result.has("params") ) {
+            return benchmark;
+        }
+        return benchmark + result.getAsJsonObject("params").entrySet().stream()
+                .map(param -> param.getKey() + "=" + param.getValue().getAsString())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static double errorOf(JsonObject metric) {
+        final JsonElement error = metric.get("scoreError");
+        // JMH writes "NaN" when there were too few iterations to compute the error
+        return error == null || Double.isNaN(error.getAsDouble()) ? 0 : error.getAsDouble();
+    }
+
+    private static String allocationOf(JsonObject result) {
+        if( !result.has("secondaryMetrics") ) {
+            return "-";
+        }
+        // JMH prefixes profiler metrics with a non-ASCII character, so match on the suffix
+        return result.getAsJsonObject("secondaryMetrics").entrySet().stream()
+                .filter(metric -> metric.getKey().endsWith(ALLOCATION_METRIC))
+                .map(metric -> String.format("%.1f", metric.getValue().getAsJsonObject().get("score").getAsDouble()))
+                .findFirst()
+                .orElse("-");
+    }
+}
@@ -0,0 +1,132 @@
+package edu.rit.se.benchmark;
+
+import edu.rit.se.git.GitUtil;
+import edu.rit.se.git.RepositoryCommitReference;
+import edu.rit.se.git.RepositoryInitializer;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.util.JavaParseUtil;
+import edu.rit.se.util.KnownParserException;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the comments fed to detectors in benchmarks.
+ *
+ * Corpus files hold one comment per line, with backslashes and line breaks escaped so
+ * multi-line comments fit on one line.
+ */
+public class CommentCorpus {
+
+    /**
+     * Reads a corpus file
+     * @param file the corpus file
+     * @return the comments in the corpus
+     * @throws IOException thrown if the file could not be read
+     */
+    public static List<String> read(String file) throws IOException {
+        return Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isEmpty())
+                .map(CommentCorpus::unescape)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a corpus file which can be read with read
+     * @param file the corpus file
+     * @param comments the comments to write
+     * @throws IOException thrown if the file could not be written
+     */
+    public static void write(String file, List<String> comments) throws IOException {
+        try (Writer out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            for( String comment : comments ) {
+                out.write(escape(comment));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Extracts the comments the miner would classify from every Java file of each repository
+     * in a study file, such as maldonado_study.csv. Each line of a study file is a repository
+     * URI, optionally followed by a comma and the commit to read the files from.
+     * @param studyFile the study file
+     * @param maxComments the maximum number of comments to extract
+     * @return the extracted comments
+     * @throws IOException thrown if the study file could not be read
+     */
+    public static List<String> extractFromStudy(String studyFile, int maxComments) throws IOException {
+        final List<String> comments = new ArrayList<>();
+        for( String line : Files.readAllLines(Paths.get(studyFile), StandardCharsets.UTF_8) ) {
+            final String[] entry = line.trim().split(",");
+            if( entry[0].isEmpty() || comments.size() >= maxComments ) {
+                continue;
+            }
+            System.err.println("Extracting comments from " + entry[0]);
+            final RepositoryInitializer repo = new RepositoryInitializer(
+                    entry[0], GitUtil.getRepoNameFromGithubURI(entry[0]));
+            if( !repo.initRepo() ) {
+                System.err.println("Could not clone " + entry[0] + ", skipping it");
+                continue;
+            }
+            try {
+                final RepositoryCommitReference commit = repo.getMostRecentCommit(entry.length > 1 ? entry[1] : null);
+                if( commit != null ) {
+                    extractFromCommit(commit, comments, maxComments);
+                }
+            } finally {
+                repo.cleanRepo();
+            }
+        }
+        return comments;
+    }
+
+    private static void extractFromCommit(RepositoryCommitReference commit, List<String> comments,
+                                          int maxComments) throws IOException {
+        final TreeWalk treeWalk = GitUtil.getTreeWalker(commit.getGitInstance(), commit.getCommit());
+        try {
+            while( treeWalk.next() && comments.size() < maxComments ) {
+                try (InputStream file = commit.getGitInstance().getRepository()
+                        .open(treeWalk.getObjectId(0)).openStream()) {
+                    // The same comments the miner gives to its detector
+                    JavaParseUtil.parseFileForComments(file, treeWalk.getPathString()).stream()
+                            .filter(gc -> !gc.getCommentType().equals(GroupedComment.TYPE_JAVADOC))
+                            .filter(gc -> !gc.getCommentType().equals(GroupedComment.TYPE_COMMENTED_SOURCE))
+                            .map(GroupedComment::getComment)
+                            .limit(maxComments - comments.size())
+                            .forEach(comments::add);
+                } catch (KnownParserException e) {
+                    // Files which cannot be parsed are skipped by the miner too
+                }
+            }
+        } finally {
+            treeWalk.close();
+            // Closing the walk does not close the reader getTreeWalker created for it
+            treeWalk.getObjectReader().close();
+        }
+    }
+
+    private static String escape(String comment) {
+        return comment.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    private static String unescape(String line) {
+        final StringBuilder comment = new StringBuilder(line.length());
+        for( int i = 0; i < line.length(); i++ ) {
+            final char c = line.charAt(i);
+            if( c == '\\' && i + 1 < line.length() ) {
+                final char next = line.charAt(++i);
+                comment.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                comment.append(c);
+            }
+        }
+        return comment.toString();
+    }
+}
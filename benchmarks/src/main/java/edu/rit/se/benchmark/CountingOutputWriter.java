@@ -0,0 +1,51 @@
+package edu.rit.se.benchmark;
+
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.writer.OutputWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An OutputWriter which only counts what it is given. It can optionally keep every diff
+ * in memory, to include the cost of holding the results in the measured heap.
+ */
+public class CountingOutputWriter implements OutputWriter {
+
+    private final boolean retainDiffs;
+    private final List<SATDDifference> diffs = new ArrayList<>();
+
+    private long nDiffs = 0;
+    private long nSATDInstances = 0;
+
+    public CountingOutputWriter(boolean retainDiffs) {
+        this.retainDiffs = retainDiffs;
+    }
+
+    @Override
+    public void writeDiff(SATDDifference diff) {
+        this.nDiffs++;
+        this.nSATDInstances += diff.getSatdInstances().size();
+        if( this.retainDiffs ) {
+            this.diffs.add(diff);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is buffered
+    }
+
+    @Override
+    public void close() {
+        this.diffs.clear();
+    }
+
+    public long getNDiffs() {
+        return this.nDiffs;
+    }
+
+    public long getNSATDInstances() {
+        return this.nSATDInstances;
+    }
+}
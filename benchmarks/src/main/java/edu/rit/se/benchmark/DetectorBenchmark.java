@@ -0,0 +1,226 @@
+package edu.rit.se.benchmark;
+
+import edu.rit.se.satd.detector.DebtHunterDetectorImpl;
+import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.detector.SATDDetectorImpl;
+import org.apache.commons.cli.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams a comment corpus through each SATDDetector, and reports its throughput, latency
+ * percentiles and memory use, and whether its verdicts agree with a baseline detector.
+ *
+ * Every detector classifies every comment in the same order. Exits with status 1 if any
+ * detector disagrees with the baseline on any comment, so a detector optimization cannot
+ * change its verdicts without being noticed.
+ */
+public class DetectorBenchmark {
+
+    private static final String ARG_NAME_DETECTORS = "d";
+    private static final String ARG_NAME_BASELINE = "b";
+    private static final String ARG_NAME_COMMENTS = "c";
+    private static final String ARG_NAME_STUDY = "s";
+    private static final String ARG_NAME_SAVE_COMMENTS = "o";
+    private static final String ARG_NAME_MAX_COMMENTS = "n";
+    private static final String ARG_NAME_WARMUP_PASSES = "w";
+    private static final String ARG_NAME_HELP = "h";
+
+    // The number of disagreements printed for each detector
+    private static final int N_DISAGREEMENTS_SHOWN = 10;
+
+    public static void main(String[] args) throws Exception {
+        final Options options = getOptions();
+        final CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getLocalizedMessage());
+            new HelpFormatter().printHelp("detector-benchmark", options);
+            System.exit(2);
+            return;
+        }
+        if( cmd.hasOption(ARG_NAME_HELP) ) {
+            new HelpFormatter().printHelp("detector-benchmark", options);
+            return;
+        }
+
+        final int maxComments = Integer.parseInt(cmd.getOptionValue(ARG_NAME_MAX_COMMENTS, "100000"));
+        final List<String> comments;
+        if( cmd.hasOption(ARG_NAME_COMMENTS) ) {
+            comments = CommentCorpus.read(cmd.getOptionValue(ARG_NAME_COMMENTS));
+        } else if( cmd.hasOption(ARG_NAME_STUDY) ) {
+            comments = CommentCorpus.extractFromStudy(cmd.getOptionValue(ARG_NAME_STUDY), maxComments);
+        } else {
+            comments = Fixtures.comments();
+        }
+        if( cmd.hasOption(ARG_NAME_SAVE_COMMENTS) ) {
+            CommentCorpus.write(cmd.getOptionValue(ARG_NAME_SAVE_COMMENTS), comments);
+        }
+        final String[] corpus = comments.stream().limit(maxComments).toArray(String[]::new);
+        if( corpus.length == 0 ) {
+            System.err.println("No comments to classify");
+            System.exit(2);
+        }
+        final int nWarmupPasses = Integer.parseInt(cmd.getOptionValue(ARG_NAME_WARMUP_PASSES, "1"));
+
+        final String baselineName = cmd.getOptionValue(ARG_NAME_BASELINE, "debthunter");
+        final Result baseline = run(baselineName, corpus, nWarmupPasses);
+        System.out.println(String.format("%-40s %8s %14s %10s %10s %10s %12s %12s %10s",
+                "Detector", "Comments", "Comments/s", "p50 (us)", "p99 (us)", "Max (us)",
+                "Retained MB", "Alloc B/call", "Agreement"));
+        System.out.println(baseline.toRow(baseline));
+
+        boolean anyDisagreement = false;
+        for( String name : cmd.getOptionValue(ARG_NAME_DETECTORS, "satd").split(",") ) {
+            final Result result = run(name.trim(), corpus, nWarmupPasses);
+            System.out.println(result.toRow(baseline));
+            int nShown = 0;
+            for( int i = 0; i < corpus.length && nShown < N_DISAGREEMENTS_SHOWN; i++ ) {
+                if( result.verdicts[i] != baseline.verdicts[i] ) {
+                    System.out.println(String.format("    %s says %s: %s", result.name,
+                            result.verdicts[i] ? "SATD" : "not SATD", corpus[i].replace("\n", "\\n")));
+                    nShown++;
+                }
+            }
+            anyDisagreement |= result.countAgreements(baseline) != corpus.length;
+        }
+        System.exit(anyDisagreement ? 1 : 0);
+    }
+
+    /**
+     * Classifies every comment in the corpus with the named detector
+     * @param name the name of the detector
+     * @param corpus the comments to classify
+     * @param nWarmupPasses the number of untimed passes over the corpus to make first
+     * @return the verdicts and measurements
+     */
+    private static Result run(String name, String[] corpus, int nWarmupPasses) throws Exception {
+        System.err.println("Running " + name);
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        final long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        final SATDDetector detector = createDetector(name);
+        System.gc();
+        // Approximate, since other garbage may be collected at the same time
+        final long retainedBytes = Math.max(memory.getHeapMemoryUsage().getUsed() - heapBefore, 0);
+
+        for( int pass = 0; pass < nWarmupPasses; pass++ ) {
+            for( String comment : corpus ) {
+                detector.isSATD(comment);
+            }
+        }
+
+        final boolean[] verdicts = new boolean[corpus.length];
+        final long[] latencies = new long[corpus.length];
+        final long allocatedBefore = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for( int i = 0; i < corpus.length; i++ ) {
+            final long callStart = System.nanoTime();
+            verdicts[i] = detector.isSATD(corpus[i]);
+            latencies[i] = System.nanoTime() - callStart;
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = getAllocatedBytes() - allocatedBefore;
+        return new Result(name, verdicts, latencies, elapsed, retainedBytes, allocated);
+    }
+
+    private static SATDDetector createDetector(String name) throws ReflectiveOperationException {
+        switch (name.toLowerCase()) {
+            case "debthunter":
+                return new DebtHunterDetectorImpl();
+            case "satd":
+            case "original":
+                return new SATDDetectorImpl();
+            case "keyword":
+                return new KeywordSATDDetector();
+            default:
+                // Any other detector, such as a cached or pooled variant, by class name
+                return (SATDDetector) Class.forName(name).getConstructor().newInstance();
+        }
+    }
+
+    /**
+     * @return the bytes allocated by this thread so far, or -1 if the JVM cannot measure it
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if( threads instanceof com.sun.management.ThreadMXBean ) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static Options getOptions() {
+        return new Options()
+                .addOption(Option.builder(ARG_NAME_DETECTORS).longOpt("detectors").hasArg().argName("NAMES")
+                        .desc("comma separated detectors to compare to the baseline: debthunter, satd, keyword " +
+                                "or the class name of any SATDDetector (default: satd)").build())
+                .addOption(Option.builder(ARG_NAME_BASELINE).longOpt("baseline").hasArg().argName("NAME")
+                        .desc("the detector whose verdicts are expected (default: debthunter)").build())
+                .addOption(Option.builder(ARG_NAME_COMMENTS).longOpt("comments").hasArg().argName("FILE")
+                        .desc("a corpus file with one comment per line").build())
+                .addOption(Option.builder(ARG_NAME_STUDY).longOpt("study").hasArg().argName("FILE")
+                        .desc("a file of repository,commit lines, such as maldonado_study.csv, to extract " +
+                                "comments from. Requires network access").build())
+                .addOption(Option.builder(ARG_NAME_SAVE_COMMENTS).longOpt("save-comments").hasArg()
+                        .argName("FILE").desc("save the comments to a corpus file for later runs").build())
+                .addOption(Option.builder(ARG_NAME_MAX_COMMENTS).longOpt("max-comments").hasArg().argName("N")
+                        .desc("the maximum number of comments to classify (default: 100000)").build())
+                .addOption(Option.builder(ARG_NAME_WARMUP_PASSES).longOpt("warmup").hasArg().argName("N")
+                        .desc("untimed passes over the comments before measuring (default: 1)").build())
+                .addOption(Option.builder(ARG_NAME_HELP).longOpt("help").desc("display help menu").build());
+    }
+
+    private static class Result {
+
+        private final String name;
+        private final boolean[] verdicts;
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final long retainedBytes;
+        private final long allocatedBytes;
+
+        private Result(String name, boolean[] verdicts, long[] latencies, long elapsedNanos,
+                       long retainedBytes, long allocatedBytes) {
+            this.name = name;
+            this.verdicts = verdicts;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+            this.elapsedNanos = elapsedNanos;
+            this.retainedBytes = retainedBytes;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        private double percentileMicros(double percentile) {
+            final int index = (int) Math.ceil(percentile / 100 * this.sortedLatencies.length) - 1;
+            return this.sortedLatencies[Math.max(index, 0)] / 1e3;
+        }
+
+        private int countAgreements(Result baseline) {
+            int nAgreements = 0;
+            for( int i = 0; i < this.verdicts.length; i++ ) {
+                if( this.verdicts[i] == baseline.verdicts[i] ) {
+                    nAgreements++;
+                }
+            }
+            return nAgreements;
+        }
+
+        private String toRow(Result baseline) {
+            final int n = this.verdicts.length;
+            return String.format(Locale.ROOT, "%-40s %8d %14.1f %10.1f %10.1f %10.1f %12.1f %12s %9.2f%%",
+                    this.name, n,
+                    n / (this.elapsedNanos / 1e9),
+                    this.percentileMicros(50), this.percentileMicros(99), this.percentileMicros(100),
+                    this.retainedBytes / (1024.0 * 1024.0),
+                    this.allocatedBytes < 0 ? "-" : String.valueOf(this.allocatedBytes / n),
+                    this.countAgreements(baseline) * 100.0 / n);
+        }
+    }
+}
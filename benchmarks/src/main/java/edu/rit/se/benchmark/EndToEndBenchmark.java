@@ -0,0 +1,271 @@
+package edu.rit.se.benchmark;
+
+import edu.rit.se.git.RepositoryCommitReference;
+import edu.rit.se.satd.SATDMiner;
+import edu.rit.se.satd.detector.DebtHunterDetectorImpl;
+import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.writer.OutputWriter;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Mines synthetic repositories end to end with SATDMiner.writeRepoSATD, without network access.
+ *
+ * A repository is generated for every combination of the given commit and file counts, and
+ * one CSV row is printed for each, so scaling curves can be plotted as history length and
+ * tree size grow. Time is split into the stages that can be measured from outside the miner:
+ * SATD detection, writing, and everything else (diffing, parsing and mapping).
+ */
+public class EndToEndBenchmark {
+
+    private static final String ARG_NAME_COMMITS = "c";
+    private static final String ARG_NAME_FILES = "f";
+    private static final String ARG_NAME_METHODS = "m";
+    private static final String ARG_NAME_SATD_DENSITY = "s";
+    private static final String ARG_NAME_FILES_PER_COMMIT = "e";
+    private static final String ARG_NAME_RENAME_RATIO = "rr";
+    private static final String ARG_NAME_MOVE_RATIO = "mr";
+    private static final String ARG_NAME_MERGE_RATIO = "gr";
+    private static final String ARG_NAME_WRITER = "w";
+    private static final String ARG_NAME_DETECTOR = "d";
+    private static final String ARG_NAME_WORK_DIR = "o";
+    private static final String ARG_NAME_SEED = "seed";
+    private static final String ARG_NAME_HELP = "h";
+
+    private static final String CSV_HEADER = "commits,files,methods_per_file,satd_density,files_per_commit," +
+            "rename_ratio,move_ratio,merge_ratio,diffs,satd_instances,generate_ms,clone_ms,mine_ms," +
+            "diffs_per_sec,ms_per_diff,detect_ms_per_diff,write_ms_per_diff,other_ms_per_diff,peak_heap_mb";
+
+    public static void main(String[] args) throws IOException {
+        final Options options = getOptions();
+        final CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getLocalizedMessage());
+            new HelpFormatter().printHelp("end-to-end-benchmark", options);
+            System.exit(2);
+            return;
+        }
+        if( cmd.hasOption(ARG_NAME_HELP) ) {
+            new HelpFormatter().printHelp("end-to-end-benchmark", options);
+            return;
+        }
+        final List<Integer> commitCounts = parseList(cmd.getOptionValue(ARG_NAME_COMMITS, "50,100,200"));
+        final List<Integer> fileCounts = parseList(cmd.getOptionValue(ARG_NAME_FILES, "50"));
+        final File workDir = new File(cmd.getOptionValue(ARG_NAME_WORK_DIR, "synthetic-repos"));
+        workDir.mkdirs();
+
+        final SATDDetector detector;
+        switch (cmd.getOptionValue(ARG_NAME_DETECTOR, "keyword").toLowerCase()) {
+            case "keyword":
+                detector = new KeywordSATDDetector();
+                break;
+            case "debthunter":
+                detector = new DebtHunterDetectorImpl();
+                break;
+            default:
+                System.err.println("Unknown detector: " + cmd.getOptionValue(ARG_NAME_DETECTOR));
+                System.exit(2);
+                return;
+        }
+        final boolean retainDiffs = "memory".equalsIgnoreCase(cmd.getOptionValue(ARG_NAME_WRITER, "null"));
+
+        // The miner prints a summary to standard out, so keep it apart from the results
+        final PrintStream results = System.out;
+        System.setOut(System.err);
+
+        SATDMiner.disableErrorOutput();
+        results.println(CSV_HEADER);
+        for( int nCommits : commitCounts ) {
+            for( int nFiles : fileCounts ) {
+                final SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator()
+                        .setNCommits(nCommits)
+                        .setNFiles(nFiles)
+                        .setMethodsPerFile(Integer.parseInt(cmd.getOptionValue(ARG_NAME_METHODS, "20")))
+                        .setSatdDensity(Double.parseDouble(cmd.getOptionValue(ARG_NAME_SATD_DENSITY, "0.1")))
+                        .setFilesPerCommit(Integer.parseInt(cmd.getOptionValue(ARG_NAME_FILES_PER_COMMIT, "3")))
+                        .setRenameRatio(Double.parseDouble(cmd.getOptionValue(ARG_NAME_RENAME_RATIO, "0.05")))
+                        .setMoveRatio(Double.parseDouble(cmd.getOptionValue(ARG_NAME_MOVE_RATIO, "0.05")))
+                        .setMergeRatio(Double.parseDouble(cmd.getOptionValue(ARG_NAME_MERGE_RATIO, "0.1")))
+                        .setSeed(Long.parseLong(cmd.getOptionValue(ARG_NAME_SEED, "23165")));
+                final File repoDir = new File(workDir, "synthetic-c" + nCommits + "-f" + nFiles + ".git");
+                System.err.println("Mining " + repoDir);
+                final long generateStart = System.nanoTime();
+                generator.generate(repoDir);
+                final long generateNanos = System.nanoTime() - generateStart;
+
+                final TimedSATDDetector timedDetector = new TimedSATDDetector(detector);
+                final TimedOutputWriter timedWriter = new TimedOutputWriter(new CountingOutputWriter(retainDiffs));
+                resetPeakHeap();
+                final Run run = mine(repoDir.getAbsolutePath(), timedDetector, timedWriter);
+                final double peakHeapMB = getPeakHeap() / (1024.0 * 1024.0);
+                timedWriter.close();
+
+                final CountingOutputWriter counter = (CountingOutputWriter) timedWriter.writer;
+                final long nDiffs = Math.max(counter.getNDiffs(), 1);
+                final double mineMs = run.mineNanos / 1e6;
+                final double detectMs = timedDetector.nanos / 1e6;
+                final double writeMs = timedWriter.nanos / 1e6;
+                results.println(String.format(Locale.ROOT,
+                        "%d,%d,%s,%s,%s,%s,%s,%s,%d,%d,%.1f,%.1f,%.1f,%.2f,%.3f,%.3f,%.3f,%.3f,%.1f",
+                        nCommits, nFiles,
+                        cmd.getOptionValue(ARG_NAME_METHODS, "20"),
+                        cmd.getOptionValue(ARG_NAME_SATD_DENSITY, "0.1"),
+                        cmd.getOptionValue(ARG_NAME_FILES_PER_COMMIT, "3"),
+                        cmd.getOptionValue(ARG_NAME_RENAME_RATIO, "0.05"),
+                        cmd.getOptionValue(ARG_NAME_MOVE_RATIO, "0.05"),
+                        cmd.getOptionValue(ARG_NAME_MERGE_RATIO, "0.1"),
+                        counter.getNDiffs(), counter.getNSATDInstances(),
+                        generateNanos / 1e6, run.cloneNanos / 1e6, mineMs,
+                        counter.getNDiffs() / (mineMs / 1000),
+                        mineMs / nDiffs, detectMs / nDiffs, writeMs / nDiffs,
+                        (mineMs - detectMs - writeMs) / nDiffs,
+                        peakHeapMB));
+            }
+        }
+    }
+
+    private static Run mine(String repoURI, SATDDetector detector, OutputWriter writer) {
+        final SATDMiner miner = new SATDMiner(repoURI, detector);
+        miner.disableStatusOutput();
+        final Run run = new Run();
+        final long cloneStart = System.nanoTime();
+        final RepositoryCommitReference head = miner.getBaseCommit(null);
+        run.cloneNanos = System.nanoTime() - cloneStart;
+        final long mineStart = System.nanoTime();
+        miner.writeRepoSATD(head, writer);
+        run.mineNanos = System.nanoTime() - mineStart;
+        miner.cleanRepo();
+        return run;
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long getPeakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    private static List<Integer> parseList(String values) {
+        return Arrays.stream(values.split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .collect(Collectors.toList());
+    }
+
+    private static Options getOptions() {
+        return new Options()
+                .addOption(Option.builder(ARG_NAME_COMMITS).longOpt("commits").hasArg().argName("N,...")
+                        .desc("comma separated commit counts to generate (default: 50,100,200)").build())
+                .addOption(Option.builder(ARG_NAME_FILES).longOpt("files").hasArg().argName("N,...")
+                        .desc("comma separated file counts to generate (default: 50)").build())
+                .addOption(Option.builder(ARG_NAME_METHODS).longOpt("methods").hasArg().argName("N")
+                        .desc("methods per file, which determines the file size (default: 20)").build())
+                .addOption(Option.builder(ARG_NAME_SATD_DENSITY).longOpt("satd-density").hasArg()
+                        .argName("0.0-1.0").desc("fraction of methods with a SATD comment (default: 0.1)").build())
+                .addOption(Option.builder(ARG_NAME_FILES_PER_COMMIT).longOpt("files-per-commit").hasArg()
+                        .argName("N").desc("files edited by each commit (default: 3)").build())
+                .addOption(Option.builder(ARG_NAME_RENAME_RATIO).longOpt("rename-ratio").hasArg()
+                        .argName("0.0-1.0").desc("probability a commit renames a file (default: 0.05)").build())
+                .addOption(Option.builder(ARG_NAME_MOVE_RATIO).longOpt("move-ratio").hasArg()
+                        .argName("0.0-1.0").desc("probability a commit moves a comment to another file " +
+                                "(default: 0.05)").build())
+                .addOption(Option.builder(ARG_NAME_MERGE_RATIO).longOpt("merge-ratio").hasArg()
+                        .argName("0.0-1.0").desc("probability a commit is made on a merged branch " +
+                                "(default: 0.1)").build())
+                .addOption(Option.builder(ARG_NAME_WRITER).longOpt("writer").hasArg().argName("WRITER")
+                        .desc("null (default) counts diffs, memory also keeps every diff in memory").build())
+                .addOption(Option.builder(ARG_NAME_DETECTOR).longOpt("detector").hasArg().argName("DETECTOR")
+                        .desc("keyword (default) or debthunter").build())
+                .addOption(Option.builder(ARG_NAME_WORK_DIR).longOpt("work-dir").hasArg().argName("DIR")
+                        .desc("directory to generate repositories in (default: synthetic-repos)").build())
+                .addOption(Option.builder(ARG_NAME_SEED).longOpt("seed").hasArg().argName("SEED")
+                        .desc("seed for the generated histories").build())
+                .addOption(Option.builder(ARG_NAME_HELP).longOpt("help").desc("display help menu").build());
+    }
+
+    private static class Run {
+        private long cloneNanos;
+        private long mineNanos;
+    }
+
+    /**
+     * Times every call to the wrapped detector
+     */
+    private static class TimedSATDDetector implements SATDDetector {
+
+        private final SATDDetector detector;
+        private long nanos = 0;
+
+        private TimedSATDDetector(SATDDetector detector) {
+            this.detector = detector;
+        }
+
+        @Override
+        public boolean isSATD(String satd) {
+            final long start = System.nanoTime();
+            final boolean isSATD = this.detector.isSATD(satd);
+            this.nanos += System.nanoTime() - start;
+            return isSATD;
+        }
+    }
+
+    /**
+     * Times every call to the wrapped writer
+     */
+    private static class TimedOutputWriter implements OutputWriter {
+
+        private final OutputWriter writer;
+        private long nanos = 0;
+
+        private TimedOutputWriter(OutputWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeDiff(SATDDifference diff) throws IOException {
+            final long start = System.nanoTime();
+            this.writer.writeDiff(diff);
+            this.nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            this.writer.flush();
+            this.nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public long getOutputLength() throws IOException {
+            return this.writer.getOutputLength();
+        }
+
+        @Override
+        public void truncateOutput(long length) throws IOException {
+            this.writer.truncateOutput(length);
+        }
+
+        @Override
+        public void close() {
+            this.writer.close();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package edu.rit.se.benchmark;
+
+import com.github.javaparser.ast.comments.LineComment;
+import edu.rit.se.satd.comment.model.GroupedComment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Loads and generates the inputs used by the benchmarks.
+ *
+ * Java source fixtures are named by the @Param values of the benchmarks:
+ * - small: a short class with a handful of comments
+ * - large: a long class with nested classes and many comments
+ * - generated-N: a generated class with N methods, each with comments from the corpus
+ */
+public class Fixtures {
+
+    // Generated fixtures must be identical between runs so results can be compared
+    private static final long SEED = 0x5A7D;
+
+    private static final String GENERATED_PREFIX = "generated-";
+
+    /**
+     * @param name the name of the fixture
+     * @return the contents of a Java source fixture
+     */
+    public static String javaSource(String name) {
+        if( name.startsWith(GENERATED_PREFIX) ) {
+            return generateJavaSource(Integer.parseInt(name.substring(GENERATED_PREFIX.length())));
+        }
+        switch (name) {
+            case "small":
+                return readResource("Small.java");
+            case "large":
+                return readResource("Large.java");
+            default:
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+        }
+    }
+
+    /**
+     * @return the comment corpus, one comment per entry
+     */
+    public static List<String> comments() {
+        return Arrays.stream(readResource("comments.txt").split("\n"))
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a comment as it would be created by the miner, without a containing class or method
+     * @param text the text of the comment
+     * @return the comment
+     */
+    public static GroupedComment comment(String text) {
+        return GroupedComment.fromJavaParserComment(new LineComment(text));
+    }
+
+    /**
+     * Creates a comment of exactly the given length by repeating corpus comments
+     * @param length the length of the comment
+     * @param random the source of randomness
+     * @return the comment text
+     */
+    public static String commentOfLength(int length, Random random) {
+        final List<String> corpus = comments();
+        final StringBuilder text = new StringBuilder(length + 64);
+        while( text.length() < length ) {
+            text.append(corpus.get(random.nextInt(corpus.size()))).append(' ');
+        }
+        return text.substring(0, length);
+    }
+
+    /**
+     * Makes a copy of the text with the given fraction of its characters substituted
+     * @param text the text to edit
+     * @param editFraction the fraction of characters to change, from 0.0 to 1.0
+     * @param random the source of randomness
+     * @return the edited text
+     */
+    public static String edit(String text, double editFraction, Random random) {
+        final char[] chars = text.toCharArray();
+        final int nEdits = (int) Math.round(chars.length * editFraction);
+        for( int i = 0; i < nEdits; i++ ) {
+            chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Generates a class with the given number of methods. Methods have a mix of line,
+     * block and grouped line comments, with some commented out source.
+     * @param nMethods the number of methods to generate
+     * @return the generated Java source
+     */
+    public static String generateJavaSource(int nMethods) {
+        final Random random = new Random(SEED);
+        final List<String> corpus = comments();
+        final StringBuilder source = new StringBuilder();
+        source.append("package fixtures;\n\n")
+                .append("public class Generated").append(nMethods).append(" {\n\n")
+                .append("    // ").append(corpus.get(random.nextInt(corpus.size()))).append('\n')
+                .append("    private int total = 0;\n\n");
+        for( int i = 0; i < nMethods; i++ ) {
+            source.append("    public int method").append(i).append("(int value) {\n");
+            switch (random.nextInt(4)) {
+                case 0:
+                    source.append("        // ").append(corpus.get(random.nextInt(corpus.size()))).append('\n');
+                    break;
+                case 1:
+                    source.append("        /* ").append(corpus.get(random.nextInt(corpus.size()))).append(" */\n");
+                    break;
+                case 2:
+                    // Consecutive line comments are grouped into one comment by the parser
+                    source.append("        // ").append(corpus.get(random.nextInt(corpus.size()))).append('\n')
+                            .append("        // ").append(corpus.get(random.nextInt(corpus.size()))).append('\n');
+                    break;
+                default:
+                    source.append("        // this.total = value;\n");
+            }
+            source.append("        this.total += value * ").append(random.nextInt(100)).append(";\n");
+            if( random.nextBoolean() ) {
+                source.append("        if( this.total > ").append(random.nextInt(10000)).append(" ) {\n")
+                        .append("            // ").append(corpus.get(random.nextInt(corpus.size()))).append('\n')
+                        .append("            this.total = 0;\n")
+                        .append("        }\n");
+            }
+            source.append("        return this.total;\n")
+                    .append("    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * @param nComments the number of comments
+     * @param random the source of randomness
+     * @return comment texts chosen from the corpus, with a suffix to make repeats distinct
+     */
+    public static List<String> distinctComments(int nComments, Random random) {
+        final List<String> corpus = comments();
+        final List<String> texts = new ArrayList<>(nComments);
+        for( int i = 0; i < nComments; i++ ) {
+            texts.add(corpus.get(random.nextInt(corpus.size())) + " (" + i + ")");
+        }
+        return texts;
+    }
+
+    private static String readResource(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if( in == null ) {
+                throw new IllegalStateException("Missing fixture: " + name);
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while( (read = in.read(buffer)) != -1 ) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package edu.rit.se.benchmark;
+
+import edu.rit.se.satd.detector.SATDDetector;
+
+import java.util.regex.Pattern;
+
+/**
+ * A detector which classifies comments containing the common SATD keywords as SATD.
+ * It is fast and needs no model files, so the cost of detection does not hide the cost of
+ * the rest of the miner in end-to-end benchmarks.
+ */
+public class KeywordSATDDetector implements SATDDetector {
+
+    private static final Pattern SATD_KEYWORDS =
+            Pattern.compile("\\b(TODO|FIXME|HACK|XXX)\\b", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public boolean isSATD(String satd) {
+        return SATD_KEYWORDS.matcher(satd).find();
+    }
+}
@@ -0,0 +1,345 @@
+package edu.rit.se.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a local, bare git repository with a synthetic history of Java files.
+ *
+ * Each file is a class of methods, and each method may have a SATD or a regular comment.
+ * Every commit edits a few files, which changes code, and adds, edits and removes comments.
+ * Commits may also rename a file or move a comment to another method, and a fraction of
+ * commits are made on a short-lived branch which is merged back in.
+ *
+ * Generation is seeded, so the same settings always give the same repository.
+ */
+public class SyntheticRepositoryGenerator {
+
+    private static final String SOURCE_ROOT = "src/main/java/";
+    private static final int N_PACKAGES = 8;
+
+    // The number of non-merge commits to create
+    private int nCommits = 100;
+    // The number of Java files in the tree
+    private int nFiles = 50;
+    // The number of methods in each file, which determines the file size
+    private int methodsPerFile = 20;
+    // The fraction of methods which have a SATD comment
+    private double satdDensity = 0.1;
+    // The fraction of methods which have a regular comment
+    private double commentDensity = 0.2;
+    // The number of files edited by each commit
+    private int filesPerCommit = 3;
+    // The probability that a commit renames a file
+    private double renameRatio = 0.05;
+    // The probability that a commit moves a comment to a method in another file
+    private double moveRatio = 0.05;
+    // The probability that a commit is made on a branch which is then merged
+    private double mergeRatio = 0.1;
+    private long seed = 0x5A7D;
+
+    private Random random;
+    private List<String> satdComments;
+    private List<String> regularComments;
+    private int nextCommentId;
+    private long commitTime;
+
+    public SyntheticRepositoryGenerator setNCommits(int nCommits) {
+        this.nCommits = nCommits;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setNFiles(int nFiles) {
+        this.nFiles = nFiles;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setMethodsPerFile(int methodsPerFile) {
+        this.methodsPerFile = methodsPerFile;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setSatdDensity(double satdDensity) {
+        this.satdDensity = satdDensity;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setCommentDensity(double commentDensity) {
+        this.commentDensity = commentDensity;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setFilesPerCommit(int filesPerCommit) {
+        this.filesPerCommit = filesPerCommit;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setRenameRatio(double renameRatio) {
+        this.renameRatio = renameRatio;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setMoveRatio(double moveRatio) {
+        this.moveRatio = moveRatio;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setMergeRatio(double mergeRatio) {
+        this.mergeRatio = mergeRatio;
+        return this;
+    }
+
+    public SyntheticRepositoryGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates the repository, replacing anything already in the directory
+     * @param repoDir the directory to create the bare repository in
+     * @throws IOException thrown if the repository could not be written
+     */
+    public void generate(File repoDir) throws IOException {
+        this.random = new Random(this.seed);
+        this.nextCommentId = 0;
+        this.commitTime = 1_500_000_000L;
+        final KeywordSATDDetector detector = new KeywordSATDDetector();
+        final Map<Boolean, List<String>> corpus = Fixtures.comments().stream()
+                .collect(Collectors.partitioningBy(detector::isSATD));
+        this.satdComments = corpus.get(true);
+        this.regularComments = corpus.get(false);
+
+        if( repoDir.exists() ) {
+            FileUtils.deleteDirectory(repoDir);
+        }
+        try (Git git = Git.init().setBare(true).setDirectory(repoDir).call();
+             ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            TreeMap<String, SourceFile> tree = this.initialTree();
+            ObjectId head = this.writeCommit(inserter, tree, "Initial commit");
+            int nCommitsMade = 1;
+            while( nCommitsMade < this.nCommits ) {
+                if( this.nCommits - nCommitsMade >= 2 && this.random.nextDouble() < this.mergeRatio ) {
+                    // A branch and the main line edit different files from the same parent,
+                    // so the merge is always clean
+                    final TreeMap<String, SourceFile> branchTree = new TreeMap<>(tree);
+                    final Set<String> branchPaths = this.editTree(branchTree, Collections.emptySet());
+                    final ObjectId branchHead = this.writeCommit(inserter, branchTree,
+                            "Commit " + nCommitsMade++ + " on branch", head);
+                    final TreeMap<String, SourceFile> mainTree = new TreeMap<>(tree);
+                    final Set<String> mainPaths = this.editTree(mainTree, branchPaths);
+                    final ObjectId mainHead = this.writeCommit(inserter, mainTree,
+                            "Commit " + nCommitsMade++, head);
+                    tree = mergeTrees(tree, branchTree, branchPaths, mainTree, mainPaths);
+                    head = this.writeCommit(inserter, tree, "Merge branch", mainHead, branchHead);
+                } else {
+                    this.editTree(tree, Collections.emptySet());
+                    head = this.writeCommit(inserter, tree, "Commit " + nCommitsMade++, head);
+                }
+            }
+            inserter.flush();
+
+            final RefUpdate refUpdate = git.getRepository().updateRef(Constants.R_HEADS + Constants.MASTER);
+            refUpdate.setNewObjectId(head);
+            refUpdate.forceUpdate();
+        } catch (GitAPIException e) {
+            throw new IOException("Could not create repository: " + e.getLocalizedMessage(), e);
+        }
+    }
+
+    private TreeMap<String, SourceFile> initialTree() {
+        final TreeMap<String, SourceFile> tree = new TreeMap<>();
+        for( int i = 0; i < this.nFiles; i++ ) {
+            final List<Method> methods = new ArrayList<>(this.methodsPerFile);
+            for( int m = 0; m < this.methodsPerFile; m++ ) {
+                methods.add(new Method(m, this.random.nextInt(1000), this.newComment()));
+            }
+            final SourceFile file = new SourceFile("pkg" + this.random.nextInt(N_PACKAGES), "Class" + i, methods);
+            tree.put(file.getPath(), file);
+        }
+        return tree;
+    }
+
+    /**
+     * Makes the edits of a single commit to the tree
+     * @param tree the tree to edit
+     * @param excludedPaths paths which must not be edited
+     * @return the paths that were edited, added or removed
+     */
+    private Set<String> editTree(TreeMap<String, SourceFile> tree, Set<String> excludedPaths) {
+        final List<String> candidates = tree.keySet().stream()
+                .filter(path -> !excludedPaths.contains(path))
+                .collect(Collectors.toList());
+        Collections.shuffle(candidates, this.random);
+        final List<String> toEdit = candidates.subList(0, Math.min(this.filesPerCommit, candidates.size()));
+        final Set<String> touched = new HashSet<>(toEdit);
+
+        for( String path : toEdit ) {
+            final SourceFile file = tree.get(path).copy();
+            final Method method = file.methods.get(this.random.nextInt(file.methods.size()));
+            final double edit = this.random.nextDouble();
+            if( edit < 0.5 ) {
+                // A code change which does not touch any comments
+                method.constant = this.random.nextInt(1000);
+            } else if( edit < 0.7 || method.comment == null ) {
+                method.comment = this.newComment();
+            } else if( edit < 0.85 ) {
+                method.comment = null;
+            } else {
+                method.comment = method.comment + " (revised)";
+            }
+            tree.put(path, file);
+        }
+
+        if( toEdit.size() >= 2 && this.random.nextDouble() < this.moveRatio ) {
+            final SourceFile from = tree.get(toEdit.get(0));
+            final SourceFile to = tree.get(toEdit.get(1));
+            final Optional<Method> commented = from.methods.stream().filter(m -> m.comment != null).findFirst();
+            if( commented.isPresent() ) {
+                final Method target = to.methods.get(this.random.nextInt(to.methods.size()));
+                target.comment = commented.get().comment;
+                commented.get().comment = null;
+            }
+        }
+
+        if( !toEdit.isEmpty() && this.random.nextDouble() < this.renameRatio ) {
+            // Renames move the class to another package, which keeps the contents almost identical
+            final SourceFile file = tree.remove(toEdit.get(0));
+            final SourceFile renamed = new SourceFile(
+                    "pkg" + ((Integer.parseInt(file.packageName.substring(3)) + 1) % N_PACKAGES),
+                    file.className, file.methods);
+            if( tree.containsKey(renamed.getPath()) ) {
+                tree.put(file.getPath(), file);
+            } else {
+                tree.put(renamed.getPath(), renamed);
+                touched.add(renamed.getPath());
+            }
+        }
+        return touched;
+    }
+
+    private static TreeMap<String, SourceFile> mergeTrees(TreeMap<String, SourceFile> base,
+                                                          TreeMap<String, SourceFile> branchTree,
+                                                          Set<String> branchPaths,
+                                                          TreeMap<String, SourceFile> mainTree,
+                                                          Set<String> mainPaths) {
+        final TreeMap<String, SourceFile> merged = new TreeMap<>(base);
+        for( TreeMap<String, SourceFile> side : Arrays.asList(branchTree, mainTree) ) {
+            for( String path : side == branchTree ? branchPaths : mainPaths ) {
+                if( side.containsKey(path) ) {
+                    merged.put(path, side.get(path));
+                } else {
+                    merged.remove(path);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private String newComment() {
+        final double kind = this.random.nextDouble();
+        final int id = this.nextCommentId++;
+        // Comments are numbered so that no two comments in the tree are identical
+        if( kind < this.satdDensity ) {
+            return this.satdComments.get(this.random.nextInt(this.satdComments.size())) + " #" + id;
+        } else if( kind < this.satdDensity + this.commentDensity ) {
+            return this.regularComments.get(this.random.nextInt(this.regularComments.size())) + " #" + id;
+        }
+        return null;
+    }
+
+    private ObjectId writeCommit(ObjectInserter inserter, TreeMap<String, SourceFile> tree,
+                                 String message, ObjectId... parents) throws IOException {
+        final DirCache index = DirCache.newInCore();
+        final DirCacheBuilder builder = index.builder();
+        for( Map.Entry<String, SourceFile> file : tree.entrySet() ) {
+            final DirCacheEntry entry = new DirCacheEntry(file.getKey());
+            entry.setFileMode(FileMode.REGULAR_FILE);
+            entry.setObjectId(file.getValue().getBlobId(inserter));
+            builder.add(entry);
+        }
+        builder.finish();
+
+        final PersonIdent author = new PersonIdent("Synthetic Author", "author@example.com",
+                new Date(this.commitTime++ * 1000), TimeZone.getTimeZone("UTC"));
+        final CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(index.writeTree(inserter));
+        commit.setParentIds(parents);
+        commit.setAuthor(author);
+        commit.setCommitter(author);
+        commit.setMessage(message);
+        return inserter.insert(commit);
+    }
+
+    private static class Method {
+
+        private final int id;
+        private int constant;
+        private String comment;
+
+        private Method(int id, int constant, String comment) {
+            this.id = id;
+            this.constant = constant;
+            this.comment = comment;
+        }
+    }
+
+    private static class SourceFile {
+
+        private final String packageName;
+        private final String className;
+        private final List<Method> methods;
+        // Set once the file's contents have been written to the repository
+        private ObjectId blobId = null;
+
+        private SourceFile(String packageName, String className, List<Method> methods) {
+            this.packageName = packageName;
+            this.className = className;
+            this.methods = methods;
+        }
+
+        private String getPath() {
+            return SOURCE_ROOT + this.packageName + "/" + this.className + ".java";
+        }
+
+        private SourceFile copy() {
+            return new SourceFile(this.packageName, this.className, this.methods.stream()
+                    .map(m -> new Method(m.id, m.constant, m.comment))
+                    .collect(Collectors.toList()));
+        }
+
+        private ObjectId getBlobId(ObjectInserter inserter) throws IOException {
+            if( this.blobId == null ) {
+                this.blobId = inserter.insert(Constants.OBJ_BLOB, this.render().getBytes(StandardCharsets.UTF_8));
+            }
+            return this.blobId;
+        }
+
+        private String render() {
+            final StringBuilder source = new StringBuilder();
+            source.append("package ").append(this.packageName).append(";\n\n")
+                    .append("public class ").append(this.className).append(" {\n\n")
+                    .append("    private int total = 0;\n");
+            for( Method method : this.methods ) {
+                source.append("\n    public int method").append(method.id).append("(int value) {\n");
+                if( method.comment != null ) {
+                    source.append("        // ").append(method.comment).append('\n');
+                }
+                source.append("        this.total += value * ").append(method.constant).append(";\n")
+                        .append("        return this.total;\n")
+                        .append("    }\n");
+            }
+            return source.append("}\n").toString();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package edu.rit.se.satd.comment.model;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.comments.Comment;
+import edu.rit.se.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures converting every comment in a parsed file into a GroupedComment, which
+ * includes finding each comment's containing class and method
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupedCommentBenchmark {
+
+    @Param({"small", "large", "generated-100", "generated-500"})
+    public String source;
+
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        this.comments = new JavaParser().parse(Fixtures.javaSource(this.source))
+                .getCommentsCollection()
+                .orElseThrow(() -> new IllegalStateException("Fixture has no comments: " + this.source))
+                .getComments()
+                .stream()
+                .filter(comment -> !comment.isJavadocComment())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void fromJavaParserComment(Blackhole blackhole) {
+        for( Comment comment : this.comments ) {
+            blackhole.consume(GroupedComment.fromJavaParserComment(comment));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.rit.se.satd.detector;
+
+import edu.rit.se.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures classifying a single comment with the DebtHunter detector, cycling through
+ * the comment corpus. The pre-trained models are loaded from lib/DebtHunter-Tool, so
+ * the benchmark must be run from the project root.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebtHunterDetectorBenchmark {
+
+    private DebtHunterDetectorImpl detector;
+    private String[] comments;
+    private int nextComment = 0;
+
+    @Setup
+    public void setUp() {
+        this.detector = new DebtHunterDetectorImpl();
+        final List<String> corpus = Fixtures.comments();
+        this.comments = corpus.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public boolean isSATD() {
+        final String comment = this.comments[this.nextComment];
+        this.nextComment = (this.nextComment + 1) % this.comments.length;
+        return this.detector.isSATD(comment);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.rit.se.satd.mining;
+
+import edu.rit.se.benchmark.Fixtures;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.OldToNewCommentMapping;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching the SATD in the old side of a diff to the SATD in the new side.
+ * A fraction of the comments are unchanged between the sides, and the rest are new.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlignMappingListsBenchmark {
+
+    private static final int N_FILES = 20;
+
+    @Param({"100", "1000"})
+    public int nComments;
+
+    @Param({"0.5", "0.95"})
+    public double unchangedFraction;
+
+    private List<GroupedComment> oldComments;
+    private List<GroupedComment> newComments;
+    private List<String> files;
+
+    // Mapping marks comments as mapped, so fresh lists are needed for each invocation
+    private List<OldToNewCommentMapping> oldMappings;
+    private List<OldToNewCommentMapping> newMappings;
+
+    @Setup(Level.Trial)
+    public void setUpComments() {
+        final Random random = new Random(this.nComments);
+        final List<String> texts = Fixtures.distinctComments(this.nComments * 2, random);
+        this.oldComments = new ArrayList<>(this.nComments);
+        this.newComments = new ArrayList<>(this.nComments);
+        this.files = new ArrayList<>(this.nComments);
+        for( int i = 0; i < this.nComments; i++ ) {
+            final GroupedComment oldComment = Fixtures.comment(texts.get(i));
+            this.oldComments.add(oldComment);
+            this.newComments.add(random.nextDouble() < this.unchangedFraction ?
+                    oldComment : Fixtures.comment(texts.get(this.nComments + i)));
+            this.files.add("src/main/java/fixtures/File" + random.nextInt(N_FILES) + ".java");
+        }
+        // The new side is not in the same order as the old side
+        Collections.shuffle(this.newComments, random);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpMappings() {
+        this.oldMappings = new ArrayList<>(this.nComments);
+        this.newMappings = new ArrayList<>(this.nComments);
+        for( int i = 0; i < this.nComments; i++ ) {
+            this.oldMappings.add(new OldToNewCommentMapping(this.oldComments.get(i), this.files.get(i)));
+            this.newMappings.add(new OldToNewCommentMapping(this.newComments.get(i), this.files.get(i)));
+        }
+    }
+
+    @Benchmark
+    public List<OldToNewCommentMapping> alignMappingLists() {
+        RepositoryDiffMiner.alignMappingLists(this.oldMappings, this.newMappings, Collections.emptyList());
+        return this.oldMappings;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.rit.se.satd.mining.diff;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import edu.rit.se.benchmark.Fixtures;
+import edu.rit.se.satd.comment.model.ParsedFile;
+import edu.rit.se.util.JavaParseUtil;
+import edu.rit.se.util.KnownParserException;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures finding the edits to a file whose methods were edited throughout, by diffing its
+ * lines and by diffing its comments and declarations. Both versions of the file are parsed
+ * already, as they are when the differencers need the edits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentSequenceDiffBenchmark {
+
+    @Param({"small", "large", "generated-100", "generated-500"})
+    public String source;
+
+    private RawText oldText;
+    private RawText newText;
+    private ParsedFile oldFile;
+    private ParsedFile newFile;
+
+    @Setup
+    public void setUp() throws KnownParserException {
+        final byte[] sourceBytes = Fixtures.javaSource(this.source).getBytes(StandardCharsets.UTF_8);
+        // Add a comment to the first line of the body of every other method
+        final CompilationUnit unit = new JavaParser().parse(new ByteArrayInputStream(sourceBytes))
+                .getResult().orElseThrow(IllegalStateException::new);
+        final List<Integer> bodyLines = unit.findAll(MethodDeclaration.class).stream()
+                .map(MethodDeclaration::getBody)
+                .filter(Optional::isPresent)
+                .map(body -> body.get().getRange().orElseThrow(IllegalStateException::new))
+                .filter(range -> range.end.line > range.begin.line)
+                .map(range -> range.begin.line)
+                .sorted()
+                .collect(Collectors.toList());
+        final List<String> lines = new ArrayList<>(Arrays.asList(
+                new String(sourceBytes, StandardCharsets.UTF_8).split("\n", -1)));
+        for( int i = bodyLines.size() - 1; i >= 0; i -= 2 ) {
+            lines.add(bodyLines.get(i), "// TODO handle this edge case");
+        }
+        final byte[] editedBytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        this.oldText = new RawText(sourceBytes);
+        this.newText = new RawText(editedBytes);
+        this.oldFile = JavaParseUtil.parseFile(new ByteArrayInputStream(sourceBytes), "Fixture.java");
+        this.newFile = JavaParseUtil.parseFile(new ByteArrayInputStream(editedBytes), "Fixture.java");
+    }
+
+    @Benchmark
+    public List<Edit> lineDiff() {
+        return DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS)
+                .diff(RawTextComparator.DEFAULT, this.oldText, this.newText);
+    }
+
+    @Benchmark
+    public List<Edit> commentSequenceDiff() {
+        return CommentSequenceDiff.diff(this.oldFile, this.oldText, this.newFile, this.newText);
+    }
+}
@@ -0,0 +1,80 @@
+package edu.rit.se.util;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import edu.rit.se.benchmark.Fixtures;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.ParsedFile;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a Java file and grouping its comments, which is done for every
+ * modified file on both sides of every diff, and extracting the comments of a file
+ * from its earlier version after a single line of one method was edited
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaParseUtilBenchmark {
+
+    @Param({"small", "large", "generated-100", "generated-500"})
+    public String source;
+
+    private byte[] sourceBytes;
+
+    private ParsedFile parsedFile;
+    private RawText oldText;
+    private RawText editedText;
+    private List<Edit> edits;
+
+    @Setup
+    public void setUp() throws KnownParserException {
+        this.sourceBytes = Fixtures.javaSource(this.source).getBytes(StandardCharsets.UTF_8);
+        this.parsedFile = JavaParseUtil.parseFile(new ByteArrayInputStream(this.sourceBytes), "Fixture.java");
+        // Add a comment to the first line of the body of the file's last method
+        final CompilationUnit unit = new JavaParser().parse(new ByteArrayInputStream(this.sourceBytes))
+                .getResult().orElseThrow(IllegalStateException::new);
+        final int bodyLine = unit.findAll(MethodDeclaration.class).stream()
+                .map(MethodDeclaration::getBody)
+                .filter(Optional::isPresent)
+                .map(body -> body.get().getRange().orElseThrow(IllegalStateException::new))
+                .filter(range -> range.end.line > range.begin.line)
+                .map(range -> range.begin.line)
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new IllegalStateException("The fixture has no methods"));
+        final List<String> lines = new ArrayList<>(Arrays.asList(
+                new String(this.sourceBytes, StandardCharsets.UTF_8).split("\n", -1)));
+        lines.add(bodyLine, "// TODO handle this edge case");
+        this.oldText = new RawText(this.sourceBytes);
+        this.editedText = new RawText(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        this.edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS)
+                .diff(RawTextComparator.DEFAULT, this.oldText, this.editedText);
+    }
+
+    @Benchmark
+    public List<GroupedComment> parseFileForComments() throws KnownParserException {
+        return JavaParseUtil.parseFileForComments(new ByteArrayInputStream(this.sourceBytes), "Fixture.java");
+    }
+
+    @Benchmark
+    public List<GroupedComment> extractFromEarlierVersion() {
+        return JavaParseUtil.extractFromEarlierVersion(
+                this.parsedFile, this.oldText, this.editedText, this.edits, "Fixture.java").getGroupedComments();
+    }
+}
@@ -0,0 +1,53 @@
+package edu.rit.se.util;
+
+import edu.rit.se.benchmark.Fixtures;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures comparing pairs of comments for similarity. An edit fraction below the
+ * Levenshtein threshold gives pairs which are similar, and above it pairs which are not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimilarityUtilBenchmark {
+
+    private static final int N_PAIRS = 64;
+
+    @Param({"16", "128", "1024"})
+    public int commentLength;
+
+    @Param({"0.1", "0.7"})
+    public double editFraction;
+
+    private GroupedComment[] firstComments;
+    private GroupedComment[] secondComments;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(this.commentLength);
+        this.firstComments = new GroupedComment[N_PAIRS];
+        this.secondComments = new GroupedComment[N_PAIRS];
+        for( int i = 0; i < N_PAIRS; i++ ) {
+            final String text = Fixtures.commentOfLength(this.commentLength, random);
+            this.firstComments[i] = Fixtures.comment(text);
+            this.secondComments[i] = Fixtures.comment(Fixtures.edit(text, this.editFraction, random));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_PAIRS)
+    public void commentsAreSimilar(Blackhole blackhole) {
+        for( int i = 0; i < N_PAIRS; i++ ) {
+            blackhole.consume(SimilarityUtil.commentsAreSimilar(this.firstComments[i], this.secondComments[i]));
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package fixtures;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A large class with many methods, nested classes and a mix of comment styles,
+ * similar to the largest files found in long-lived repositories
+ */
+public class Large {
+
+    // Default time to wait for a response before giving up
+    private static final long DEFAULT_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    // TODO make this configurable
+    private static final int MAX_RETRIES = 3;
+
+    /* The number of entries kept in the response cache.
+       Larger values use more memory but reduce the number of requests. */
+    private static final int CACHE_SIZE = 512;
+
+    private final Map<String, Response> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Response>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+                    // Evict the least recently used entry once the cache is full
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final Map<String, String> headers = new HashMap<>();
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Transport transport;
+    private long timeoutMs = DEFAULT_TIMEOUT_MS;
+
+    public Large(Transport transport) {
+        this.transport = transport;
+        // Every request identifies the client
+        this.headers.put("User-Agent", "fixtures-large/1.0");
+    }
+
+    public void setTimeout(long timeout, TimeUnit unit) {
+        // FIXME: negative timeouts are silently accepted
+        this.timeoutMs = unit.toMillis(timeout);
+    }
+
+    public void addHeader(String name, String value) {
+        // Header names are case insensitive
+        this.headers.put(name.toLowerCase(), value);
+    }
+
+    /**
+     * Sends a GET request, using a cached response if one is available
+     * @param url the url to request
+     * @return the response
+     * @throws IOException thrown if the request failed after every retry
+     */
+    public Response get(String url) throws IOException {
+        final Response cached = this.cache.get(url);
+        if( cached != null && !cached.isExpired() ) {
+            return cached;
+        }
+        IOException lastError = null;
+        for( int attempt = 0; attempt < MAX_RETRIES; attempt++ ) {
+            try {
+                final Response response = this.transport.send("GET", url, this.headers, null, this.timeoutMs);
+                if( response.isCacheable() ) {
+                    this.cache.put(url, response);
+                }
+                this.failures.remove(url);
+                return response;
+            } catch (IOException e) {
+                // Retry on any IO error, the server may just be restarting
+                lastError = e;
+                this.failures.merge(url, 1, Integer::sum);
+                this.backOff(attempt);
+            }
+        }
+        throw lastError;
+    }
+
+    public Response post(String url, byte[] body) throws IOException {
+        // POST requests are never cached or retried, since they may not be idempotent
+        return this.transport.send("POST", url, this.headers, body, this.timeoutMs);
+    }
+
+    public Response put(String url, byte[] body) throws IOException {
+        // XXX should PUT be retried? It is idempotent according to the spec
+        return this.transport.send("PUT", url, this.headers, body, this.timeoutMs);
+    }
+
+    public Response delete(String url) throws IOException {
+        this.cache.remove(url);
+        return this.transport.send("DELETE", url, this.headers, null, this.timeoutMs);
+    }
+
+    private void backOff(int attempt) {
+        // Exponential back off: 100ms, 200ms, 400ms, ...
+        final long delay = 100L << attempt;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            // Preserve the interrupt so the caller can see it
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getFailureCount(String url) {
+        return this.failures.getOrDefault(url, 0);
+    }
+
+    public void clearCache() {
+        this.cache.clear();
+    }
+
+    /**
+     * Parses a query string into its parameters
+     * @param query the query string, without the leading ?
+     * @return the parameters, in the order they appeared
+     */
+    public static Map<String, List<String>> parseQuery(String query) {
+        final Map<String, List<String>> params = new LinkedHashMap<>();
+        if( query == null || query.isEmpty() ) {
+            return params;
+        }
+        for( String pair : query.split("&") ) {
+            final int eq = pair.indexOf('=');
+            // A parameter without a value is treated as an empty string
+            final String name = eq < 0 ? pair : pair.substring(0, eq);
+            final String value = eq < 0 ? "" : pair.substring(eq + 1);
+            // TODO: decode percent-encoded characters
+            params.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    public static String buildQuery(Map<String, List<String>> params) {
+        final StringBuilder query = new StringBuilder();
+        for( Map.Entry<String, List<String>> param : params.entrySet() ) {
+            for( String value : param.getValue() ) {
+                if( query.length() > 0 ) {
+                    query.append('&');
+                }
+                // HACK: spaces are the only character we encode for now
+                query.append(param.getKey()).append('=').append(value.replace(" ", "%20"));
+            }
+        }
+        return query.toString();
+    }
+
+    public static Optional<String> getExtension(String path) {
+        final int slash = path.lastIndexOf('/');
+        final int dot = path.lastIndexOf('.');
+        // A dot before the last slash belongs to a directory name, not the file
+        if( dot < 0 || dot < slash ) {
+            return Optional.empty();
+        }
+        return Optional.of(path.substring(dot + 1));
+    }
+
+    public static String normalizePath(String path) {
+        final List<String> segments = new ArrayList<>();
+        for( String segment : path.split("/") ) {
+            if( segment.isEmpty() || segment.equals(".") ) {
+                continue;
+            }
+            if( segment.equals("..") ) {
+                // Going above the root is ignored, which matches what browsers do
+                if( !segments.isEmpty() ) {
+                    segments.remove(segments.size() - 1);
+                }
+            } else {
+                segments.add(segment);
+            }
+        }
+        return "/" + String.join("/", segments);
+    }
+
+    /**
+     * A response to a request
+     */
+    public static class Response {
+
+        private final int status;
+        private final Map<String, String> headers;
+        private final byte[] body;
+        private final long receivedAt = System.currentTimeMillis();
+
+        public Response(int status, Map<String, String> headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return this.status;
+        }
+
+        public boolean isSuccess() {
+            return this.status >= 200 && this.status < 300;
+        }
+
+        public boolean isCacheable() {
+            // Only successful responses without no-store are cached
+            // TODO respect the rest of the Cache-Control directives
+            final String cacheControl = this.headers.getOrDefault("cache-control", "");
+            return this.isSuccess() && !cacheControl.contains("no-store");
+        }
+
+        public boolean isExpired() {
+            final String maxAge = this.headers.get("max-age");
+            if( maxAge == null ) {
+                // No max age means the response never expires.
+                // This is wrong, but it is what the old client did
+                return false;
+            }
+            return System.currentTimeMillis() - this.receivedAt > Long.parseLong(maxAge) * 1000;
+        }
+
+        public String getBodyAsString() {
+            // FIXME use the charset from the Content-Type header
+            return new String(this.body, StandardCharsets.UTF_8);
+        }
+
+        public List<String> getBodyLines() throws IOException {
+            final List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(this.getBodyStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while( (line = reader.readLine()) != null ) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+
+        public InputStream getBodyStream() {
+            return new java.io.ByteArrayInputStream(this.body);
+        }
+    }
+
+    /**
+     * Sends requests over the network
+     */
+    public interface Transport {
+
+        /**
+         * Sends a single request
+         * @param method the HTTP method
+         * @param url the url to send the request to
+         * @param headers the headers to send
+         * @param body the request body, or null if there is none
+         * @param timeoutMs the time to wait for a response
+         * @return the response
+         * @throws IOException thrown if no response was received
+         */
+        Response send(String method, String url, Map<String, String> headers, byte[] body, long timeoutMs)
+                throws IOException;
+    }
+
+    /**
+     * A transport which records requests instead of sending them, for use in tests
+     */
+    public static class RecordingTransport implements Transport {
+
+        private final List<String> requests = new ArrayList<>();
+
+        // The response returned for every request
+        private Response response = new Response(200, new HashMap<>(), new byte[0]);
+
+        public void setResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public Response send(String method, String url, Map<String, String> headers, byte[] body,
+                             long timeoutMs) {
+            // Record the method and url only, the body is not needed by any test yet
+            this.requests.add(method + " " + url);
+            return this.response;
+        }
+
+        public List<String> getRequests() {
+            return Collections.unmodifiableList(this.requests);
+        }
+    }
+
+    /**
+     * Counts requests per host
+     */
+    public static class HostCounter {
+
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        public void count(String url) {
+            // Strip the scheme
+            String rest = url.contains("://") ? url.substring(url.indexOf("://") + 3) : url;
+            // Strip the path
+            if( rest.contains("/") ) {
+                rest = rest.substring(0, rest.indexOf('/'));
+            }
+            // Strip the port
+            // XXX this breaks IPv6 addresses
+            if( rest.contains(":") ) {
+                rest = rest.substring(0, rest.indexOf(':'));
+            }
+            this.counts.merge(rest, 1, Integer::sum);
+        }
+
+        public int getCount(String host) {
+            return this.counts.getOrDefault(host, 0);
+        }
+
+        public List<String> getBusiestHosts(int n) {
+            final List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.counts.entrySet());
+            // Sort descending by count
+            entries.sort((a, b) -> b.getValue() - a.getValue());
+            final List<String> hosts = new ArrayList<>();
+            for( int i = 0; i < Math.min(n, entries.size()); i++ ) {
+                hosts.add(entries.get(i).getKey());
+            }
+            return hosts;
+        }
+
+        // for( String host : this.counts.keySet() ) {
+        //     System.out.println(host + ": " + this.counts.get(host));
+        // }
+    }
+}
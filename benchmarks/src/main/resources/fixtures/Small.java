@@ -0,0 +1,39 @@
+package fixtures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small class with a handful of comments, similar to most files in a typical commit
+ */
+public class Small {
+
+    // The maximum number of items held before old items are dropped
+    private static final int MAX_ITEMS = 64;
+
+    private final List<String> items = new ArrayList<>();
+
+    public void add(String item) {
+        // TODO this is O(n), use a deque instead
+        if( this.items.size() >= MAX_ITEMS ) {
+            this.items.remove(0);
+        }
+        this.items.add(item);
+    }
+
+    public String get(int index) {
+        /* Callers are expected to check the size first,
+           so an out of bounds index is a programming error */
+        return this.items.get(index);
+    }
+
+    public int size() {
+        return this.items.size();
+    }
+
+    // FIXME: not thread safe
+    public void clear() {
+        // this.items = new ArrayList<>();
+        this.items.clear();
+    }
+}
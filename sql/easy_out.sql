@@ -9,18 +9,22 @@ BEGIN;
          SecondCommit.commit_hash as resolution_commit, 
 			FirstFile.f_path as v1_path, 
 			FirstFile.containing_class as v1_class, FirstFile.containing_method as v1_method,
-            FirstFile.f_comment as v1_comment, 
+            FirstComment.c_text as v1_comment, 
 		SecondCommit.commit_hash as v2_commit, 
 		SecondCommit.commit_date as v2_commit_date,
 		SecondCommit.author_date as v2_author_date,
 			SecondFile.f_path as v2_path, 
 			SecondFile.containing_class as v2_class, SecondFile.containing_method as v2_method,
-            SecondFile.f_comment as v2_comment
+            SecondComment.c_text as v2_comment
 		FROM satd.SATD
 		INNER JOIN satd.SATDInFile as FirstFile
 			ON SATD.first_file = FirstFile.f_id
 		INNER JOIN satd.SATDInFile as SecondFile
 			ON SATD.second_file = SecondFile.f_id
+		LEFT JOIN satd.Comments as FirstComment
+			ON FirstFile.c_hash = FirstComment.c_hash
+		LEFT JOIN satd.Comments as SecondComment
+			ON SecondFile.c_hash = SecondComment.c_hash
 		INNER JOIN satd.Commits as FirstCommit
 			ON SATD.first_commit = FirstCommit.commit_hash 
 				AND SATD.p_id = FirstCommit.p_id
@@ -0,0 +1,106 @@
+-- Migrates a database created with the previous schema, where SATDInFile stored
+-- the comment text in f_comment, to the schema with the normalized Comments table.
+--
+-- MySQL commits each ALTER TABLE as soon as it runs, so the migration cannot run in one
+-- transaction. Instead every step checks whether it has already been applied, and the
+-- script can be run again from the start if it is stopped part way through.
+-- f_comment is only dropped once every row has its c_hash.
+--
+-- Comments are keyed by the first 64 bits of the SHA-1 hash of their UTF-8 text, as the
+-- miner computes it. The text is converted to utf8mb4 before it is hashed, so the key does
+-- not depend on the charset of the column or the connection. Before anything is changed,
+-- the migration stops if two different texts have the same key, rather than merging them.
+-- The script must be run with the mysql client, as it changes the statement delimiter.
+
+CREATE TABLE IF NOT EXISTS satd.Comments (
+	c_hash BIGINT NOT NULL,
+    c_text VARCHAR(4096),
+    PRIMARY KEY (c_hash)
+);
+
+SET @has_comment_text = (SELECT COUNT(*) FROM information_schema.COLUMNS
+	WHERE TABLE_SCHEMA = 'satd' AND TABLE_NAME = 'SATDInFile' AND COLUMN_NAME = 'f_comment');
+
+DROP PROCEDURE IF EXISTS satd.check_comment_hashes;
+DELIMITER //
+CREATE PROCEDURE satd.check_comment_hashes()
+BEGIN
+	-- The column is only looked up once it is known to exist
+	IF @has_comment_text > 0 THEN
+		IF EXISTS (
+			-- Texts of SATDInFile which share a key
+			SELECT 1 FROM satd.SATDInFile
+				GROUP BY CAST(CONV(LEFT(SHA1(CONVERT(f_comment USING utf8mb4)), 16), 16, 10) AS SIGNED)
+				HAVING COUNT(DISTINCT CAST(CONVERT(f_comment USING utf8mb4) AS BINARY)) > 1
+		) OR EXISTS (
+			-- Texts of SATDInFile whose key is already used by another text in Comments
+			SELECT 1 FROM satd.SATDInFile JOIN satd.Comments
+				ON satd.Comments.c_hash = CAST(CONV(LEFT(SHA1(CONVERT(f_comment USING utf8mb4)), 16), 16, 10) AS SIGNED)
+				WHERE CAST(CONVERT(satd.Comments.c_text USING utf8mb4) AS BINARY) <>
+					CAST(CONVERT(f_comment USING utf8mb4) AS BINARY)
+		) THEN
+			SIGNAL SQLSTATE '45000'
+				SET MESSAGE_TEXT = 'Different comment texts have the same c_hash, so the comments cannot be migrated';
+		END IF;
+	END IF;
+END //
+DELIMITER ;
+CALL satd.check_comment_hashes();
+DROP PROCEDURE satd.check_comment_hashes;
+
+SET @step = IF(@has_comment_text > 0,
+	'INSERT IGNORE INTO satd.Comments(c_hash, c_text)
+		SELECT DISTINCT CAST(CONV(LEFT(SHA1(CONVERT(f_comment USING utf8mb4)), 16), 16, 10) AS SIGNED), f_comment
+			FROM satd.SATDInFile',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+		WHERE TABLE_SCHEMA = 'satd' AND TABLE_NAME = 'SATDInFile' AND COLUMN_NAME = 'c_hash') = 0,
+	'ALTER TABLE satd.SATDInFile ADD COLUMN c_hash BIGINT AFTER f_id',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF(@has_comment_text > 0,
+	'UPDATE satd.SATDInFile SET c_hash = CAST(CONV(LEFT(SHA1(CONVERT(f_comment USING utf8mb4)), 16), 16, 10) AS SIGNED)
+		WHERE c_hash IS NULL',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF(@has_comment_text > 0,
+	'ALTER TABLE satd.SATDInFile DROP COLUMN f_comment',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF((SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE
+		WHERE TABLE_SCHEMA = 'satd' AND TABLE_NAME = 'SATDInFile' AND COLUMN_NAME = 'c_hash'
+			AND REFERENCED_TABLE_NAME = 'Comments') = 0,
+	'ALTER TABLE satd.SATDInFile ADD FOREIGN KEY (c_hash) REFERENCES satd.Comments(c_hash)',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+		WHERE TABLE_SCHEMA = 'satd' AND TABLE_NAME = 'SATDInFile' AND INDEX_NAME = 'satd_in_file_lookup') = 0,
+	'ALTER TABLE satd.SATDInFile ADD INDEX satd_in_file_lookup (c_hash, f_path, start_line, end_line)',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
+
+SET @step = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+		WHERE TABLE_SCHEMA = 'satd' AND TABLE_NAME = 'SATD' AND INDEX_NAME = 'satd_lookup') = 0,
+	'ALTER TABLE satd.SATD ADD INDEX satd_lookup (first_file, second_file, first_commit, second_commit)',
+	'DO 0');
+PREPARE migrate_step FROM @step;
+EXECUTE migrate_step;
+DEALLOCATE PREPARE migrate_step;
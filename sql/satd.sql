@@ -1,4 +1,4 @@
-DROP TABLE IF EXISTS satd.Commits, satd.SATD, satd.SATDInFile, satd.Projects;
+DROP TABLE IF EXISTS satd.Commits, satd.SATD, satd.SATDInFile, satd.Comments, satd.Projects;
 
 CREATE TABLE IF NOT EXISTS satd.Projects (
 	p_id INT AUTO_INCREMENT NOT NULL,
@@ -7,16 +7,26 @@ CREATE TABLE IF NOT EXISTS satd.Projects (
     PRIMARY KEY (p_id)
 );
 
+-- Each distinct comment text is stored once, keyed by the first 64 bits of the SHA-1 hash
+-- of its UTF-8 text (CAST(CONV(LEFT(SHA1(CONVERT(c_text USING utf8mb4)), 16), 16, 10) AS SIGNED))
+CREATE TABLE IF NOT EXISTS satd.Comments (
+	c_hash BIGINT NOT NULL,
+    c_text VARCHAR(4096),
+    PRIMARY KEY (c_hash)
+);
+
 CREATE TABLE IF NOT EXISTS satd.SATDInFile (
 	f_id INT AUTO_INCREMENT,
-    f_comment VARCHAR(4096),
+    c_hash BIGINT,
     f_comment_type VARCHAR(32),
     f_path VARCHAR(512),
     start_line INT,
     end_line INT,
     containing_class VARCHAR(512),
     containing_method VARCHAR(512),
-    PRIMARY KEY (f_id)
+    PRIMARY KEY (f_id),
+    FOREIGN KEY (c_hash) REFERENCES satd.Comments(c_hash),
+    INDEX satd_in_file_lookup (c_hash, f_path, start_line, end_line)
 );
 
 CREATE TABLE IF NOT EXISTS satd.Commits(
@@ -47,5 +57,6 @@ CREATE TABLE IF NOT EXISTS satd.SATD (
     FOREIGN KEY (p_id, first_commit) REFERENCES satd.Commits(p_id, commit_hash),
     FOREIGN KEY (p_id, second_commit) REFERENCES satd.Commits(p_id, commit_hash),
     FOREIGN KEY (first_file) REFERENCES satd.SATDInFile(f_id),
-    FOREIGN KEY (second_file) REFERENCES satd.SATDInFile(f_id)
+    FOREIGN KEY (second_file) REFERENCES satd.SATDInFile(f_id),
+    INDEX satd_lookup (first_file, second_file, first_commit, second_commit)
 ); 
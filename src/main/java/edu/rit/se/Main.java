@@ -1,18 +1,33 @@
 package edu.rit.se;
 
+import edu.rit.se.git.GitUtil;
+import edu.rit.se.git.RepositoryInitializer;
+import edu.rit.se.git.StorageProfile;
 import edu.rit.se.satd.SATDMiner;
 import edu.rit.se.satd.comment.IgnorableWords;
 import edu.rit.se.satd.detector.SATDDetector;
 import edu.rit.se.satd.detector.SATDDetectorImpl;
 import edu.rit.se.satd.detector.DebtHunterDetectorImpl;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.PipelineStage;
+import edu.rit.se.satd.metrics.PrometheusEndpoint;
+import edu.rit.se.satd.mining.MiningPipeline;
+import edu.rit.se.satd.mining.SATDIndex;
 import edu.rit.se.satd.mining.diff.CommitToCommitDiff;
+import edu.rit.se.satd.mining.ui.MinerStatus;
+import edu.rit.se.satd.writer.ColumnarOutputWriter;
+import edu.rit.se.satd.writer.JsonLinesOutputWriter;
 import edu.rit.se.satd.writer.MySQLOutputWriter;
 import edu.rit.se.satd.writer.OutputWriter;
+import edu.rit.se.satd.writer.SQLiteOutputWriter;
+import edu.rit.se.util.JavaParseUtil;
 import edu.rit.se.util.SimilarityUtil;
 import org.apache.commons.cli.*;
 import org.eclipse.jgit.diff.DiffAlgorithm;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Scanner;
@@ -30,6 +45,20 @@ public class Main {
     private static final String ARG_NAME_ERROR_OUTPUT = "e";
     private static final String ARG_NAME_NORMALIZED_LEVENSHTEIN_DISTANCE = "l";
     private static final String ARG_NAME_DETECTOR_TYPE = "t";
+    private static final String ARG_NAME_WRITER_TYPE = "w";
+    private static final String ARG_NAME_OUT_FILE = "o";
+    private static final String ARG_NAME_BATCH_SIZE = "b";
+    private static final String ARG_NAME_CHECKPOINT_DIR = "c";
+    private static final String ARG_NAME_CHECKPOINT_INTERVAL = "ci";
+    private static final String ARG_NAME_METRICS_PORT = "mp";
+    private static final String ARG_NAME_PROGRESS = "pr";
+    private static final String ARG_NAME_EXACT_MOVES = "em";
+    private static final String ARG_NAME_OFF_HEAP_IDS = "oh";
+    private static final String ARG_NAME_RENAME_LIMIT = "rl";
+    private static final String ARG_NAME_STORAGE_PROFILE = "sp";
+    private static final String ARG_NAME_STAGE_THREADS = "st";
+    private static final String ARG_NAME_FULL_PARSE = "fp";
+    private static final String ARG_NAME_SATD_INDEX = "si";
     private static final String PROJECT_NAME_CLI = "satd-analyzer";
 
     public static void main(String[] args) throws Exception {
@@ -49,7 +78,10 @@ public class Main {
             CommandLine cmd = parser.parse(options, args);
 
             final String reposFile = cmd.getOptionValue(ARG_NAME_REPOS_FILE);
-            final String dbPropsFile = cmd.getOptionValue(ARG_NAME_DB_PROPS);
+            final String writerType = cmd.getOptionValue(ARG_NAME_WRITER_TYPE, "mysql").toLowerCase();
+            if( writerType.equals("mysql") && !cmd.hasOption(ARG_NAME_DB_PROPS) ) {
+                throw new MissingOptionException("A database properties file is required for the mysql writer.");
+            }
 
             if( cmd.hasOption(ARG_NAME_IGNORE_WORDS) ) {
                 populateIgnoredWordsFile(cmd.getOptionValue(ARG_NAME_IGNORE_WORDS));
@@ -68,12 +100,52 @@ public class Main {
                         CommitToCommitDiff.diffAlgo = DiffAlgorithm.getAlgorithm(
                                 DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
                         break;
+                    case "COMMENTS":
+                        CommitToCommitDiff.commentSequenceDiff = true;
+                        break;
                     default:
                         System.err.println("Invalid diff algorithm supplied: " + algoName +
                                 "\nDefaulted to using Myers.");
                 }
             }
 
+            if( cmd.hasOption(ARG_NAME_EXACT_MOVES) ) {
+                CommitToCommitDiff.fuzzyMoveDetection = false;
+            }
+            if( cmd.hasOption(ARG_NAME_FULL_PARSE) ) {
+                JavaParseUtil.incrementalParsing = false;
+            }
+            if( cmd.hasOption(ARG_NAME_RENAME_LIMIT) ) {
+                GitUtil.renameLimit = Integer.parseInt(cmd.getOptionValue(ARG_NAME_RENAME_LIMIT));
+            }
+
+            if( cmd.hasOption(ARG_NAME_STORAGE_PROFILE) ) {
+                final String profileName = cmd.getOptionValue(ARG_NAME_STORAGE_PROFILE).toUpperCase();
+                try {
+                    RepositoryInitializer.storageMode = StorageProfile.Mode.valueOf(profileName);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid storage profile supplied: " + profileName +
+                            "\nDefaulted to the auto profile.");
+                }
+            }
+
+            if( cmd.hasOption(ARG_NAME_STAGE_THREADS) ) {
+                setStageThreads(cmd.getOptionValue(ARG_NAME_STAGE_THREADS));
+            }
+
+            MinerStatus.OutputMode progressMode = MinerStatus.OutputMode.CONSOLE;
+            if( cmd.hasOption(ARG_NAME_PROGRESS) ) {
+                final String modeName = cmd.getOptionValue(ARG_NAME_PROGRESS).toUpperCase();
+                try {
+                    progressMode = MinerStatus.OutputMode.valueOf(modeName);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid progress mode supplied: " + modeName +
+                            "\nDefaulted to console progress.");
+                }
+            }
+            // Keep stdout to JSON progress lines only when another tool is reading them
+            final PrintStream infoOut = progressMode == MinerStatus.OutputMode.JSON ? System.err : System.out;
+
             if( !cmd.hasOption(ARG_NAME_ERROR_OUTPUT) ) {
                 SATDMiner.disableErrorOutput();
             }
@@ -90,15 +162,34 @@ public class Main {
                 case "satd":
                 case "original":
                     detector = new SATDDetectorImpl();
-                    System.out.println("Using original SATD detector");
+                    infoOut.println("Using original SATD detector");
                     break;
                 case "debthunter":
                 default:
                     detector = new DebtHunterDetectorImpl();
-                    System.out.println("Using DebtHunter detector");
+                    infoOut.println("Using DebtHunter detector");
                     break;
             }
 
+            // The SATD of previously mined blobs is reused if an index directory was supplied
+            SATDIndex satdIndex = null;
+            if( cmd.hasOption(ARG_NAME_SATD_INDEX) ) {
+                try {
+                    satdIndex = SATDIndex.open(new File(cmd.getOptionValue(ARG_NAME_SATD_INDEX)), detector);
+                } catch (IOException e) {
+                    System.err.println("Could not open SATD index, mining without it: " + e.getLocalizedMessage());
+                }
+            }
+
+            // Stage metrics are always available over JMX, and over HTTP if a port was supplied
+            MinerMetrics.registerMBeans();
+            PrometheusEndpoint metricsEndpoint = null;
+            if( cmd.hasOption(ARG_NAME_METRICS_PORT) ) {
+                metricsEndpoint = new PrometheusEndpoint(
+                        Integer.parseInt(cmd.getOptionValue(ARG_NAME_METRICS_PORT)));
+                metricsEndpoint.start();
+            }
+
             // Read the supplied repos from the file
             final File inFile = new File(reposFile);
             final Scanner inFileReader = new Scanner(inFile);
@@ -112,6 +203,10 @@ public class Main {
                     if( repoEntry.length > 0 ) {
 
                         final SATDMiner miner = new SATDMiner(repoEntry[0], detector);
+                        miner.setStatusOutputMode(progressMode);
+                        if( cmd.hasOption(ARG_NAME_OFF_HEAP_IDS) ) {
+                            miner.useOffHeapInstanceMappings();
+                        }
 
                         final String headCommit = repoEntry.length > 1 ? repoEntry[1] : null;
 
@@ -123,8 +218,28 @@ public class Main {
                             miner.setGithubPassword(cmd.getOptionValue(ARG_NAME_GH_PASSWORD));
                         }
 
-                        OutputWriter writer = new MySQLOutputWriter(dbPropsFile);
+                        // Enable checkpoints if a directory to store them was supplied
+                        if (cmd.hasOption(ARG_NAME_CHECKPOINT_DIR)) {
+                            miner.setCheckpointDirectory(cmd.getOptionValue(ARG_NAME_CHECKPOINT_DIR));
+                            miner.setCheckpointInterval(Integer.parseInt(
+                                    cmd.getOptionValue(ARG_NAME_CHECKPOINT_INTERVAL, "500")));
+                        }
+
+                        miner.setSatdIndex(satdIndex);
+
+                        OutputWriter writer = getOutputWriter(writerType, cmd);
                         miner.writeRepoSATD(miner.getBaseCommit(headCommit), writer);
+                        if( satdIndex != null ) {
+                            satdIndex.flush();
+                        }
+                        if( SATDMiner.isErrorOutputEnabled() ) {
+                            System.err.println("SATD instance IDs: " + miner.getInstanceMappingsReport());
+                            System.err.println("Storage: " + miner.getStorageReport());
+                            System.err.println("Pipeline: " + miner.getPipelineReport());
+                            if( satdIndex != null ) {
+                                System.err.println("SATD index: " + satdIndex.getReport());
+                            }
+                        }
 
                         writer.close();
                         miner.cleanRepo();
@@ -132,6 +247,12 @@ public class Main {
                 }
             } finally {
                 inFileReader.close();
+                if( satdIndex != null ) {
+                    satdIndex.close();
+                }
+                if( metricsEndpoint != null ) {
+                    metricsEndpoint.stop();
+                }
             }
         } catch (ParseException e) {
             System.err.println(e.getLocalizedMessage());
@@ -148,8 +269,8 @@ public class Main {
                         .longOpt("db-props")
                         .hasArg()
                         .argName("FILE")
-                        .desc(".properties file containing database properties")
-                        .required()
+                        .desc(".properties file containing database properties " +
+                                "(required for the mysql writer)")
                         .build())
                 .addOption(Option.builder(ARG_NAME_REPOS_FILE)
                         .longOpt("repos")
@@ -184,7 +305,56 @@ public class Main {
                         .argName("ALGORITHM")
                         .desc("the algorithm to use for diffing (Must be supported by JGit): \n" +
                                 "- MYERS (default)\n" +
-                                "- HISTOGRAM")
+                                "- HISTOGRAM\n" +
+                                "- COMMENTS (diffs the comments and declarations of each file with Myers)")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_EXACT_MOVES)
+                        .longOpt("exact-moves")
+                        .desc("only detect SATD moved to another file if its text is unchanged, rather " +
+                                "than also if it is as similar as --n_levenshtein requires")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_FULL_PARSE)
+                        .longOpt("full-parse")
+                        .desc("parse every modified file in full, rather than only the methods edited " +
+                                "since the file's earlier version")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_SATD_INDEX)
+                        .longOpt("satd-index")
+                        .hasArg()
+                        .argName("DIR")
+                        .desc("a directory to keep the SATD of each mined file version in, by blob ID. " +
+                                "File versions found there by later runs are neither parsed nor classified")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_RENAME_LIMIT)
+                        .longOpt("rename-limit")
+                        .hasArg()
+                        .type(Number.class)
+                        .argName("FILES")
+                        .desc("the most Java files a commit may add or delete before renames are only " +
+                                "detected if the file's content is unchanged, or 0 for no limit " +
+                                "(default: " + GitUtil.DEFAULT_RENAME_LIMIT + ")")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_STORAGE_PROFILE)
+                        .longOpt("storage-profile")
+                        .hasArg()
+                        .argName("PROFILE")
+                        .desc("how JGit's pack caches are sized for each repository:\n" +
+                                "- auto (default): from the size of the packs and the heap\n" +
+                                "- mmap: as auto, but with memory-mapped pack windows\n" +
+                                "- default: JGit's defaults")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_STAGE_THREADS)
+                        .longOpt("stage-threads")
+                        .hasArg()
+                        .argName("STAGE=N,...")
+                        .desc("the number of threads of each stage of the mining pipeline, e.g. " +
+                                "parse=4,difference=2 (default: 1 each). Only the load, parse and " +
+                                "difference stages may have more than one")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_OFF_HEAP_IDS)
+                        .longOpt("off-heap-ids")
+                        .desc("keep the IDs of live SATD instances outside of the Java heap, " +
+                                "for repositories with very many SATD instances")
                         .build())
                 .addOption(Option.builder(ARG_NAME_ERROR_OUTPUT)
                         .longOpt("show-errors")
@@ -205,9 +375,89 @@ public class Main {
                         .desc("the SATD detector to use:\n" +
                                 "- debthunter (default): DebtHunter ML-based detector\n" +
                                 "- satd/original: Original SATD detector")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_WRITER_TYPE)
+                        .longOpt("writer")
+                        .hasArg()
+                        .argName("TYPE")
+                        .desc("the output writer to use:\n" +
+                                "- mysql (default): MySQL server configured by --db-props\n" +
+                                "- sqlite: embedded SQLite database file set by --out-file\n" +
+                                "- jsonl: gzip compressed JSON Lines file set by --out-file\n" +
+                                "- columnar: dictionary-encoded columnar file set by --out-file")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_OUT_FILE)
+                        .longOpt("out-file")
+                        .hasArg()
+                        .argName("FILE")
+                        .desc("the file to write output to for file-based writers " +
+                                "(default: satd.db for sqlite, satd.jsonl.gz for jsonl, satd.satdc for columnar)")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_BATCH_SIZE)
+                        .longOpt("batch-size")
+                        .hasArg()
+                        .type(Number.class)
+                        .argName("ROWS")
+                        .desc("the number of rows in each record batch of the columnar writer (default: " +
+                                ColumnarOutputWriter.DEFAULT_BATCH_SIZE + ")")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_CHECKPOINT_DIR)
+                        .longOpt("checkpoint-dir")
+                        .hasArg()
+                        .argName("DIR")
+                        .desc("a directory to periodically save mining progress to. An interrupted run " +
+                                "started again with the same directory resumes from its last checkpoint")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_CHECKPOINT_INTERVAL)
+                        .longOpt("checkpoint-interval")
+                        .hasArg()
+                        .type(Number.class)
+                        .argName("DIFFS")
+                        .desc("the number of diffs to mine between checkpoints (default: 500)")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_METRICS_PORT)
+                        .longOpt("metrics-port")
+                        .hasArg()
+                        .type(Number.class)
+                        .argName("PORT")
+                        .desc("serve per-stage latency metrics in the Prometheus text format " +
+                                "at http://localhost:<PORT>/metrics while mining")
+                        .build())
+                .addOption(Option.builder(ARG_NAME_PROGRESS)
+                        .longOpt("progress")
+                        .hasArg()
+                        .argName("MODE")
+                        .desc("how mining progress is reported:\n" +
+                                "- console (default): a status line updated in place\n" +
+                                "- json: one JSON object per line on stdout\n" +
+                                "- none: only the summary of each repository")
                         .build());
     }
 
+    /**
+     * Creates the output writer selected on the command line
+     * @param writerType the type of writer to create
+     * @param cmd the parsed command line
+     * @return a new OutputWriter
+     * @throws Exception thrown if the writer could not be created
+     */
+    private static OutputWriter getOutputWriter(String writerType, CommandLine cmd) throws Exception {
+        switch (writerType) {
+            case "sqlite":
+                return new SQLiteOutputWriter(cmd.getOptionValue(ARG_NAME_OUT_FILE, "satd.db"));
+            case "jsonl":
+                return new JsonLinesOutputWriter(cmd.getOptionValue(ARG_NAME_OUT_FILE, "satd.jsonl.gz"));
+            case "columnar":
+                return new ColumnarOutputWriter(cmd.getOptionValue(ARG_NAME_OUT_FILE, "satd.satdc"),
+                        Integer.parseInt(cmd.getOptionValue(ARG_NAME_BATCH_SIZE,
+                                String.valueOf(ColumnarOutputWriter.DEFAULT_BATCH_SIZE))));
+            case "mysql":
+                return new MySQLOutputWriter(cmd.getOptionValue(ARG_NAME_DB_PROPS));
+            default:
+                throw new ParseException("Invalid output writer supplied: " + writerType);
+        }
+    }
+
     /**
      * Checks for and prints the help menu if requested
      * @param args the args given to the program
@@ -237,6 +487,26 @@ public class Main {
         return false;
     }
 
+    /**
+     * Sets the number of threads of the stages of the mining pipeline
+     * @param stageThreads a list of stages and their number of threads, as stage=threads,...
+     * @throws ParseException thrown if a stage is unknown or cannot run on that many threads
+     */
+    private static void setStageThreads(String stageThreads) throws ParseException {
+        for( String stageThread : stageThreads.split(",") ) {
+            final String[] parts = stageThread.trim().split("=");
+            final PipelineStage stage = Arrays.stream(PipelineStage.values())
+                    .filter(s -> parts.length == 2 && s.getMetricName().equalsIgnoreCase(parts[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new ParseException("Invalid stage threads supplied: " + stageThread));
+            try {
+                MiningPipeline.setStageThreads(stage, Integer.parseInt(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new ParseException("Invalid stage threads supplied: " + e.getLocalizedMessage());
+            }
+        }
+    }
+
     private static void populateIgnoredWordsFile(String fileName) throws Exception {
         final File f = new File(fileName);
         final Scanner r = new Scanner(f);
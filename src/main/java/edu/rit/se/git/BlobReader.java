@@ -0,0 +1,199 @@
+package edu.rit.se.git;
+
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
+import edu.rit.se.satd.metrics.StorageMetrics;
+import lombok.Getter;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Reads the blobs of a single diff pair. Every tree walk, diff and parse of the pair shares
+ * one ObjectReader, and the content of each blob is inflated once and kept as RawText, so
+ * the same file can be parsed and diffed without reading it from the pack again.
+ *
+ * The blobs a diff pair will need can be prefetched together, in the order they are stored
+ * in the packs, so the pack is read front to back rather than jumping between files.
+ *
+ * Not thread safe. Must be closed once the diff pair has been mined.
+ */
+public class BlobReader implements AutoCloseable {
+
+    // The most inflated bytes kept at once by all readers open together
+    public static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+
+    // Whether the blobs of each diff pair are loaded in pack order before they are used
+    public static boolean prefetchEnabled = true;
+
+    @Getter
+    private final Repository repository;
+    @Getter
+    private final ObjectReader objectReader;
+
+    // The most inflated bytes this reader keeps. The least recently used blobs are dropped past this
+    private final long maxCachedBytes;
+    private final Map<ObjectId, RawText> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes = 0;
+
+    public BlobReader(Repository repository) {
+        this(repository, MAX_CACHED_BYTES);
+    }
+
+    /**
+     * @param repository the repository to read blobs from
+     * @param maxCachedBytes the most inflated bytes to keep, which should be this reader's
+     *                       share of MAX_CACHED_BYTES when several readers are open together
+     */
+    public BlobReader(Repository repository, long maxCachedBytes) {
+        this.repository = repository;
+        this.objectReader = repository.newObjectReader();
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * @param blobId the ID of a blob
+     * @return the content of the blob
+     * @throws IOException thrown if the blob could not be read
+     */
+    public RawText getRawText(AnyObjectId blobId) throws IOException {
+        RawText text = this.cache.get(blobId);
+        if( text != null ) {
+            StorageMetrics.recordBlobCacheHit();
+        } else {
+            StorageMetrics.recordBlobCacheMiss();
+            final byte[] bytes = this.objectReader.open(blobId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
+            text = new RawText(bytes);
+            this.cache.put(blobId.copy(), text);
+            this.cachedBytes += bytes.length;
+            this.evict();
+        }
+        return text;
+    }
+
+    /**
+     * @param blobId the ID of a blob
+     * @return a stream of the content of the blob
+     * @throws IOException thrown if the blob could not be read
+     */
+    public InputStream openStream(AnyObjectId blobId) throws IOException {
+        return new ByteArrayInputStream(this.getRawText(blobId).getRawContent());
+    }
+
+    /**
+     * @param commit a commit
+     * @param path the path of a file in the commit
+     * @return a stream of the content of the file
+     * @throws IOException thrown if the file could not be read or is not in the commit
+     */
+    public InputStream openFile(RevCommit commit, String path) throws IOException {
+        try (TreeWalk walker = TreeWalk.forPath(this.repository, this.objectReader, path, commit.getTree())) {
+            if( walker == null ) {
+                throw new FileNotFoundException(path + " is not in " + commit.getName());
+            }
+            return this.openStream(walker.getObjectId(0));
+        }
+    }
+
+    /**
+     * Loads the given blobs into the cache in the order they are stored in the repository's
+     * packs. Blobs which are already cached, missing, or would not fit in the cache are skipped.
+     * Blobs which cannot be prefetched are instead read when they are first used.
+     * @param blobIds the IDs of the blobs to load
+     */
+    public void prefetch(Collection<ObjectId> blobIds) {
+        if( !prefetchEnabled ) {
+            return;
+        }
+        final long start = MinerMetrics.start();
+        final List<ObjectId> toLoad = new ArrayList<>();
+        for( ObjectId blobId : new LinkedHashSet<>(blobIds) ) {
+            if( !this.cache.containsKey(blobId) ) {
+                toLoad.add(blobId);
+            }
+        }
+        AsyncObjectLoaderQueue<ObjectId> queue = null;
+        int nPrefetched = 0;
+        try {
+            queue = this.objectReader.open(this.sortInPackOrder(toLoad), false);
+            while( queue.next() ) {
+                final ObjectLoader loader = queue.open();
+                if( loader == null || loader.getType() != Constants.OBJ_BLOB ) {
+                    continue;
+                }
+                // Leave room for the blobs that are read on demand rather than evicting prefetched ones
+                if( this.cachedBytes + loader.getSize() > this.maxCachedBytes ) {
+                    break;
+                }
+                final byte[] bytes = loader.getCachedBytes(Integer.MAX_VALUE);
+                this.cache.put(queue.getObjectId().copy(), new RawText(bytes));
+                this.cachedBytes += bytes.length;
+                nPrefetched++;
+            }
+        } catch (IOException e) {
+            System.err.println("\nError prefetching blobs: " + e.getLocalizedMessage());
+        } finally {
+            if( queue != null ) {
+                queue.release();
+            }
+            StorageMetrics.recordBlobsPrefetched(nPrefetched);
+            MinerMetrics.record(Stage.PREFETCH, start);
+        }
+    }
+
+    /**
+     * Orders objects by the pack they are stored in and then by their offset in the pack.
+     * Loose objects, and all objects of repositories not stored as files, keep their order
+     * after the packed objects.
+     * @param objectIds the IDs of objects
+     * @return the IDs in the order they can be read sequentially
+     */
+    private List<ObjectId> sortInPackOrder(List<ObjectId> objectIds) throws IOException {
+        if( !(this.repository.getObjectDatabase() instanceof ObjectDirectory) ) {
+            return objectIds;
+        }
+        final List<PackFile> packs = new ArrayList<>(
+                ((ObjectDirectory) this.repository.getObjectDatabase()).getPacks());
+        final Map<ObjectId, long[]> positions = new HashMap<>();
+        for( ObjectId objectId : objectIds ) {
+            // Loose objects sort after every pack
+            long[] position = {packs.size(), 0};
+            for( int pack = 0; pack < packs.size(); pack++ ) {
+                final long offset = packs.get(pack).getIndex().findOffset(objectId);
+                if( offset >= 0 ) {
+                    position = new long[]{pack, offset};
+                    break;
+                }
+            }
+            positions.put(objectId, position);
+        }
+        final List<ObjectId> sorted = new ArrayList<>(objectIds);
+        sorted.sort(Comparator.<ObjectId>comparingLong(id -> positions.get(id)[0])
+                .thenComparingLong(id -> positions.get(id)[1]));
+        return sorted;
+    }
+
+    private void evict() {
+        while( this.cachedBytes > this.maxCachedBytes && this.cache.size() > 1 ) {
+            final Map.Entry<ObjectId, RawText> eldest = this.cache.entrySet().iterator().next();
+            this.cachedBytes -= eldest.getValue().getRawContent().length;
+            this.cache.remove(eldest.getKey());
+        }
+    }
+
+    @Override
+    public void close() {
+        this.cache.clear();
+        this.cachedBytes = 0;
+        this.objectReader.close();
+    }
+}
@@ -3,6 +3,8 @@ package edu.rit.se.git;
 
 import edu.rit.se.satd.comment.model.RepositoryComments;
 import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.mining.SATDIndex;
+import edu.rit.se.satd.mining.diff.CommitToCommitDiff;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -43,7 +45,13 @@ public class DevNullCommitReference extends RepositoryCommitReference {
 
     @Override
     public Map<String, RepositoryComments> getFilesToSATDOccurrences(
-            SATDDetector detector, List<String> filesToSearch) {
+            SATDDetector detector, List<String> filesToSearch, BlobReader blobs) {
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<String, RepositoryComments> getFilesToComments(List<String> filesToSearch, BlobReader blobs,
+                                                              CommitToCommitDiff parentDiff, SATDIndex satdIndex) {
         return new HashMap<>();
     }
 
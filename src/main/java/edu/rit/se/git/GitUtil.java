@@ -2,18 +2,20 @@ package edu.rit.se.git;
 
 import com.github.javaparser.Position;
 import com.github.javaparser.Range;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
 import edu.rit.se.util.JavaParseUtil;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.RenameDetector;
-import org.eclipse.jgit.errors.CorruptObjectException;
-import org.eclipse.jgit.errors.IncorrectObjectTypeException;
-import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -24,27 +26,45 @@ import java.util.List;
  */
 public class GitUtil {
 
+    // The most files that may be added or deleted by a commit before only renames which
+    // leave a file's content unchanged are detected. 0 removes the limit
+    public static final int DEFAULT_RENAME_LIMIT = 400;
+    public static int renameLimit = DEFAULT_RENAME_LIMIT;
+
     /**
-     * Parses a repository name from a GitHub URI
+     * Parses a repository name from a GitHub URI. URIs of other repositories, such as local
+     * paths, are named by their last path segment.
      * @param githubURI the Github URI, like "https://github.com/bbchristians/SATDMiner"
      * @return a parsed URI, like "bbchristians/SATDMiner"
      */
     public static String getRepoNameFromGithubURI(String githubURI) {
-        return githubURI.split(".com/")[1].replace(".git", "");
+        if( githubURI.contains(".com/") ) {
+            return githubURI.split(".com/")[1].replace(".git", "");
+        }
+        final String path = githubURI.replaceAll("[/\\\\]+$", "");
+        return path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1)
+                .replace(".git", "");
     }
 
     /**
-     * @return a TreeWalk instance for the repository at the given diff
+     * @return a TreeWalk instance for the repository at the given diff, which reads objects
+     * with a new reader. Closing the walk does not close the reader, which is given by
+     * getObjectReader()
      */
     public static TreeWalk getTreeWalker(Git gitInstance, RevCommit commit) {
-        TreeWalk treeWalk = new TreeWalk(gitInstance.getRepository());
+        return getTreeWalker(gitInstance, commit, gitInstance.getRepository().newObjectReader());
+    }
+
+    /**
+     * @return a TreeWalk instance for the repository at the given diff, which reads
+     * objects with the given reader
+     */
+    public static TreeWalk getTreeWalker(Git gitInstance, RevCommit commit, ObjectReader reader) {
+        final TreeWalk treeWalk = new TreeWalk(gitInstance.getRepository(), reader);
         try {
             treeWalk.addTree(commit.getTree());
             treeWalk.setRecursive(true);
             treeWalk.setFilter(PathSuffixFilter.create(".java"));
-        } catch (MissingObjectException | IncorrectObjectTypeException | CorruptObjectException e) {
-            System.err.println("\nException in getting tree walker.");
-            e.printStackTrace();
         } catch (IOException e) {
             System.err.println("\nIOException in getting tree walker.");
             e.printStackTrace();
@@ -53,16 +73,20 @@ public class GitUtil {
     }
 
     /**
-     * Gets all diffs between two revision trees
+     * Gets the diffs of all Java files between two revision trees. Only changed .java paths
+     * are walked, so renames are only detected between Java files, and unchanged subtrees
+     * are never entered.
      * @param gitInstance the Git instance the revisions take place within
      * @param commit1 a RevCommit
      * @param commit2 a RevCommit
-     * @return A list of all DiffEntries between the two trees
+     * @param reader the reader to read the trees and blobs with
+     * @return A list of all DiffEntries of Java files between the two trees
      */
-    public static List<DiffEntry> getDiffEntries(Git gitInstance, RevCommit commit1, RevCommit commit2) {
-        try {
-            final TreeWalk tw = new TreeWalk(gitInstance.getRepository());
+    public static List<DiffEntry> getDiffEntries(Git gitInstance, RevCommit commit1, RevCommit commit2,
+                                                 ObjectReader reader) {
+        try (TreeWalk tw = new TreeWalk(gitInstance.getRepository(), reader)) {
             tw.setRecursive(true);
+            tw.setFilter(AndTreeFilter.create(PathSuffixFilter.create(".java"), TreeFilter.ANY_DIFF));
             if( commit1 != null ) {
                 tw.addTree(commit1.getTree());
             } else {
@@ -73,17 +97,40 @@ public class GitUtil {
             } else {
                 tw.addTree(new EmptyTreeIterator());
             }
+            final List<DiffEntry> entries = DiffEntry.scan(tw);
 
+            // Renames pair an added file with a deleted one, so a commit without both has none
+            if( !hasAddedAndDeletedFiles(entries) ) {
+                return entries;
+            }
+            final long start = MinerMetrics.start();
+            // Renames which leave the content unchanged are found by ObjectId before the limit
+            // is applied, so they are still detected in commits which add or delete many files
             final RenameDetector rd = new RenameDetector(gitInstance.getRepository());
-            rd.addAll(DiffEntry.scan(tw));
-
-            return rd.compute(tw.getObjectReader(), null);
+            rd.setRenameLimit(renameLimit);
+            rd.addAll(entries);
+            final List<DiffEntry> renamedEntries = rd.compute(reader, null);
+            MinerMetrics.record(Stage.RENAME_DETECTION, start);
+            return renamedEntries;
         } catch (IOException e) {
             System.err.println("\nError diffing trees.");
         }
         return new ArrayList<>();
     }
 
+    private static boolean hasAddedAndDeletedFiles(List<DiffEntry> entries) {
+        boolean hasAdded = false;
+        boolean hasDeleted = false;
+        for( DiffEntry entry : entries ) {
+            hasAdded |= entry.getChangeType() == DiffEntry.ChangeType.ADD;
+            hasDeleted |= entry.getChangeType() == DiffEntry.ChangeType.DELETE;
+            if( hasAdded && hasDeleted ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Determines if an edit occurs between two line bounds in the old file
      * @param edit the edit object
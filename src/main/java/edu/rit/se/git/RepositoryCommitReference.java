@@ -2,7 +2,13 @@ package edu.rit.se.git;
 
 import edu.rit.se.satd.comment.model.GroupedComment;
 import edu.rit.se.satd.comment.model.RepositoryComments;
+import edu.rit.se.satd.detector.ClassificationBatch;
 import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.metrics.FileMetrics;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
+import edu.rit.se.satd.mining.SATDIndex;
+import edu.rit.se.satd.mining.diff.CommitToCommitDiff;
 import edu.rit.se.util.JavaParseUtil;
 import edu.rit.se.util.KnownParserException;
 import lombok.Getter;
@@ -11,7 +17,7 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
-import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
@@ -66,38 +72,80 @@ public class RepositoryCommitReference {
     /**
      * @param detector a detector to classify comments in the files as SATD
      * @param filesToSearch a list of files to limit the search to
+     * @param blobs the reader of the diff pair, used to read the files
      * @return a mapping of files to the SATD Occurrences in each of those files
      */
     public Map<String, RepositoryComments> getFilesToSATDOccurrences(
-            SATDDetector detector, List<String> filesToSearch) {
-        final TreeWalk thisRepoWalker = GitUtil.getTreeWalker(this.gitInstance, this.commit);
-        final Map<String, RepositoryComments> filesToSATDMap = new HashMap<>();
+            SATDDetector detector, List<String> filesToSearch, BlobReader blobs) {
+        final Map<String, RepositoryComments> filesToSATDMap = this.getFilesToComments(filesToSearch, blobs);
+        final ClassificationBatch batch = new ClassificationBatch();
+        batch.add(filesToSATDMap);
+        batch.classify(detector);
+        return filesToSATDMap;
+    }
+
+    /**
+     * Parses files for the comments which may be SATD, without classifying them
+     * @param filesToSearch a list of files to limit the search to
+     * @param blobs the reader of the diff pair, used to read the files
+     * @return a mapping of files to the comments in each of those files which are
+     * neither JavaDocs nor source code
+     */
+    public Map<String, RepositoryComments> getFilesToComments(List<String> filesToSearch, BlobReader blobs) {
+        return this.getFilesToComments(filesToSearch, blobs, null, null);
+    }
+
+    /**
+     * Parses files for the comments which may be SATD, without classifying them. The comments of
+     * files which were modified since their earlier version are extracted from those of the earlier
+     * version when they can be. Files whose SATD is indexed are not parsed, and only their SATD is
+     * returned, already classified.
+     * @param filesToSearch a list of files to limit the search to
+     * @param blobs the reader of the diff pair, used to read the files
+     * @param parentDiff the diff from the earlier commit to this one, or null to parse every file in full
+     * @param satdIndex the index of the SATD of previously mined blobs, or null to parse every file
+     * @return a mapping of files to the comments in each of those files which are
+     * neither JavaDocs nor source code
+     */
+    public Map<String, RepositoryComments> getFilesToComments(List<String> filesToSearch, BlobReader blobs,
+                                                              CommitToCommitDiff parentDiff, SATDIndex satdIndex) {
+        final long start = MinerMetrics.start();
+        final TreeWalk thisRepoWalker = GitUtil.getTreeWalker(this.gitInstance, this.commit, blobs.getObjectReader());
+        final Set<String> filesToSearchSet = new HashSet<>(filesToSearch);
+        final Map<String, RepositoryComments> filesToCommentsMap = new HashMap<>();
         try {
             // Walk through each Java file in the repository at the time of the diff
             while (thisRepoWalker.next()) {
 
                 final String curFileName = thisRepoWalker.getPathString();
 
-                if( filesToSearch.contains(curFileName)) {
-                    // Get loader to load file contents into memory
-                    final ObjectLoader fileLoader = this.gitInstance.getRepository()
-                            .open(thisRepoWalker.getObjectId(0));
+                if( filesToSearchSet.contains(curFileName)) {
                     final RepositoryComments comments = new RepositoryComments();
-                    try {
-                        comments.addComments(
-                                JavaParseUtil.parseFileForComments(fileLoader.openStream(), curFileName).stream()
-                                        // Ignore JavaDocs and Source Code
-                                        .filter(gc ->
-                                                !gc.getCommentType().equals(GroupedComment.TYPE_JAVADOC))
-                                        .filter(gc ->
-                                                !gc.getCommentType().equals(GroupedComment.TYPE_COMMENTED_SOURCE))
-                                        .filter(gc -> detector.isSATD(gc.getComment()))
-                                        .collect(Collectors.toList()));
-                    } catch (KnownParserException e) {
-                        comments.addParseErrorFile(e.getFileName());
+                    final ObjectId blobId = thisRepoWalker.getObjectId(0);
+                    final List<GroupedComment> indexedSATD = satdIndex != null ? satdIndex.getSATD(blobId) : null;
+                    if( indexedSATD != null ) {
+                        comments.addComments(indexedSATD);
+                        comments.setClassified(true);
+                        FileMetrics.recordFileParsed(FileMetrics.ParseKind.INDEXED);
+                    } else {
+                        comments.setBlobId(blobId);
+                        try {
+                            comments.addComments(
+                                    JavaParseUtil.parseBlobForComments(blobs, blobId, curFileName,
+                                            parentDiff != null ? parentDiff.getOldBlobId(curFileName) : null,
+                                            () -> parentDiff.getEditsToNewFile(curFileName)).stream()
+                                            // Ignore JavaDocs and Source Code
+                                            .filter(gc ->
+                                                    !gc.getCommentType().equals(GroupedComment.TYPE_JAVADOC))
+                                            .filter(gc ->
+                                                    !gc.getCommentType().equals(GroupedComment.TYPE_COMMENTED_SOURCE))
+                                            .collect(Collectors.toList()));
+                        } catch (KnownParserException e) {
+                            comments.addParseErrorFile(e.getFileName());
+                        }
                     }
-                    // Parse Java file for SATD and add it to the map
-                    filesToSATDMap.put(
+                    // Parse Java file for comments and add it to the map
+                    filesToCommentsMap.put(
                             curFileName,
                             comments
                     );
@@ -111,7 +159,8 @@ public class RepositoryCommitReference {
             e.printStackTrace();
         }
 
-        return filesToSATDMap;
+        MinerMetrics.record(Stage.TREE_WALK, start);
+        return filesToCommentsMap;
     }
 
     public String getCommitHash() {
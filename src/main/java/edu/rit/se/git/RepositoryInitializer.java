@@ -46,6 +46,13 @@ public class RepositoryInitializer {
     // Prevents other functionality of the class from being used if the git init fails
     private Boolean gitDidInit = false;
 
+    // How JGit's storage caches are sized for each repository
+    public static StorageProfile.Mode storageMode = StorageProfile.Mode.AUTO;
+
+    // The storage profile installed for the repository, set after initialization
+    @Getter
+    private StorageProfile storageProfile = null;
+
     public RepositoryInitializer(String uri, String baseName) {
         this.repoDir = String.join(File.separator, REPO_OUT_DIR, baseName);
         this.gitURI = uri;
@@ -62,6 +69,7 @@ public class RepositoryInitializer {
      * Initializes the repository, which:
      * 1. Clones the repository locally (Don't forget to clean it up)
      * 2. Sets the remote reference for the repository
+     * 3. Sizes JGit's storage caches for the repository
      * @return True if the initialization was successful, else False
      */
     public boolean initRepo() {
@@ -81,6 +89,10 @@ public class RepositoryInitializer {
             // Add a remote instance to the repository (to be used for tag listing)
             this.repoRef.getRepository().getConfig().setString(REMOTE, ORIGIN, URL, this.gitURI);
             this.repoRef.getRepository().getConfig().save();
+            // The packs are only known once the repository is cloned
+            this.storageProfile = StorageProfile.forRepository(
+                    this.repoRef.getRepository(), storageMode, Runtime.getRuntime().maxMemory());
+            this.storageProfile.install();
             this.gitDidInit = true;
         } catch (GitAPIException e) {
             System.err.println("\nGit API error in git init: " + e.getLocalizedMessage());
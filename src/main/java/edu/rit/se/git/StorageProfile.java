@@ -0,0 +1,124 @@
+package edu.rit.se.git;
+
+import edu.rit.se.satd.metrics.StorageMetrics;
+import lombok.Getter;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import java.io.File;
+
+/**
+ * Sizes JGit's storage caches for the repository being mined. JGit's defaults (10 MB of
+ * pack windows and 10 MB of delta bases) are meant for small repositories, so mining a large
+ * one spends much of its time reading the same pack windows and inflating the same delta
+ * bases again. The caches are instead sized from the repository's packs and the heap available.
+ *
+ * JGit's caches are global, so installing a profile affects every repository in the process.
+ */
+public class StorageProfile {
+
+    public enum Mode {
+        // JGit's defaults, left unchanged
+        DEFAULT,
+        // Pack windows are read into the heap, sized from the packs and the heap
+        AUTO,
+        // Pack windows are memory-mapped, so the packs are cached by the OS rather than the heap
+        MMAP
+    }
+
+    private static final long MB = WindowCacheConfig.MB;
+
+    // The share of the heap each heap cache may use at most
+    private static final int PACKED_GIT_HEAP_SHARE = 4;
+    private static final int DELTA_BASE_HEAP_SHARE = 8;
+    private static final int STREAM_THRESHOLD_HEAP_SHARE = 8;
+    // Memory-mapped windows are not on the heap, but their address space is still bounded
+    private static final long MAX_MMAP_LIMIT = 8L * 1024 * MB;
+
+    @Getter
+    private final Mode mode;
+    @Getter
+    private final WindowCacheConfig config;
+
+    private StorageProfile(Mode mode, WindowCacheConfig config) {
+        this.mode = mode;
+        this.config = config;
+    }
+
+    /**
+     * Sizes the storage caches for a repository
+     * @param repository the repository to be mined
+     * @param mode how the caches are sized
+     * @param maxHeapBytes the most memory the heap may use
+     * @return the profile, which must be installed before it takes effect
+     */
+    public static StorageProfile forRepository(Repository repository, Mode mode, long maxHeapBytes) {
+        final WindowCacheConfig config = new WindowCacheConfig();
+        if( mode == Mode.DEFAULT ) {
+            return new StorageProfile(mode, config);
+        }
+        final File[] packs = repository.getObjectDatabase() instanceof ObjectDirectory ?
+                new File(((ObjectDirectory) repository.getObjectDatabase()).getDirectory(), "pack")
+                        .listFiles((dir, name) -> name.endsWith(".pack")) :
+                null;
+        long packBytes = 0;
+        if( packs != null ) {
+            for( File pack : packs ) {
+                packBytes += pack.length();
+            }
+        }
+        final int nPacks = packs != null ? packs.length : 0;
+
+        if( mode == Mode.MMAP ) {
+            config.setPackedGitMMAP(true);
+            config.setPackedGitWindowSize((int) MB);
+            config.setPackedGitLimit(clamp(roundUp(packBytes, MB), config.getPackedGitLimit(), MAX_MMAP_LIMIT));
+        } else {
+            // Larger windows read more of a large pack per miss
+            config.setPackedGitWindowSize(packBytes > 256 * MB ? 64 * WindowCacheConfig.KB : config.getPackedGitWindowSize());
+            config.setPackedGitLimit(clamp(roundUp(packBytes, MB), config.getPackedGitLimit(),
+                    maxHeapBytes / PACKED_GIT_HEAP_SHARE));
+        }
+        // Delta chains are resolved from their bases, so a base cache of an eighth of the packs
+        // keeps most chains' bases inflated
+        config.setDeltaBaseCacheLimit((int) clamp(packBytes / 8, config.getDeltaBaseCacheLimit(),
+                Math.min(Integer.MAX_VALUE, maxHeapBytes / DELTA_BASE_HEAP_SHARE)));
+        // Blobs under the threshold are inflated whole rather than streamed
+        config.setStreamFileThreshold((int) clamp(maxHeapBytes / STREAM_THRESHOLD_HEAP_SHARE,
+                config.getStreamFileThreshold(), Integer.MAX_VALUE));
+        config.setPackedGitOpenFiles(Math.max(config.getPackedGitOpenFiles(), 2 * nPacks));
+        return new StorageProfile(mode, config);
+    }
+
+    /**
+     * Replaces JGit's storage caches with ones of this profile's sizes
+     */
+    public void install() {
+        if( this.mode != Mode.DEFAULT ) {
+            this.config.install();
+        }
+        StorageMetrics.setWindowCacheConfig(this.config);
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, Math.max(min, max)));
+    }
+
+    private static long roundUp(long value, long unit) {
+        return (value + unit - 1) / unit * unit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d MB of %s pack windows (%,d KB each, %d open files), " +
+                        "%,d MB delta base cache, %,d MB stream threshold",
+                this.mode.name().toLowerCase(),
+                this.config.getPackedGitLimit() / MB,
+                this.config.isPackedGitMMAP() ? "mapped" : "heap",
+                this.config.getPackedGitWindowSize() / WindowCacheConfig.KB,
+                this.config.getPackedGitOpenFiles(),
+                this.config.getDeltaBaseCacheLimit() / MB,
+                this.config.getStreamFileThreshold() / MB);
+    }
+}
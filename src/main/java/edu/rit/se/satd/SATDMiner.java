@@ -5,24 +5,39 @@ import edu.rit.se.git.GitUtil;
 import edu.rit.se.git.RepositoryCommitReference;
 import edu.rit.se.git.RepositoryInitializer;
 import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.PipelineMetrics;
+import edu.rit.se.satd.metrics.PipelineStage;
+import edu.rit.se.satd.metrics.Stage;
+import edu.rit.se.satd.metrics.StorageMetrics;
+import edu.rit.se.satd.mining.MiningCheckpoint;
+import edu.rit.se.satd.mining.MiningPipeline;
 import edu.rit.se.satd.mining.RepositoryDiffMiner;
+import edu.rit.se.satd.mining.SATDIndex;
 import edu.rit.se.satd.mining.ui.ElapsedTimer;
 import edu.rit.se.satd.mining.ui.MinerStatus;
 import edu.rit.se.satd.model.SATDDifference;
 import edu.rit.se.satd.model.SATDInstance;
-import edu.rit.se.satd.model.SATDInstanceInFile;
 import edu.rit.se.satd.writer.OutputWriter;
+import edu.rit.se.util.LongIntHashMap;
+import edu.rit.se.util.ParsedFileCache;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+
+import static org.eclipse.jgit.diff.DiffEntry.DEV_NULL;
 
 /**
  * A class which contains high-level logic for mining SATD Instances from a git repository.
@@ -46,15 +61,35 @@ public class SATDMiner {
     // Miner status for console output
     private MinerStatus status;
 
-    private Map<SATDInstanceInFile, Integer> satdInstanceMappings = new HashMap<>();
+    // The fingerprint of each live SATD instance mapped to its SATD ID
+    private LongIntHashMap satdInstanceMappings = new LongIntHashMap();
 
     private ElapsedTimer timer = new ElapsedTimer();
 
+    // Parses the commits of the diff pairs being mined, and is replaced periodically.
+    // Only used by the thread which feeds diff pairs to the mining pipeline
+    private RevWalk pairWalk = null;
+    // The number of diff pairs whose commits are parsed by one walk
+    private static final int PAIR_WALK_INTERVAL = 1000;
+
     private int curSATDId;
 
+    // The file to periodically save mining progress to, or null if checkpoints are disabled
+    private File checkpointFile = null;
+    // The number of diff pairs to mine between checkpoints
+    @Setter
+    private int checkpointInterval = 500;
+
+    // The index of the SATD of previously mined blobs, or null if blobs are always parsed and classified
+    @Setter
+    private SATDIndex satdIndex = null;
+
     @Getter
     private static boolean errorOutputEnabled = true;
 
+    // The number of SATD instances the off-heap ID map is first sized for
+    private static final int INITIAL_INSTANCE_MAPPINGS = 1 << 12;
+
     public SATDMiner(String repositoryURI, SATDDetector satdDetector) {
         this.repositoryURI = repositoryURI;
         this.satdDetector = satdDetector;
@@ -67,6 +102,55 @@ public class SATDMiner {
         this.status.setOutputEnabled(false);
     }
 
+    public void setStatusOutputMode(MinerStatus.OutputMode mode) {
+        this.status.setOutputMode(mode);
+    }
+
+    /**
+     * Enables checkpoints, which allow a mining run that was interrupted to resume from
+     * the last checkpoint rather than the start of the repository's history
+     * @param checkpointDir the directory to store the checkpoint in
+     */
+    public void setCheckpointDirectory(String checkpointDir) {
+        final File dir = new File(checkpointDir);
+        dir.mkdirs();
+        this.checkpointFile = new File(dir,
+                GitUtil.getRepoNameFromGithubURI(this.repositoryURI).replace("/", "_") + ".checkpoint");
+    }
+
+    /**
+     * Stores the IDs of live SATD instances outside of the Java heap. Must be called before mining.
+     */
+    public void useOffHeapInstanceMappings() {
+        this.satdInstanceMappings = new LongIntHashMap(
+                INITIAL_INSTANCE_MAPPINGS, LongIntHashMap.DEFAULT_LOAD_FACTOR, true);
+    }
+
+    /**
+     * @return a summary of the size, load and memory use of the SATD instance ID map
+     */
+    public String getInstanceMappingsReport() {
+        return this.satdInstanceMappings.getReport();
+    }
+
+    /**
+     * @return the storage profile the repository was mined with, and how often blobs were
+     * already cached when they were read
+     */
+    public String getStorageReport() {
+        return String.format("%s, %.1f%% blob cache hits",
+                this.repo != null && this.repo.getStorageProfile() != null ?
+                        this.repo.getStorageProfile().toString() : "no storage profile",
+                100 * StorageMetrics.getBlobCacheHitRatio());
+    }
+
+    /**
+     * @return the threads and utilization of each stage of the mining pipeline
+     */
+    public String getPipelineReport() {
+        return PipelineMetrics.getReport();
+    }
+
     public static void disableErrorOutput() {
         errorOutputEnabled = false;
     }
@@ -96,6 +180,8 @@ public class SATDMiner {
             System.err.println("Error in deleting cleaned git repo.");
             e.printStackTrace();
         }
+        // The next repository will not share any of this repository's files
+        ParsedFileCache.clear();
         this.timer.end();
         this.status.setComplete(this.timer.readMS());
     }
@@ -113,28 +199,136 @@ public class SATDMiner {
         }
         this.status.beginCalculatingDiffs();
 
+        final long diffPairsStart = MinerMetrics.start();
         final List<DiffPair> allDiffPairs =  this.getAllDiffPairs(commitRef);
+        MinerMetrics.record(Stage.DIFF_PAIRS, diffPairsStart);
 
         this.status.beginMiningSATD();
         this.status.setNDiffsPromised(allDiffPairs.size());
 
-        allDiffPairs.stream()
-                .map(pair -> new RepositoryDiffMiner(pair.parentRepo, pair.repo, this.satdDetector))
-                .map(repositoryDiffMiner -> {
-                    this.status.setDisplayWindow(repositoryDiffMiner.getDiffString());
-                    return repositoryDiffMiner.mineDiff();
-                })
-                .map(this::mapInstancesInDiffToPriorInstances)
-                .forEach(diff -> {
-                    try {
-                        writer.writeDiff(diff);
-                        this.status.fulfilDiffPromise();
-                    } catch (IOException e) {
-                        this.status.addErrorEncountered();
-                        System.err.println("Error writing diff: " + e.getLocalizedMessage());
-                    }
-                });
+        final int firstDiffPair = this.resumeFromCheckpoint(commitRef, allDiffPairs, writer);
+        if( this.checkpointFile != null && firstDiffPair == 0 ) {
+            // Records where the output began, so a run interrupted before its first checkpoint
+            // does not leave its diffs in the output when it is started again
+            this.saveCheckpoint(commitRef, allDiffPairs, 0, writer);
+        }
+
+        final MiningPipeline pipeline = new MiningPipeline(this.satdDetector);
+        pipeline.run(firstDiffPair, allDiffPairs.size(), i -> {
+            final DiffPair pair = allDiffPairs.get(i);
+            // Parsed commits are released periodically, so they do not accumulate over the history
+            if( (i - firstDiffPair) % PAIR_WALK_INTERVAL == 0 ) {
+                this.renewPairWalk(commitRef);
+            }
+            final RepositoryCommitReference commit = this.resolveCommit(commitRef, pair.getCommitId());
+            final RepositoryCommitReference parent = pair.getParentId() != null ?
+                    this.resolveCommit(commitRef, pair.getParentId()) : new DevNullCommitReference();
+            final RepositoryDiffMiner diffMiner = new RepositoryDiffMiner(parent, commit, pipeline.getDetector());
+            diffMiner.setSatdIndex(this.satdIndex);
+            return diffMiner;
+        }, (i, repositoryDiffMiner, minedDiff, diffPairEvent) -> {
+            final DiffPair pair = allDiffPairs.get(i);
+            this.status.setDisplayWindow(repositoryDiffMiner.getDiffString());
+            final long linkStart = MinerMetrics.start();
+            final SATDDifference diff = this.mapInstancesInDiffToPriorInstances(minedDiff);
+            MinerMetrics.record(Stage.LINK, linkStart);
+            PipelineMetrics.recordBusy(PipelineStage.LINK, linkStart);
+            FlightEvents.commitDiffPair(diffPairEvent, pair.getParentCommitHash(),
+                    pair.getCommitHash(), repositoryDiffMiner.getNModifiedFiles(),
+                    diff.getSatdInstances().size());
+            final long writeStart = MinerMetrics.start();
+            try {
+                writer.writeDiff(diff);
+                MinerMetrics.record(Stage.WRITE, writeStart);
+                this.status.fulfilDiffPromise();
+            } catch (IOException e) {
+                this.status.addErrorEncountered();
+                System.err.println("Error writing diff: " + e.getLocalizedMessage());
+            }
+            if( this.checkpointFile != null && (i + 1) % this.checkpointInterval == 0 ) {
+                this.saveCheckpoint(commitRef, allDiffPairs, i + 1, writer);
+            }
+            PipelineMetrics.recordBusy(PipelineStage.WRITE, writeStart);
+        });
+
+        this.closePairWalk();
+        // The repository was fully mined, so there is nothing left to resume
+        if( this.checkpointFile != null && this.checkpointFile.exists() && !this.checkpointFile.delete() ) {
+            System.err.println("\nCould not delete checkpoint " + this.checkpointFile);
+        }
+    }
+
+    /**
+     * Restores the miner's state from the checkpoint for this repository, if one exists
+     * and was made from the same history. Anything written to the output after the checkpoint
+     * is discarded, so no diff is written twice.
+     * @param commitRef the commit mining started from
+     * @param allDiffPairs all diff pairs to be mined
+     * @param writer the writer the diffs will be written to, which nothing was written to yet
+     * @return the index of the first diff pair which still needs to be mined
+     */
+    private int resumeFromCheckpoint(RepositoryCommitReference commitRef, List<DiffPair> allDiffPairs,
+                                     OutputWriter writer) {
+        if( this.checkpointFile == null || !this.checkpointFile.exists() ) {
+            return 0;
+        }
+        final MiningCheckpoint checkpoint;
+        try {
+            checkpoint = MiningCheckpoint.readFrom(this.checkpointFile, this.satdInstanceMappings.isOffHeap());
+        } catch (IOException e) {
+            System.err.println("\nCould not read checkpoint, mining from the start: " + e.getLocalizedMessage());
+            return 0;
+        }
+        final int nComplete = checkpoint.getNDiffPairsComplete();
+        if( !checkpoint.getRepositoryURI().equals(this.repositoryURI) ||
+                !checkpoint.getHeadCommit().equals(commitRef.getCommitHash()) ||
+                nComplete < 0 || nComplete > allDiffPairs.size() ||
+                (nComplete > 0 && !isLastPair(allDiffPairs.get(nComplete - 1), checkpoint))) {
+            System.err.println("\nCheckpoint does not match the repository's history, mining from the start.");
+            return 0;
+        }
+        if( checkpoint.getOutputLength() >= 0 ) {
+            try {
+                writer.truncateOutput(checkpoint.getOutputLength());
+            } catch (IOException e) {
+                System.err.println("\nCould not truncate output to the checkpoint, mining from the start: " +
+                        e.getLocalizedMessage());
+                return 0;
+            }
+        }
+        this.curSATDId = checkpoint.getCurSATDId();
+        this.satdInstanceMappings = checkpoint.getSatdInstanceMappings();
+        this.status.fulfilDiffPromises(nComplete);
+        return nComplete;
+    }
+
+    private static boolean isLastPair(DiffPair pair, MiningCheckpoint checkpoint) {
+        return pair.getCommitHash().equals(checkpoint.getLastCommit()) &&
+                pair.getParentCommitHash().equals(checkpoint.getLastParentCommit());
+    }
 
+    /**
+     * Waits for the writer to finish all pending writes, and then saves the miner's state
+     * along with the length of the output
+     * @param commitRef the commit mining started from
+     * @param allDiffPairs all diff pairs to be mined
+     * @param nComplete the number of diff pairs which have been mined and written
+     * @param writer the writer the diffs were written to
+     */
+    private void saveCheckpoint(RepositoryCommitReference commitRef, List<DiffPair> allDiffPairs,
+                                int nComplete, OutputWriter writer) {
+        final DiffPair lastPair = nComplete > 0 ? allDiffPairs.get(nComplete - 1) : null;
+        try {
+            writer.flush();
+            new MiningCheckpoint(this.repositoryURI, commitRef.getCommitHash(), nComplete,
+                    lastPair != null ? lastPair.getCommitHash() : "",
+                    lastPair != null ? lastPair.getParentCommitHash() : "",
+                    this.curSATDId, this.satdInstanceMappings, writer.getOutputLength())
+                    .writeTo(this.checkpointFile);
+        } catch (IOException e) {
+            this.status.addErrorEncountered();
+            System.err.println("\nError saving checkpoint: " + e.getLocalizedMessage());
+        }
     }
 
     private boolean initializeRepo(String username, String password) {
@@ -142,37 +336,86 @@ public class SATDMiner {
                 new RepositoryInitializer(this.repositoryURI, GitUtil.getRepoNameFromGithubURI(this.repositoryURI),
                         username, password):
                 new RepositoryInitializer(this.repositoryURI, GitUtil.getRepoNameFromGithubURI(this.repositoryURI));
-        return this.repo.initRepo();
+        final long cloneStart = MinerMetrics.start();
+        final boolean didInit = this.repo.initRepo();
+        MinerMetrics.record(Stage.CLONE, cloneStart);
+        return didInit;
     }
 
+    /**
+     * Walks the history of a commit for every non-merge commit and the parent it should be
+     * diffed against. Commit bodies are not kept by the walk, so only the commits' headers
+     * are held while walking.
+     * @param curRef the commit to start from
+     * @return every diff pair in the commit's history, oldest first
+     */
     private List<DiffPair> getAllDiffPairs(RepositoryCommitReference curRef) {
-        final Set<RepositoryCommitReference> visitedCommits = new HashSet<>();
-        final Set<RepositoryCommitReference> allCommits = new HashSet<>();
-        allCommits.add(curRef);
-        // Continue until no new diff refs are found
-        while( allCommits.size() > visitedCommits.size() ) {
-            allCommits.addAll(
-                    allCommits.stream()
-                            .filter(ref -> !visitedCommits.contains(ref))
-                            .peek(visitedCommits::add)
-                            .map(RepositoryCommitReference::getParentCommitReferences)
-                            .flatMap(Collection::stream)
-                            .collect(Collectors.toSet())
-            );
-        }
-        return allCommits.stream()
+        final List<DiffPair> diffPairs = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(curRef.getGitInstance().getRepository())) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(curRef.getCommit()));
+            for( RevCommit commit : walk ) {
                 // Only include non-merge commits
-                .filter(ref -> ref.getParentCommitReferences().size() < 2)
-                .flatMap(ref -> {
-                    if( ref.getParentCommitReferences().isEmpty() ) {
-                        return Stream.of(new DiffPair(ref, new DevNullCommitReference()));
-                    } else {
-                        return ref.getParentCommitReferences().stream()
-                                .map(parent -> new DiffPair(ref, parent));
-                    }
-                })
-                .sorted()
-                .collect(Collectors.toList());
+                if( commit.getParentCount() < 2 ) {
+                    diffPairs.add(new DiffPair(commit.copy(),
+                            commit.getParentCount() == 1 ? commit.getParent(0).copy() : null,
+                            commit.getCommitTime()));
+                }
+            }
+            readAuthoredTimesOfTies(walk, diffPairs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(diffPairs);
+        return diffPairs;
+    }
+
+    /**
+     * Reads the authored time of each commit made in the same second as another, which is
+     * needed to order them. The authored time is only in the commit's body, so it is read
+     * only for these commits and the body is then released.
+     */
+    private static void readAuthoredTimesOfTies(RevWalk walk, List<DiffPair> diffPairs) throws IOException {
+        final Map<Integer, Integer> nPairsByCommitTime = new HashMap<>();
+        diffPairs.forEach(pair -> nPairsByCommitTime.merge(pair.commitTime, 1, Integer::sum));
+        for( DiffPair pair : diffPairs ) {
+            if( nPairsByCommitTime.get(pair.commitTime) > 1 ) {
+                final RevCommit commit = walk.parseCommit(pair.commitId);
+                walk.parseBody(commit);
+                pair.authoredTime = commit.getAuthorIdent().getWhen().getTime();
+                commit.disposeBody();
+            }
+        }
+    }
+
+    /**
+     * Parses a commit of a diff pair with the current pair walk
+     * @param headRef the commit mining started from
+     * @param commitId the ID of the commit
+     * @return a reference to the commit
+     */
+    private RepositoryCommitReference resolveCommit(RepositoryCommitReference headRef, ObjectId commitId) {
+        try {
+            return new RepositoryCommitReference(headRef.getGitInstance(), headRef.getProjectName(),
+                    headRef.getProjectURI(), this.pairWalk.parseCommit(commitId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the pair walk, releasing every commit the previous walk parsed
+     */
+    private void renewPairWalk(RepositoryCommitReference headRef) {
+        this.closePairWalk();
+        this.pairWalk = new RevWalk(headRef.getGitInstance().getRepository());
+    }
+
+    private void closePairWalk() {
+        if( this.pairWalk != null ) {
+            this.pairWalk.close();
+            this.pairWalk = null;
+        }
     }
 
     /**
@@ -197,13 +440,15 @@ public class SATDMiner {
      * @return the SATD Instance
      */
     private SATDInstance mapInstanceToNewInstanceId(SATDInstance satdInstance) {
+        final long oldInstance = satdInstance.getOldInstance().getFingerprint();
+        final long newInstance = satdInstance.getNewInstance().getFingerprint();
         switch (satdInstance.getResolution()) {
             case SATD_ADDED:
                 // SATD was added, so we know it won't relate to other instances
                 // It could possibly be duplicated from another instance, but detecting
                 // that is currently out of scope for this tool.
-                if( !this.satdInstanceMappings.containsKey(satdInstance.getNewInstance()) ) {
-                    this.satdInstanceMappings.put(satdInstance.getNewInstance(), this.getNewSATDId());
+                if( !this.satdInstanceMappings.containsKey(newInstance) ) {
+                    this.satdInstanceMappings.put(newInstance, this.getNewSATDId());
                 } else {
                     if( isErrorOutputEnabled() ) {
                         System.err.println("\nMultiple SATD_ADDED instances for " +
@@ -211,11 +456,11 @@ public class SATDMiner {
                     }
                     this.status.addErrorEncountered();
                 }
-                satdInstance.setId(this.satdInstanceMappings.get(satdInstance.getNewInstance()));
+                satdInstance.setId(this.satdInstanceMappings.get(newInstance));
                 break;
             case SATD_CHANGED: case FILE_PATH_CHANGED: case CLASS_OR_METHOD_CHANGED:
                 // SATD was changed from the previous version, so update it here
-                if( !this.satdInstanceMappings.containsKey(satdInstance.getOldInstance()) ) {
+                if( !this.satdInstanceMappings.containsKey(oldInstance) ) {
                     // Looks like we cannot find the old SATD Instance for whatever reason
                     // This is not a case which should be hit
                     if( isErrorOutputEnabled() ) {
@@ -223,18 +468,18 @@ public class SATDMiner {
                                 satdInstance.getOldInstance().toString());
                     }
                     this.status.addErrorEncountered();
-                    this.satdInstanceMappings.put(satdInstance.getNewInstance(), this.getNewSATDId());
+                    this.satdInstanceMappings.put(newInstance, this.getNewSATDId());
                 } else {
                     // Otherwise it exists, so we can propagate it forward
-                    this.satdInstanceMappings.put(satdInstance.getNewInstance(),
-                            this.satdInstanceMappings.get(satdInstance.getOldInstance()));
+                    this.satdInstanceMappings.put(newInstance,
+                            this.satdInstanceMappings.get(oldInstance));
                 }
-                satdInstance.setId(this.satdInstanceMappings.get(satdInstance.getNewInstance()));
+                satdInstance.setId(this.satdInstanceMappings.get(newInstance));
                 break;
             case SATD_REMOVED: case FILE_REMOVED: case SATD_MOVED_FILE:
                 // SATD was removed from the project, but the satdInstance still needs to have
                 // its ID set if possible
-                if( !this.satdInstanceMappings.containsKey(satdInstance.getOldInstance()) ) {
+                if( !this.satdInstanceMappings.containsKey(oldInstance) ) {
                     // Looks like we cannot find the old SATD Instance for whatever reason
                     // This is not a case which should be hit
                     if( isErrorOutputEnabled() ) {
@@ -251,13 +496,13 @@ public class SATDMiner {
                         // We cannot remove it from the list because it may have propagated multiple times
                         // FIXME - we should store that the instance was removed and remove it after all
                         //  cases from this propagation have been processed
-                        satdInstance.setParentId(this.satdInstanceMappings.get(satdInstance.getOldInstance()));
+                        satdInstance.setParentId(this.satdInstanceMappings.get(oldInstance));
                         satdInstance.setId(this.getNewSATDId());
-                        this.satdInstanceMappings.put(satdInstance.getNewInstance(), satdInstance.getId());
+                        this.satdInstanceMappings.put(newInstance, satdInstance.getId());
                     } else {
                         // It was not moved to another file, so we can kill the instance here.
-                        satdInstance.setId(this.satdInstanceMappings.get(satdInstance.getOldInstance()));
-                        this.satdInstanceMappings.remove(satdInstance.getOldInstance());
+                        satdInstance.setId(this.satdInstanceMappings.get(oldInstance));
+                        this.satdInstanceMappings.remove(oldInstance);
                     }
                 }
                 break;
@@ -269,42 +514,61 @@ public class SATDMiner {
         return ++this.curSATDId;
     }
 
+    /**
+     * A commit and the parent it is diffed against. Only the IDs and times of the commits are
+     * kept, so every pair of a long history can be held at once, and the commits themselves
+     * are only parsed while the pair is mined.
+     */
     @RequiredArgsConstructor
-    public class DiffPair implements Comparable {
+    public static class DiffPair implements Comparable<DiffPair> {
 
         @NonNull
         @Getter
-        private RepositoryCommitReference repo;
-        @NonNull
+        private final ObjectId commitId;
+        // Null if the commit has no parent
+        @Getter
+        private final ObjectId parentId;
+        @Getter
+        private final int commitTime;
+        // Only read for commits made in the same second as another commit, else 0
         @Getter
-        private RepositoryCommitReference parentRepo;
+        private long authoredTime = 0;
+
+        public String getCommitHash() {
+            return this.commitId.getName();
+        }
+
+        public String getParentCommitHash() {
+            return this.parentId != null ? this.parentId.getName() : DEV_NULL;
+        }
 
         @Override
         public boolean equals(Object obj) {
             if( obj instanceof DiffPair ) {
-                return this.repo.getCommitHash().equals(((DiffPair) obj).repo.getCommitHash()) &&
-                        this.parentRepo.getCommitHash().equals(((DiffPair) obj).parentRepo.getCommitHash());
+                return this.commitId.equals(((DiffPair) obj).commitId) &&
+                        Objects.equals(this.parentId, ((DiffPair) obj).parentId);
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            return (this.parentRepo.getCommitHash() + this.repo.getCommitHash()).hashCode();
+            return Objects.hash(this.commitId, this.parentId);
         }
 
         @Override
-        public int compareTo(Object o) {
-            if( o instanceof DiffPair ) {
-                int commitTimeDiff = this.repo.getCommitTime() - ((DiffPair) o).repo.getCommitTime();
-                // If the commits were committed at the same time, look at the authored date
-                // to determine which came first
-                if( commitTimeDiff == 0 ) {
-                    return Long.compare(this.repo.getAuthoredTime(), ((DiffPair) o).repo.getAuthoredTime());
-                }
+        public int compareTo(DiffPair o) {
+            final int commitTimeDiff = Integer.compare(this.commitTime, o.commitTime);
+            if( commitTimeDiff != 0 ) {
                 return commitTimeDiff;
             }
-            return -1;
+            // If the commits were committed at the same time, look at the authored date
+            // to determine which came first
+            final int authoredTimeDiff = Long.compare(this.authoredTime, o.authoredTime);
+            if( authoredTimeDiff != 0 ) {
+                return authoredTimeDiff;
+            }
+            return this.commitId.compareTo(o.commitId);
         }
     }
 }
@@ -1,56 +1,47 @@
 package edu.rit.se.satd.comment.model;
 
-import com.github.javaparser.Position;
-import com.github.javaparser.Range;
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.comments.Comment;
-import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import edu.rit.se.util.JavaParseUtil;
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
+import edu.rit.se.util.Fingerprint;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
-import static edu.rit.se.util.JavaParseUtil.NULL_RANGE;
-
 /**
  * A model used to represent a single comment
  */
-@NoArgsConstructor(access = AccessLevel.PRIVATE) // For internal use only
-@AllArgsConstructor(access = AccessLevel.PROTECTED) // For internal use only
 public class GroupedComment implements Comparable {
 
     private static final String UNKNOWN = "None";
 
     @Getter
-    private int startLine = -1;
+    private final int startLine;
+    @Getter
+    private final int endLine;
     @Getter
-    private int endLine = -1;
+    private final String comment;
     @Getter
-    private String comment = UNKNOWN;
+    private final String commentType;
     @Getter
-    private String commentType = UNKNOWN;
+    private final String containingClass;
     @Getter
-    private String containingClass = UNKNOWN;
+    private final int containingClassDeclarationLineStart;
     @Getter
-    private int containingClassDeclarationLineStart = -1;
+    private final int containingClassDeclarationLineEnd;
     @Getter
-    private int containingClassDeclarationLineEnd = -1;
+    private final String containingMethod;
     @Getter
-    private String containingMethod = UNKNOWN;
+    private final int containingMethodDeclarationLineStart;
     @Getter
-    private int containingMethodDeclarationLineStart = -1;
+    private final int containingMethodDeclarationLineEnd;
+
+    // The fingerprint of the comment, type, class and method
     @Getter
-    private int containingMethodDeclarationLineEnd = -1;
+    private final long fingerprint;
 
     public static final String TYPE_COMMENTED_SOURCE = "CommentedSource";
     public static final String TYPE_BLOCK = "Block";
@@ -59,6 +50,27 @@ public class GroupedComment implements Comparable {
     public static final String TYPE_JAVADOC = "JavaDoc";
     public static final String TYPE_UNKNOWN = "Unknown";
 
+    // For internal use only
+    protected GroupedComment(int startLine, int endLine, String comment, String commentType,
+                             String containingClass, int containingClassDeclarationLineStart,
+                             int containingClassDeclarationLineEnd, String containingMethod,
+                             int containingMethodDeclarationLineStart, int containingMethodDeclarationLineEnd) {
+        this.startLine = startLine;
+        this.endLine = endLine;
+        this.comment = comment;
+        this.commentType = commentType;
+        this.containingClass = containingClass;
+        this.containingClassDeclarationLineStart = containingClassDeclarationLineStart;
+        this.containingClassDeclarationLineEnd = containingClassDeclarationLineEnd;
+        this.containingMethod = containingMethod;
+        this.containingMethodDeclarationLineStart = containingMethodDeclarationLineStart;
+        this.containingMethodDeclarationLineEnd = containingMethodDeclarationLineEnd;
+        long fingerprint = Fingerprint.add(Fingerprint.EMPTY, this.comment);
+        fingerprint = Fingerprint.add(fingerprint, this.containingMethod);
+        fingerprint = Fingerprint.add(fingerprint, this.containingClass);
+        this.fingerprint = Fingerprint.add(fingerprint, this.commentType);
+    }
+
     /**
      * Merges this comment with another comment
      * @param other another comment
@@ -135,96 +147,116 @@ public class GroupedComment implements Comparable {
 
     @Override
     public int hashCode() {
-        return (this.comment + this.containingMethod + this.containingClass + this.commentType).hashCode();
+        return Fingerprint.toHashCode(this.fingerprint);
+    }
+
+    /**
+     * @param other another comment
+     * @return True if the other comment has the same text and type, and is in the same
+     * class and method, regardless of where it is in the file
+     */
+    public boolean hasSameContentAs(GroupedComment other) {
+        return this.fingerprint == other.fingerprint &&
+                this.comment.equals(other.comment) &&
+                this.commentType.equals(other.commentType) &&
+                this.containingClass.equals(other.containingClass) &&
+                this.containingMethod.equals(other.containingMethod);
+    }
+
+    /**
+     * Writes every field of this comment in a compact binary form
+     * @param out the output to write to
+     * @throws IOException thrown if the output could not be written to
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(this.startLine);
+        out.writeInt(this.endLine);
+        writeString(out, this.comment);
+        writeString(out, this.commentType);
+        writeString(out, this.containingClass);
+        out.writeInt(this.containingClassDeclarationLineStart);
+        out.writeInt(this.containingClassDeclarationLineEnd);
+        writeString(out, this.containingMethod);
+        out.writeInt(this.containingMethodDeclarationLineStart);
+        out.writeInt(this.containingMethodDeclarationLineEnd);
+    }
+
+    /**
+     * Reads a comment written by writeTo
+     * @param in the input to read from
+     * @return the comment that was read
+     * @throws IOException thrown if the input could not be read from
+     */
+    public static GroupedComment readFrom(DataInput in) throws IOException {
+        final int startLine = in.readInt();
+        final int endLine = in.readInt();
+        final String comment = readString(in);
+        final String commentType = readString(in);
+        final String containingClass = readString(in);
+        final int containingClassDeclarationLineStart = in.readInt();
+        final int containingClassDeclarationLineEnd = in.readInt();
+        final String containingMethod = readString(in);
+        final int containingMethodDeclarationLineStart = in.readInt();
+        final int containingMethodDeclarationLineEnd = in.readInt();
+        return new GroupedComment(startLine, endLine, comment, commentType,
+                containingClass, containingClassDeclarationLineStart, containingClassDeclarationLineEnd,
+                containingMethod, containingMethodDeclarationLineStart, containingMethodDeclarationLineEnd);
+    }
+
+    private static void writeString(DataOutput out, String str) throws IOException {
+        // Comments can be longer than writeUTF allows, so the length is written separately
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
+    /**
+     * @param oldComment a comment parsed by JavaParser
+     * @return the comment's lines, text and type. The class and method containing it are not set, and
+     * are found by locating the comment in the outline of its file with SourceOutline.locate
+     */
     public static GroupedComment fromJavaParserComment(Comment oldComment) {
-        final GroupedComment newComment = new GroupedComment();
         // Line numbers
-        if( oldComment.getRange().isPresent() ) {
-            newComment.startLine = oldComment.getRange().get().begin.line;
-            newComment.endLine = oldComment.getRange().get().end.line;
-        }
+        final int startLine = oldComment.getRange().map(range -> range.begin.line).orElse(-1);
+        final int endLine = oldComment.getRange().map(range -> range.end.line).orElse(-1);
         // Clean up and set comment
-        newComment.comment = Arrays.stream(oldComment.getContent().trim().split("\n"))
+        final String comment = Arrays.stream(oldComment.getContent().trim().split("\n"))
                 .map(GroupedComment::cleanCommentLine)
                 .collect(Collectors.joining("\n"));
-        newComment.commentType = newComment.comment.contains("{") || newComment.comment.contains(";") ? TYPE_COMMENTED_SOURCE
+        final String commentType = comment.contains("{") || comment.contains(";") ? TYPE_COMMENTED_SOURCE
                 : oldComment.isBlockComment() ? TYPE_BLOCK
                 : oldComment.isLineComment() ? TYPE_LINE
                 : oldComment.isOrphan() ? TYPE_ORPHAN
                 : oldComment.isJavadocComment() ? TYPE_JAVADOC
                 : TYPE_UNKNOWN;
+        return new GroupedComment(startLine, endLine, comment, commentType,
+                UNKNOWN, -1, -1, UNKNOWN, -1, -1);
+    }
 
-        // Get containing class and method data if found
-        final Optional<ClassOrInterfaceDeclaration> classRoot = oldComment.findRootNode()
-                .findAll(ClassOrInterfaceDeclaration.class)
-                .stream()
-                .filter(dec -> dec.getRange().isPresent())
-                .filter(dec ->
-                        JavaParseUtil.isRangeBetweenBounds(
-                                dec.getRange().get(), newComment.startLine, newComment.endLine))
-                .findFirst();
-        if( classRoot.isPresent() ) {
-            // Class Data
-            newComment.containingClass = classRoot
-                    .map(ClassOrInterfaceDeclaration::getFullyQualifiedName)
-                    .map(opt -> opt.orElse(UNKNOWN))
-                    .get();
-            final Range classRange = classRoot
-                    .map(ClassOrInterfaceDeclaration::getName)
-                    .map(Node::getRange)
-                    .get()
-                    .orElse(NULL_RANGE);
-            newComment.containingClassDeclarationLineStart = classRange.begin.line;
-            newComment.containingClassDeclarationLineEnd = classRange.end.line;
-
-            // Method Data
-            // We need to check for all comments between the end of the last comment
-            // and the end of the current comment. This is done to associate comments that
-            // are not inside the contents of a method with the method that they pertain to.
-
-            // Get all class variables
-            // TODO fix issue where class variables are defined after a method
-            final List<VariableDeclarator> variables = classRoot.get().findAll(VariableDeclarator.class).stream()
-                    .filter(varDec -> varDec.getParentNode().isPresent() &&
-                            varDec.getParentNode().get().getParentNode().isPresent() &&
-                            varDec.getParentNode().get().getParentNode().get() instanceof ClassOrInterfaceDeclaration)
-                    .collect(Collectors.toList());
-            final List<MethodDeclaration> allMethods = classRoot.get().findAll(MethodDeclaration.class).stream()
-                    .filter(dec -> dec.getRange().isPresent())
-                    .sorted(Comparator.comparingInt(x -> x.getRange().get().begin.line))
-                    .collect(Collectors.toList());
-
-            // The first method in the class can be assumed to begin after all class variables have
-            // been defined, so we start our bounds for the first method we search at the end of the
-            // final variable declaration
-            int lastMethodEnd = variables.stream()
-                    .filter(var -> var.getRange().isPresent())
-                    .map(var -> var.getRange().get().end.line)
-                    .max(Comparator.comparingInt(x -> x))
-                    .orElse(-1);
-            for (final MethodDeclaration curMethod : allMethods) {
-                final Range methodRangeIncludingProceeding = new Range(
-                        new Position(lastMethodEnd, 0),
-                        new Position(curMethod.getRange().get().end.line, 0));
-                // If the comment is within the bounds, then we can assume it related to this method
-                if (JavaParseUtil.isRangeBetweenBounds(
-                        methodRangeIncludingProceeding, newComment.startLine, newComment.endLine)) {
-                    newComment.containingMethod = curMethod
-                            .getDeclarationAsString(false, false, false);
-                    newComment.containingMethod = newComment.containingMethod
-                            .substring(newComment.containingMethod.indexOf(" ") + 1);
-                    newComment.containingMethodDeclarationLineStart = curMethod.asMethodDeclaration()
-                            .getRange().get().begin.line;
-                    newComment.containingMethodDeclarationLineEnd = curMethod.asMethodDeclaration()
-                            .getRange().get().end.line;
-                    break;
-                }
-                lastMethodEnd = curMethod.getRange().get().end.line;
-            }
+    /**
+     * @param startLine the new first line of the comment
+     * @param endLine the new last line of the comment
+     * @return a copy of this comment on other lines, which is not yet in any class or method
+     */
+    public GroupedComment movedTo(int startLine, int endLine) {
+        return new GroupedComment(startLine, endLine, this.comment, this.commentType,
+                UNKNOWN, -1, -1, UNKNOWN, -1, -1);
+    }
 
-        }
-        return newComment;
+    /**
+     * @return a copy of this comment in the given class and method
+     */
+    GroupedComment locatedIn(String containingClass, int containingClassDeclarationLineStart,
+                             int containingClassDeclarationLineEnd, String containingMethod,
+                             int containingMethodDeclarationLineStart, int containingMethodDeclarationLineEnd) {
+        return new GroupedComment(this.startLine, this.endLine, this.comment, this.commentType,
+                containingClass, containingClassDeclarationLineStart, containingClassDeclarationLineEnd,
+                containingMethod, containingMethodDeclarationLineStart, containingMethodDeclarationLineEnd);
     }
 }
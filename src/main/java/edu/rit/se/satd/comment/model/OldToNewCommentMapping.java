@@ -1,6 +1,6 @@
 package edu.rit.se.satd.comment.model;
 
-
+import edu.rit.se.util.Fingerprint;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -44,10 +44,26 @@ public class OldToNewCommentMapping {
                 && this.duplicationId == other.duplicationId;
     }
 
+    /**
+     * Mappings are equal if they are of comments with the same content in the same file, so
+     * identical comments in a file can be told apart by their duplication IDs. The duplication
+     * ID is not compared, as it is set while the mappings are used as keys.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if( this == obj ) {
+            return true;
+        }
+        if( obj instanceof OldToNewCommentMapping ) {
+            final OldToNewCommentMapping other = (OldToNewCommentMapping) obj;
+            return this.file.equals(other.file) && this.comment.hasSameContentAs(other.comment);
+        }
+        return false;
+    }
+
     @Override
     public int hashCode() {
-        return this.comment.hashCode() +
-                this.file.hashCode() +
-                this.duplicationId;
+        return Fingerprint.toHashCode(
+                Fingerprint.combine(Fingerprint.add(Fingerprint.EMPTY, this.file), this.comment.getFingerprint()));
     }
 }
@@ -0,0 +1,52 @@
+package edu.rit.se.satd.comment.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The comments of a parsed Java file which may be SATD, before they are grouped, along with
+ * the outline of the file's declarations. Kept so the comments of a file can be found again,
+ * and so the comments of a later version of the file can be extracted from them.
+ *
+ * Immutable, so it may be shared between threads.
+ */
+@RequiredArgsConstructor
+public class ParsedFile {
+
+    // In the order they appear in the file, and not yet in any class or method
+    @Getter
+    private final List<GroupedComment> comments;
+    @Getter
+    private final SourceOutline outline;
+
+    /**
+     * Locates each comment in its class and method, and groups the comments on consecutive lines
+     * @return a new list of grouped comments, in the order they appear in the file
+     */
+    public List<GroupedComment> getGroupedComments() {
+        final List<GroupedComment> groupedComments = new ArrayList<>();
+        GroupedComment previousComment = null;
+        for( GroupedComment comment : this.comments ) {
+
+            final GroupedComment thisComment = this.outline.locate(comment);
+
+            if( previousComment != null && previousComment.precedesDirectly(thisComment) ) {
+                previousComment = previousComment.joinWith(thisComment);
+            } else {
+                // Previous comment was the last of the group, so add it to the list
+                if( previousComment != null ) {
+                    groupedComments.add(previousComment);
+                }
+                // restart grouping with the current comment
+                previousComment = thisComment;
+            }
+        }
+        if( previousComment != null && !groupedComments.contains(previousComment) ) {
+            groupedComments.add(previousComment);
+        }
+        return groupedComments;
+    }
+}
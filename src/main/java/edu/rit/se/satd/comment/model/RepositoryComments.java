@@ -2,9 +2,12 @@ package edu.rit.se.satd.comment.model;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.eclipse.jgit.lib.ObjectId;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * A list of comments, also containing possible errors (from parsing)
@@ -16,6 +19,14 @@ public class RepositoryComments {
     private final List<GroupedComment> comments = new ArrayList<>();
     @Getter
     private final List<String> parseErrorFiles = new ArrayList<>();
+    // The blob the comments were parsed from, or null if they were found in the SATD index instead
+    @Getter
+    @Setter
+    private ObjectId blobId = null;
+    // Whether only the comments which are SATD are left
+    @Getter
+    @Setter
+    private boolean classified = false;
 
     public void addParseErrorFile(String fileName) {
         this.parseErrorFiles.add(fileName);
@@ -24,4 +35,12 @@ public class RepositoryComments {
     public void addComments(List<GroupedComment> comments) {
         this.comments.addAll(comments);
     }
+
+    /**
+     * Removes every comment which does not match the filter
+     * @param filter the comments to keep
+     */
+    public void retainComments(Predicate<GroupedComment> filter) {
+        this.comments.removeIf(filter.negate());
+    }
 }
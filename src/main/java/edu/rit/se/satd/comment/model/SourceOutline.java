@@ -0,0 +1,275 @@
+package edu.rit.se.satd.comment.model;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.stmt.BlockStmt;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import static edu.rit.se.util.JavaParseUtil.NULL_RANGE;
+
+/**
+ * The lines spanned by the classes and methods declared in a Java file, which is all
+ * that is needed to find the class and method containing each comment of the file.
+ *
+ * Outlining a file once lets every comment be located without searching the syntax tree
+ * again, and lets the outline of an edited file be derived from the outline of its earlier
+ * version when the edits did not change any declaration.
+ */
+public class SourceOutline {
+
+    private static final String UNKNOWN = "None";
+
+    // In the order they are found in the syntax tree, so outer classes come before their inner classes
+    private final List<ClassOutline> classes;
+    private final List<MethodOutline> methods;
+
+    private SourceOutline(List<ClassOutline> classes, List<MethodOutline> methods) {
+        this.classes = classes;
+        this.methods = methods;
+    }
+
+    /**
+     * @param root the root of a parsed Java file
+     * @return the outline of the file
+     */
+    public static SourceOutline of(Node root) {
+        final Map<MethodDeclaration, Integer> methodIndexes = new IdentityHashMap<>();
+        final List<MethodOutline> methods = new ArrayList<>();
+        for( MethodDeclaration method : root.findAll(MethodDeclaration.class) ) {
+            if( method.getRange().isPresent() ) {
+                methodIndexes.put(method, methods.size());
+                methods.add(MethodOutline.of(method));
+            }
+        }
+        final List<ClassOutline> classes = root.findAll(ClassOrInterfaceDeclaration.class).stream()
+                .filter(dec -> dec.getRange().isPresent())
+                .map(dec -> ClassOutline.of(dec, methodIndexes))
+                .collect(Collectors.toList());
+        return new SourceOutline(classes, methods);
+    }
+
+    /**
+     * Finds the class and method containing a comment
+     * @param comment a comment of the outlined file
+     * @return a copy of the comment with its containing class and method
+     */
+    public GroupedComment locate(GroupedComment comment) {
+        final int startLine = comment.getStartLine();
+        final int endLine = comment.getEndLine();
+        for( ClassOutline classOutline : this.classes ) {
+            if( !overlaps(classOutline.beginLine, classOutline.endLine, startLine, endLine) ) {
+                continue;
+            }
+            // Comments that are not inside the contents of a method pertain to the method they precede.
+            // The first method in the class can be assumed to begin after all class variables have
+            // been defined, so the bounds of the first method begin at the end of the final variable
+            // TODO fix issue where class variables are defined after a method
+            int lastMethodEnd = classOutline.lastVariableEndLine;
+            for( int methodIndex : classOutline.methodIndexes ) {
+                final MethodOutline method = this.methods.get(methodIndex);
+                // Variables declared after the method make the bounds run backwards to the method's end
+                if( overlaps(Math.min(lastMethodEnd, method.endLine), Math.max(lastMethodEnd, method.endLine),
+                        startLine, endLine) ) {
+                    return comment.locatedIn(classOutline.name, classOutline.nameBeginLine, classOutline.nameEndLine,
+                            method.declaration, method.beginLine, method.endLine);
+                }
+                lastMethodEnd = method.endLine;
+            }
+            return comment.locatedIn(classOutline.name, classOutline.nameBeginLine, classOutline.nameEndLine,
+                    UNKNOWN, -1, -1);
+        }
+        return comment.locatedIn(UNKNOWN, -1, -1, UNKNOWN, -1, -1);
+    }
+
+    /**
+     * Finds the method whose body contains a range of lines, without containing any other declarations
+     * @param beginLine the first line
+     * @param endLine the last line
+     * @return the index of the method, or -1 if the lines are not strictly inside the body of such a method.
+     * The lines of the method's braces are not inside its body.
+     */
+    public int findSimpleMethodAround(int beginLine, int endLine) {
+        for( int i = 0; i < this.methods.size(); i++ ) {
+            final MethodOutline method = this.methods.get(i);
+            if( method.simple && method.bodyBeginLine < beginLine && endLine < method.bodyEndLine ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getClassCount() {
+        return this.classes.size();
+    }
+
+    public String getClassName(int classIndex) {
+        return this.classes.get(classIndex).name;
+    }
+
+    public int getClassNameBeginLine(int classIndex) {
+        return this.classes.get(classIndex).nameBeginLine;
+    }
+
+    public int getClassNameEndLine(int classIndex) {
+        return this.classes.get(classIndex).nameEndLine;
+    }
+
+    public int getMethodCount() {
+        return this.methods.size();
+    }
+
+    public String getMethodDeclaration(int methodIndex) {
+        return this.methods.get(methodIndex).declaration;
+    }
+
+    public int getMethodBeginLine(int methodIndex) {
+        return this.methods.get(methodIndex).beginLine;
+    }
+
+    public int getMethodEndLine(int methodIndex) {
+        return this.methods.get(methodIndex).endLine;
+    }
+
+    /**
+     * @param methodIndex the index of a method of this outline
+     * @return the line of the opening brace of the method's body, or -1 if it has no body
+     */
+    public int getMethodBodyBeginLine(int methodIndex) {
+        return this.methods.get(methodIndex).bodyBeginLine;
+    }
+
+    /**
+     * @param methodIndex the index of a method of this outline
+     * @param method the method parsed on its own
+     * @param lineOffset the number of lines before the first line the method was parsed from
+     * @return True if the parsed method has the same declaration and spans the same lines as the
+     * outlined method, and has no classes or methods declared inside it
+     */
+    public boolean matchesMethod(int methodIndex, MethodDeclaration method, int lineOffset) {
+        final MethodOutline outlined = this.methods.get(methodIndex);
+        final MethodOutline parsed = MethodOutline.of(method).withLinesMoved(line -> line + lineOffset);
+        return parsed.simple &&
+                parsed.declaration.equals(outlined.declaration) &&
+                parsed.beginLine == outlined.beginLine &&
+                parsed.endLine == outlined.endLine &&
+                parsed.bodyBeginLine == outlined.bodyBeginLine &&
+                parsed.bodyEndLine == outlined.bodyEndLine;
+    }
+
+    /**
+     * @param newLines maps each line of a declaration in this outline to its line in an edited version of the file
+     * @return the outline of the edited file, given that the edits did not change any declaration
+     */
+    public SourceOutline withLinesMoved(IntUnaryOperator newLines) {
+        return new SourceOutline(
+                this.classes.stream().map(c -> c.withLinesMoved(newLines)).collect(Collectors.toList()),
+                this.methods.stream().map(m -> m.withLinesMoved(newLines)).collect(Collectors.toList()));
+    }
+
+    private static boolean overlaps(int rangeBegin, int rangeEnd, int start, int end) {
+        return Math.max(rangeBegin, start) <= Math.min(rangeEnd, end);
+    }
+
+    private static int moveLine(int line, IntUnaryOperator newLines) {
+        return line < 0 ? line : newLines.applyAsInt(line);
+    }
+
+    private static class ClassOutline {
+        private final int beginLine;
+        private final int endLine;
+        private final String name;
+        private final int nameBeginLine;
+        private final int nameEndLine;
+        // The end of the last variable declared directly in this class or any class inside it
+        private final int lastVariableEndLine;
+        // The methods inside this class, including those of inner classes, by where they begin
+        private final int[] methodIndexes;
+
+        private ClassOutline(int beginLine, int endLine, String name, int nameBeginLine, int nameEndLine,
+                             int lastVariableEndLine, int[] methodIndexes) {
+            this.beginLine = beginLine;
+            this.endLine = endLine;
+            this.name = name;
+            this.nameBeginLine = nameBeginLine;
+            this.nameEndLine = nameEndLine;
+            this.lastVariableEndLine = lastVariableEndLine;
+            this.methodIndexes = methodIndexes;
+        }
+
+        private static ClassOutline of(ClassOrInterfaceDeclaration dec, Map<MethodDeclaration, Integer> methodIndexes) {
+            final Range range = dec.getRange().get();
+            final Range nameRange = dec.getName().getRange().orElse(NULL_RANGE);
+            final int lastVariableEndLine = dec.findAll(VariableDeclarator.class).stream()
+                    .filter(varDec -> varDec.getParentNode().isPresent() &&
+                            varDec.getParentNode().get().getParentNode().isPresent() &&
+                            varDec.getParentNode().get().getParentNode().get() instanceof ClassOrInterfaceDeclaration)
+                    .filter(var -> var.getRange().isPresent())
+                    .mapToInt(var -> var.getRange().get().end.line)
+                    .max()
+                    .orElse(-1);
+            final int[] methods = dec.findAll(MethodDeclaration.class).stream()
+                    .filter(method -> method.getRange().isPresent())
+                    .sorted(Comparator.comparingInt(method -> method.getRange().get().begin.line))
+                    .mapToInt(methodIndexes::get)
+                    .toArray();
+            return new ClassOutline(range.begin.line, range.end.line, dec.getFullyQualifiedName().orElse(UNKNOWN),
+                    nameRange.begin.line, nameRange.end.line, lastVariableEndLine, methods);
+        }
+
+        private ClassOutline withLinesMoved(IntUnaryOperator newLines) {
+            return new ClassOutline(moveLine(this.beginLine, newLines), moveLine(this.endLine, newLines), this.name,
+                    moveLine(this.nameBeginLine, newLines), moveLine(this.nameEndLine, newLines),
+                    moveLine(this.lastVariableEndLine, newLines), this.methodIndexes);
+        }
+    }
+
+    private static class MethodOutline {
+        private final int beginLine;
+        private final int endLine;
+        // The declaration without its return type
+        private final String declaration;
+        // The lines of the braces of the method's body, or -1 if it has none
+        private final int bodyBeginLine;
+        private final int bodyEndLine;
+        // Whether no classes or methods are declared inside the method
+        private final boolean simple;
+
+        private MethodOutline(int beginLine, int endLine, String declaration,
+                              int bodyBeginLine, int bodyEndLine, boolean simple) {
+            this.beginLine = beginLine;
+            this.endLine = endLine;
+            this.declaration = declaration;
+            this.bodyBeginLine = bodyBeginLine;
+            this.bodyEndLine = bodyEndLine;
+            this.simple = simple;
+        }
+
+        private static MethodOutline of(MethodDeclaration method) {
+            final Range range = method.getRange().get();
+            final String declaration = method.getDeclarationAsString(false, false, false);
+            final Range bodyRange = method.getBody().flatMap(BlockStmt::getRange).orElse(NULL_RANGE);
+            final boolean simple = method.findAll(MethodDeclaration.class).size() == 1 &&
+                    method.findAll(TypeDeclaration.class).isEmpty();
+            return new MethodOutline(range.begin.line, range.end.line,
+                    declaration.substring(declaration.indexOf(" ") + 1),
+                    bodyRange.begin.line, bodyRange.end.line, simple);
+        }
+
+        private MethodOutline withLinesMoved(IntUnaryOperator newLines) {
+            return new MethodOutline(moveLine(this.beginLine, newLines), moveLine(this.endLine, newLines),
+                    this.declaration, moveLine(this.bodyBeginLine, newLines),
+                    moveLine(this.bodyEndLine, newLines), this.simple);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.rit.se.satd.detector;
+
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.RepositoryComments;
+import edu.rit.se.satd.metrics.ClassifyEvent;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
+
+import java.util.*;
+
+/**
+ * Gathers the parsed comments of many files, possibly of many commits, so they can be
+ * classified with a single call to the detector. A comment's text is only classified once
+ * per batch, however many files it is in, and the comments which are not SATD are then
+ * removed from each file.
+ */
+public class ClassificationBatch {
+
+    private final List<RepositoryComments> files = new ArrayList<>();
+    private int nComments = 0;
+
+    /**
+     * @param filesToComments the parsed comments of each file, which will only keep its SATD
+     *                        once the batch is classified. Files which are classified already are skipped
+     */
+    public void add(Map<String, RepositoryComments> filesToComments) {
+        for( RepositoryComments comments : filesToComments.values() ) {
+            if( comments.isClassified() ) {
+                continue;
+            }
+            this.files.add(comments);
+            this.nComments += comments.getComments().size();
+        }
+    }
+
+    /**
+     * @return the number of comments in the batch, including duplicates
+     */
+    public int getNComments() {
+        return this.nComments;
+    }
+
+    /**
+     * Classifies every comment in the batch, and removes the comments which are not SATD
+     * @param detector a detector to classify the comments with
+     */
+    public void classify(SATDDetector detector) {
+        // Each distinct comment text, mapped to its index in the detector's batch
+        final Map<String, Integer> batchIndexes = new LinkedHashMap<>();
+        long nCharacters = 0;
+        for( RepositoryComments comments : this.files ) {
+            for( GroupedComment comment : comments.getComments() ) {
+                if( batchIndexes.putIfAbsent(comment.getComment(), batchIndexes.size()) == null ) {
+                    nCharacters += comment.getComment().length();
+                }
+            }
+        }
+        if( batchIndexes.isEmpty() ) {
+            this.files.forEach(comments -> comments.setClassified(true));
+            return;
+        }
+        final ClassifyEvent event = FlightEvents.beginClassify();
+        final long start = MinerMetrics.start();
+        final boolean[] isSATD = detector.areSATD(new ArrayList<>(batchIndexes.keySet()));
+        MinerMetrics.record(Stage.CLASSIFY, start);
+        int nSATD = 0;
+        for( boolean satd : isSATD ) {
+            nSATD += satd ? 1 : 0;
+        }
+        // The event names the detector which classified the batch, not the lock around it
+        FlightEvents.commitClassify(event, detector instanceof SynchronizedDetector ?
+                ((SynchronizedDetector) detector).getDelegate() : detector, isSATD.length, nCharacters, nSATD);
+        for( RepositoryComments comments : this.files ) {
+            comments.retainComments(comment -> isSATD[batchIndexes.get(comment.getComment())]);
+            comments.setClassified(true);
+        }
+    }
+}
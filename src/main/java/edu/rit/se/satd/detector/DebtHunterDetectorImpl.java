@@ -26,6 +26,8 @@ public class DebtHunterDetectorImpl implements SATDDetector {
     private FilteredClassifier multiClassifier;
     private Instances binaryDatasetStructure;
     private Instances multiDatasetStructure;
+    // A hash of the models the classifiers were loaded from
+    private String version;
 
     /**
      * SATD Type enumeration matching DebtHunter's classification
@@ -89,6 +91,7 @@ public class DebtHunterDetectorImpl implements SATDDetector {
             // Load the classifiers
             this.binaryClassifier = (FilteredClassifier) weka.core.SerializationHelper.read(binaryModelFile.getAbsolutePath());
             this.multiClassifier = (FilteredClassifier) weka.core.SerializationHelper.read(multiModelFile.getAbsolutePath());
+            this.version = ModelVersion.of(DebtHunterDetectorImpl.class, binaryModelFile, multiModelFile);
 
             // Create dataset structure for binary classification
             ArrayList<Attribute> binaryAttributes = new ArrayList<>();
@@ -137,6 +140,11 @@ public class DebtHunterDetectorImpl implements SATDDetector {
         }
     }
 
+    @Override
+    public String getVersion() {
+        return this.version;
+    }
+
     /**
      * Get the detailed SATD type for a comment
      * @param comment The comment to classify
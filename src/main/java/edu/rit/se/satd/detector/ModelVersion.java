@@ -0,0 +1,147 @@
+package edu.rit.se.satd.detector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds detector versions from the content of the models a detector classifies with, so
+ * a retrained or replaced model gives the detector a new version.
+ */
+public final class ModelVersion {
+
+    private ModelVersion() {}
+
+    /**
+     * @param detector the class of the detector
+     * @param modelFiles the files the detector loads its models from
+     * @return the detector's name and a hash of the content of every model file, in the given order
+     * @throws IOException thrown if a model file could not be read
+     */
+    public static String of(Class<?> detector, File... modelFiles) throws IOException {
+        final MessageDigest digest = newDigest();
+        for( File modelFile : modelFiles ) {
+            addEntry(digest, modelFile.getName(), Files.readAllBytes(modelFile.toPath()));
+        }
+        return detector.getName() + "@" + toHex(digest.digest());
+    }
+
+    /**
+     * @param detector the class of the detector
+     * @param library a class of the library the detector loads its models with
+     * @param isModel which entries of the library's jar or class directory hold its models
+     * @return the detector's name and a hash of the name and content of every model entry
+     * @throws IOException thrown if the library's jar or class directory could not be read
+     */
+    public static String ofResources(Class<?> detector, Class<?> library, Predicate<String> isModel)
+            throws IOException {
+        final MessageDigest digest = newDigest();
+        final Path location = getLocation(library);
+        if( Files.isDirectory(location) ) {
+            final List<Path> files;
+            try (Stream<Path> walk = Files.walk(location)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(file -> isModel.test(getEntryName(location, file)))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for( Path file : files ) {
+                addEntry(digest, getEntryName(location, file), Files.readAllBytes(file));
+            }
+        } else {
+            try (JarFile jar = new JarFile(location.toFile())) {
+                final List<String> names = new ArrayList<>();
+                final Enumeration<JarEntry> entries = jar.entries();
+                while( entries.hasMoreElements() ) {
+                    final JarEntry entry = entries.nextElement();
+                    if( !entry.isDirectory() && isModel.test(entry.getName()) ) {
+                        names.add(entry.getName());
+                    }
+                }
+                names.sort(null);
+                for( String name : names ) {
+                    try (InputStream in = jar.getInputStream(jar.getJarEntry(name))) {
+                        addEntry(digest, name, readAll(in));
+                    }
+                }
+            }
+        }
+        return detector.getName() + "@" + toHex(digest.digest());
+    }
+
+    private static Path getLocation(Class<?> library) throws IOException {
+        final CodeSource codeSource = library.getProtectionDomain().getCodeSource();
+        if( codeSource == null ) {
+            throw new IOException("Could not locate the jar of " + library.getName());
+        }
+        try {
+            return Paths.get(codeSource.getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not locate the jar of " + library.getName(), e);
+        }
+    }
+
+    private static String getEntryName(Path root, Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static void addEntry(MessageDigest digest, String name, byte[] content) {
+        // Lengths are added so the boundaries between entries cannot shift
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update(longToBytes(content.length));
+        digest.update(content);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1 << 16];
+        int nRead;
+        while( (nRead = in.read(buffer)) != -1 ) {
+            out.write(buffer, 0, nRead);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] longToBytes(long value) {
+        final byte[] bytes = new byte[Long.BYTES];
+        for( int i = Long.BYTES - 1; i >= 0; i-- ) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return bytes;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for( byte b : bytes ) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
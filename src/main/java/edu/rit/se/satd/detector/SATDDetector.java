@@ -1,5 +1,7 @@
 package edu.rit.se.satd.detector;
 
+import java.util.List;
+
 public interface SATDDetector {
 
     /**
@@ -8,4 +10,29 @@ public interface SATDDetector {
      * @return True if the comment contains any SATD, else False
      */
     boolean isSATD(String satd);
+
+    /**
+     * Given a batch of string comments, determine which of them contain any SATD.
+     * Detectors which can classify many comments at once more cheaply than one at a time
+     * should override this.
+     * @param comments a list of String comments
+     * @return for each comment, True if the comment contains any SATD, else False
+     */
+    default boolean[] areSATD(List<String> comments) {
+        final boolean[] isSATD = new boolean[comments.size()];
+        for( int i = 0; i < isSATD.length; i++ ) {
+            isSATD[i] = this.isSATD(comments.get(i));
+        }
+        return isSATD;
+    }
+
+    /**
+     * Identifies how the detector classifies comments, so that comments classified by another
+     * detector are not reused. Detectors whose classifications can change, such as by loading
+     * another model, should override this.
+     * @return a String which differs between detectors that may classify a comment differently
+     */
+    default String getVersion() {
+        return this.getClass().getName();
+    }
 }
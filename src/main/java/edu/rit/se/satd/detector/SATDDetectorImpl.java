@@ -2,6 +2,8 @@ package edu.rit.se.satd.detector;
 
 import satd_detector.core.utils.SATDDetector;
 
+import java.io.IOException;
+
 /**
  * Maintains a wrapper implementation for the SATDDetector project:
  * https://github.com/Tbabm/SATDDetector-Core
@@ -11,12 +13,29 @@ public class SATDDetectorImpl implements edu.rit.se.satd.detector.SATDDetector {
     // Wrapper implementation for this implementation
     private SATDDetector detector;
 
+    // A hash of the classes and resources of the SATDDetector library, which its models are loaded from
+    private final String version;
+
     public SATDDetectorImpl() {
         this.detector = new SATDDetector();
+        try {
+            // The library loads its models from resources it does not name, so every resource
+            // is hashed. Other resources in the same jar only cost the index its reuse
+            this.version = ModelVersion.ofResources(SATDDetectorImpl.class, SATDDetector.class,
+                    entry -> entry.startsWith("satd_detector/") ||
+                            (!entry.endsWith(".class") && !entry.startsWith("META-INF/")));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the SATD detector models: " + e.getMessage(), e);
+        }
     }
 
     @Override
     public boolean isSATD(String satd) {
         return this.detector.isSATD(satd);
     }
+
+    @Override
+    public String getVersion() {
+        return this.version;
+    }
 }
@@ -0,0 +1,37 @@
+package edu.rit.se.satd.detector;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Wraps a detector so it can be shared by several threads. The wrapped detectors keep
+ * state while classifying, so only one comment or batch is classified at a time.
+ */
+@RequiredArgsConstructor
+public class SynchronizedDetector implements SATDDetector {
+
+    private final SATDDetector detector;
+
+    @Override
+    public synchronized boolean isSATD(String satd) {
+        return this.detector.isSATD(satd);
+    }
+
+    @Override
+    public synchronized boolean[] areSATD(List<String> comments) {
+        return this.detector.areSATD(comments);
+    }
+
+    /**
+     * @return the detector which classifies the comments
+     */
+    public SATDDetector getDelegate() {
+        return this.detector;
+    }
+
+    @Override
+    public String getVersion() {
+        return this.detector.getVersion();
+    }
+}
@@ -0,0 +1,26 @@
+package edu.rit.se.satd.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for classifying comments as SATD or not
+ */
+@Name("edu.rit.se.satd.Classify")
+@Label("Comments Classified")
+@Category("SATD Miner")
+@Description("A call to a SATD detector")
+@StackTrace(false)
+public class ClassifyEvent extends Event {
+
+    @Label("Detector")
+    String detector;
+
+    @Label("Comments")
+    int comments;
+
+    @Label("Characters")
+    long characters;
+
+    @Label("SATD Found")
+    int satdFound;
+}
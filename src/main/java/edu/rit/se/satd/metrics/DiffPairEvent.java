@@ -0,0 +1,26 @@
+package edu.rit.se.satd.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for mining a single pair of commits
+ */
+@Name("edu.rit.se.satd.DiffPair")
+@Label("Diff Pair Mined")
+@Category("SATD Miner")
+@Description("Mining the SATD changes between a commit and its parent")
+@StackTrace(false)
+public class DiffPairEvent extends Event {
+
+    @Label("Old Commit")
+    String oldCommit;
+
+    @Label("New Commit")
+    String newCommit;
+
+    @Label("Modified Files")
+    int modifiedFiles;
+
+    @Label("SATD Instances")
+    int satdInstances;
+}
@@ -0,0 +1,107 @@
+package edu.rit.se.satd.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global counts of how the files modified by each diff pair were handled.
+ */
+public class FileMetrics {
+
+    // Files at the same path in both commits of a diff pair
+    private static final LongAdder filesCompared = new LongAdder();
+    // Files skipped because all of their comments were unchanged, before they were classified
+    private static final LongAdder filesSkippedBeforeClassify = new LongAdder();
+    // Files skipped because their SATD was unchanged, before they were differenced
+    private static final LongAdder filesSkippedBeforeDifference = new LongAdder();
+
+    // Files whose comments were found by each kind of parse
+    private static final LongAdder[] filesParsed = new LongAdder[ParseKind.values().length];
+
+    static {
+        for( int i = 0; i < filesParsed.length; i++ ) {
+            filesParsed[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * How the comments of a file were found
+     */
+    public enum ParseKind {
+        // The whole file was parsed
+        FULL("full"),
+        // Only the edited methods were parsed, and the rest was taken from the file's earlier version
+        INCREMENTAL("incremental"),
+        // The file had been parsed recently
+        CACHED("cached"),
+        // The file's SATD was found in the SATD index, so it was neither parsed nor classified
+        INDEXED("indexed");
+
+        private final String label;
+
+        ParseKind(String label) {
+            this.label = label;
+        }
+    }
+
+    private FileMetrics() {}
+
+    /**
+     * Records the files compared between the two commits of a diff pair
+     * @param nCompared the number of files at the same path in both commits
+     * @param nSkipped the number of those files whose comments were all unchanged
+     */
+    public static void recordFilesCompared(int nCompared, int nSkipped) {
+        filesCompared.add(nCompared);
+        filesSkippedBeforeClassify.add(nSkipped);
+    }
+
+    /**
+     * @param nSkipped the number of files whose SATD was unchanged once their comments were classified
+     */
+    public static void recordFilesSkippedBeforeDifference(int nSkipped) {
+        filesSkippedBeforeDifference.add(nSkipped);
+    }
+
+    public static void recordFileParsed(ParseKind kind) {
+        filesParsed[kind.ordinal()].increment();
+    }
+
+    /**
+     * @return the number of files whose comments were found by the given kind of parse
+     */
+    public static long getFilesParsed(ParseKind kind) {
+        return filesParsed[kind.ordinal()].sum();
+    }
+
+    /**
+     * @return the share of compared files which were skipped, or 0 if none were compared
+     */
+    public static double getSkippedRatio() {
+        final long compared = filesCompared.sum();
+        return compared > 0 ?
+                (double) (filesSkippedBeforeClassify.sum() + filesSkippedBeforeDifference.sum()) / compared : 0;
+    }
+
+    /**
+     * @return the file metrics in the Prometheus text format
+     */
+    static String render() {
+        final StringBuilder text = new StringBuilder()
+                .append("# HELP satd_files_compared_total Modified files at the same path in both commits of a diff pair\n")
+                .append("# TYPE satd_files_compared_total counter\n")
+                .append("satd_files_compared_total ").append(filesCompared.sum()).append('\n')
+                .append("# HELP satd_files_skipped_total Compared files skipped because their SATD was unchanged\n")
+                .append("# TYPE satd_files_skipped_total counter\n")
+                .append("satd_files_skipped_total{before=\"classify\"} ").append(filesSkippedBeforeClassify.sum())
+                .append('\n')
+                .append("satd_files_skipped_total{before=\"difference\"} ").append(filesSkippedBeforeDifference.sum())
+                .append('\n')
+                .append("# HELP satd_files_parsed_total Files whose comments were found, by how they were found\n")
+                .append("# TYPE satd_files_parsed_total counter\n");
+        for( ParseKind kind : ParseKind.values() ) {
+            text.append("satd_files_parsed_total{how=\"").append(kind.label).append("\"} ")
+                    .append(getFilesParsed(kind)).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package edu.rit.se.satd.metrics;
+
+/**
+ * Emits the miner's Java Flight Recorder events.
+ *
+ * Each event is started with a begin method and ended with the matching commit method.
+ * Events are only created if the JVM includes the Flight Recorder API (JDK 8u272 and later),
+ * and begin returns null otherwise. While no recording is running, events are never
+ * committed and their fields are never computed, so they cost close to nothing.
+ */
+public class FlightEvents {
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private FlightEvents() {}
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static DiffPairEvent beginDiffPair() {
+        if( !AVAILABLE ) {
+            return null;
+        }
+        final DiffPairEvent event = new DiffPairEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitDiffPair(DiffPairEvent event, String oldCommit, String newCommit,
+                                      int modifiedFiles, int satdInstances) {
+        if( event != null && event.shouldCommit() ) {
+            event.oldCommit = oldCommit;
+            event.newCommit = newCommit;
+            event.modifiedFiles = modifiedFiles;
+            event.satdInstances = satdInstances;
+            event.commit();
+        }
+    }
+
+    public static ParseEvent beginParse() {
+        if( !AVAILABLE ) {
+            return null;
+        }
+        final ParseEvent event = new ParseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param event an event returned by beginParse
+     * @return True if the event is being recorded, so the size of the file should be measured
+     */
+    public static boolean isRecording(ParseEvent event) {
+        return event != null && event.isEnabled();
+    }
+
+    public static void commitParse(ParseEvent event, String path, long size) {
+        if( event != null && event.shouldCommit() ) {
+            event.path = path;
+            event.size = size;
+            event.commit();
+        }
+    }
+
+    public static ClassifyEvent beginClassify() {
+        if( !AVAILABLE ) {
+            return null;
+        }
+        final ClassifyEvent event = new ClassifyEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitClassify(ClassifyEvent event, Object detector, int comments,
+                                      long characters, int satdFound) {
+        if( event != null && event.shouldCommit() ) {
+            event.detector = detector.getClass().getSimpleName();
+            event.comments = comments;
+            event.characters = characters;
+            event.satdFound = satdFound;
+            event.commit();
+        }
+    }
+
+    public static WriterFlushEvent beginWriterFlush() {
+        if( !AVAILABLE ) {
+            return null;
+        }
+        final WriterFlushEvent event = new WriterFlushEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitWriterFlush(WriterFlushEvent event, Object writer) {
+        if( event != null && event.shouldCommit() ) {
+            event.writer = writer.getClass().getSimpleName();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package edu.rit.se.satd.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket histogram of latencies. Recording is lock-free and allocation-free,
+ * so it can be used around stages which run many times per diff and on many threads.
+ */
+public class LatencyHistogram implements StageLatencyMXBean {
+
+    // Upper bounds of the buckets. Latencies above the last bound fall in an overflow bucket.
+    static final long[] BUCKET_BOUNDS_NANOS = {
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(50),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(50),
+            TimeUnit.MILLISECONDS.toNanos(100),
+            TimeUnit.MILLISECONDS.toNanos(500),
+            TimeUnit.SECONDS.toNanos(1),
+            TimeUnit.SECONDS.toNanos(5),
+            TimeUnit.SECONDS.toNanos(10),
+            TimeUnit.SECONDS.toNanos(60)
+    };
+
+    private final LongAdder[] bucketCounts = new LongAdder[BUCKET_BOUNDS_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for( int i = 0; i < this.bucketCounts.length; i++ ) {
+            this.bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while( bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket] ) {
+            bucket++;
+        }
+        this.bucketCounts[bucket].increment();
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return the number of latencies in each bucket, where the last bucket is the overflow bucket.
+     * Buckets are read one at a time while other threads may be recording, so the counts
+     * are only approximately consistent with each other.
+     */
+    public long[] getBucketCounts() {
+        final long[] counts = new long[this.bucketCounts.length];
+        for( int i = 0; i < counts.length; i++ ) {
+            counts[i] = this.bucketCounts[i].sum();
+        }
+        return counts;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return this.getTotalNanos() / 1e6;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        final long n = this.getCount();
+        return n == 0 ? 0 : this.getTotalMillis() / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return this.maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return this.percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return this.percentileMillis(0.99);
+    }
+
+    private double percentileMillis(double percentile) {
+        final long[] counts = this.getBucketCounts();
+        long total = 0;
+        for( long bucketCount : counts ) {
+            total += bucketCount;
+        }
+        if( total == 0 ) {
+            return 0;
+        }
+        long seen = 0;
+        for( int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++ ) {
+            seen += counts[i];
+            if( seen >= Math.ceil(percentile * total) ) {
+                return BUCKET_BOUNDS_NANOS[i] / 1e6;
+            }
+        }
+        // The percentile is in the overflow bucket, so the max is the best bound available
+        return this.getMaxMillis();
+    }
+}
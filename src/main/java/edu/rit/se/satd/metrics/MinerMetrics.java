@@ -0,0 +1,68 @@
+package edu.rit.se.satd.metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Global latency metrics for each stage of mining.
+ *
+ * A stage is timed with:
+ *     final long start = MinerMetrics.start();
+ *     ...
+ *     MinerMetrics.record(Stage.PARSE, start);
+ */
+public class MinerMetrics {
+
+    private static final String JMX_DOMAIN = "edu.rit.se.satd";
+
+    private static final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+
+    static {
+        for( Stage stage : Stage.values() ) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    private MinerMetrics() {}
+
+    /**
+     * @return the start time of a stage, to be given to record once the stage ends
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a single run of a stage
+     * @param stage the stage that ran
+     * @param startNanos the value returned by start when the stage began
+     */
+    public static void record(Stage stage, long startNanos) {
+        histograms.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    public static LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Registers an MXBean for each stage, named edu.rit.se.satd:type=StageLatency,name=[stage]
+     */
+    public static void registerMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for( Stage stage : Stage.values() ) {
+            try {
+                final ObjectName name = new ObjectName(
+                        JMX_DOMAIN + ":type=StageLatency,name=" + stage.getMetricName());
+                if( !server.isRegistered(name) ) {
+                    server.registerMBean(histograms.get(stage), name);
+                }
+            } catch (JMException e) {
+                System.err.println("Could not register metrics for " + stage.getMetricName() +
+                        ": " + e.getLocalizedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package edu.rit.se.satd.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for parsing a single file for its comments
+ */
+@Name("edu.rit.se.satd.Parse")
+@Label("File Parsed")
+@Category("SATD Miner")
+@Description("Parsing a Java file for its comments")
+@StackTrace(false)
+public class ParseEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+}
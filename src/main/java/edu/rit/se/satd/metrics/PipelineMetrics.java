@@ -0,0 +1,145 @@
+package edu.rit.se.satd.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global metrics of how busy each stage of the mining pipeline is. A stage's utilization is
+ * the share of its threads' time spent working rather than waiting for diff pairs, so a stage
+ * near full utilization while the others wait is where more threads would help.
+ *
+ * Metrics are of the pipeline mining the current repository, or the last if none is being mined.
+ */
+public class PipelineMetrics {
+
+    private static final Map<PipelineStage, LongAdder> busyNanos = new EnumMap<>(PipelineStage.class);
+    private static final Map<PipelineStage, Integer> threads = new EnumMap<>(PipelineStage.class);
+
+    private static final LongAdder nBatches = new LongAdder();
+    private static final LongAdder nBatchComments = new LongAdder();
+    private static final LongAdder nBatchPairs = new LongAdder();
+
+    // The times the pipeline started and finished, or 0 if it has not
+    private static final AtomicLong startNanos = new AtomicLong();
+    private static final AtomicLong endNanos = new AtomicLong();
+
+    static {
+        for( PipelineStage stage : PipelineStage.values() ) {
+            busyNanos.put(stage, new LongAdder());
+            threads.put(stage, 0);
+        }
+    }
+
+    private PipelineMetrics() {}
+
+    /**
+     * Resets the metrics for a new pipeline
+     * @param stageThreads the number of threads of each stage
+     */
+    public static synchronized void begin(Map<PipelineStage, Integer> stageThreads) {
+        for( PipelineStage stage : PipelineStage.values() ) {
+            busyNanos.get(stage).reset();
+            threads.put(stage, stageThreads.getOrDefault(stage, 1));
+        }
+        nBatches.reset();
+        nBatchComments.reset();
+        nBatchPairs.reset();
+        endNanos.set(0);
+        startNanos.set(System.nanoTime());
+    }
+
+    public static void end() {
+        endNanos.set(System.nanoTime());
+    }
+
+    /**
+     * Records the time a stage spent working on diff pairs
+     * @param stage the stage that ran
+     * @param startNanos the value returned by MinerMetrics.start when the work began
+     */
+    public static void recordBusy(PipelineStage stage, long startNanos) {
+        busyNanos.get(stage).add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a batch of comments given to the detector
+     * @param nPairs the number of diff pairs whose comments were in the batch
+     * @param nComments the number of comments in the batch
+     */
+    public static void recordBatch(int nPairs, int nComments) {
+        nBatches.increment();
+        nBatchPairs.add(nPairs);
+        nBatchComments.add(nComments);
+    }
+
+    /**
+     * @param stage a stage of the pipeline
+     * @return the share of the stage's thread time spent working, from 0 to 1
+     */
+    public static synchronized double getUtilization(PipelineStage stage) {
+        final long start = startNanos.get();
+        if( start == 0 ) {
+            return 0;
+        }
+        final long end = endNanos.get() != 0 ? endNanos.get() : System.nanoTime();
+        final double capacity = (double) (end - start) * threads.get(stage);
+        return capacity > 0 ? Math.min(1, busyNanos.get(stage).sum() / capacity) : 0;
+    }
+
+    /**
+     * @return a one line summary of the threads and utilization of each stage, and the size
+     * of the classification batches
+     */
+    public static synchronized String getReport() {
+        final StringBuilder report = new StringBuilder();
+        for( PipelineStage stage : PipelineStage.values() ) {
+            report.append(stage.getMetricName()).append(' ')
+                    .append(threads.get(stage)).append("x ")
+                    .append(String.format(Locale.ROOT, "%.0f%%", 100 * getUtilization(stage)))
+                    .append(", ");
+        }
+        final long batches = nBatches.sum();
+        return report.append(String.format(Locale.ROOT, "%.1f comments from %.1f diffs per batch",
+                batches > 0 ? (double) nBatchComments.sum() / batches : 0,
+                batches > 0 ? (double) nBatchPairs.sum() / batches : 0)).toString();
+    }
+
+    /**
+     * @return the pipeline metrics in the Prometheus text format
+     */
+    static synchronized String render() {
+        final StringBuilder text = new StringBuilder();
+        text.append("# HELP satd_pipeline_threads Threads of each stage of the mining pipeline\n")
+                .append("# TYPE satd_pipeline_threads gauge\n");
+        for( PipelineStage stage : PipelineStage.values() ) {
+            appendSample(text, "satd_pipeline_threads", stage, String.valueOf(threads.get(stage)));
+        }
+        text.append("# HELP satd_pipeline_busy_seconds_total Time each stage spent working on diff pairs\n")
+                .append("# TYPE satd_pipeline_busy_seconds_total counter\n");
+        for( PipelineStage stage : PipelineStage.values() ) {
+            appendSample(text, "satd_pipeline_busy_seconds_total", stage,
+                    String.format(Locale.ROOT, "%.9f", busyNanos.get(stage).sum() / 1e9));
+        }
+        text.append("# HELP satd_pipeline_utilization Share of each stage's thread time spent working\n")
+                .append("# TYPE satd_pipeline_utilization gauge\n");
+        for( PipelineStage stage : PipelineStage.values() ) {
+            appendSample(text, "satd_pipeline_utilization", stage,
+                    String.format(Locale.ROOT, "%.4f", getUtilization(stage)));
+        }
+        text.append("# HELP satd_classify_batches_total Batches of comments given to the detector\n")
+                .append("# TYPE satd_classify_batches_total counter\n")
+                .append("satd_classify_batches_total ").append(nBatches.sum()).append('\n')
+                .append("# HELP satd_classify_batch_comments_total Comments in every batch given to the detector\n")
+                .append("# TYPE satd_classify_batch_comments_total counter\n")
+                .append("satd_classify_batch_comments_total ").append(nBatchComments.sum()).append('\n');
+        return text.toString();
+    }
+
+    private static void appendSample(StringBuilder text, String name, PipelineStage stage, String value) {
+        text.append(name).append("{stage=\"").append(stage.getMetricName()).append("\"} ")
+                .append(value).append('\n');
+    }
+}
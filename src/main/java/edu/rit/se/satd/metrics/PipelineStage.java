@@ -0,0 +1,31 @@
+package edu.rit.se.satd.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The stages of the mining pipeline, which each diff pair passes through in order.
+ * Stages run on their own threads, so the stages of different diff pairs overlap.
+ */
+@RequiredArgsConstructor
+public enum PipelineStage {
+    // Finding the modified files of a diff pair and loading their blobs
+    LOAD("load", true),
+    // Parsing the modified files for comments
+    PARSE("parse", true),
+    // Classifying the comments of one or more diff pairs as SATD or not
+    CLASSIFY("classify", false),
+    // Determining how the SATD of a diff pair was changed
+    DIFFERENCE("difference", true),
+    // Linking the SATD instances of each diff pair to earlier instances, in history order
+    LINK("link", false),
+    // Handing each diff pair to the OutputWriter, in history order
+    WRITE("write", false);
+
+    // The name of the stage in exported metrics and on the command line
+    @Getter
+    private final String metricName;
+    // Whether the stage may run on more than one thread
+    @Getter
+    private final boolean parallel;
+}
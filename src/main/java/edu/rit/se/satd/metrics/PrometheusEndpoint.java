@@ -0,0 +1,86 @@
+package edu.rit.se.satd.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the miner's metrics at http://localhost:[port]/metrics in the Prometheus text format.
+ * Only the loopback interface is bound.
+ */
+public class PrometheusEndpoint {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String METRIC_NAME = "satd_stage_duration_seconds";
+
+    private final HttpServer server;
+
+    public PrometheusEndpoint(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", this::handle);
+        // Scrapes are rare and cheap, so a single daemon thread is enough
+        this.server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public void stop() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        final byte[] body = (render() + StorageMetrics.render() + PipelineMetrics.render() +
+                FileMetrics.render()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * @return every stage's histogram in the Prometheus text format
+     */
+    static String render() {
+        final StringBuilder text = new StringBuilder();
+        text.append("# HELP ").append(METRIC_NAME).append(" Time spent in each stage of mining\n")
+                .append("# TYPE ").append(METRIC_NAME).append(" histogram\n");
+        for( Stage stage : Stage.values() ) {
+            final LatencyHistogram histogram = MinerMetrics.getHistogram(stage);
+            final long[] counts = histogram.getBucketCounts();
+            long cumulative = 0;
+            for( int i = 0; i < LatencyHistogram.BUCKET_BOUNDS_NANOS.length; i++ ) {
+                cumulative += counts[i];
+                appendSample(text, "_bucket", stage, String.format(Locale.ROOT, "%.6f",
+                        LatencyHistogram.BUCKET_BOUNDS_NANOS[i] / 1e9), cumulative);
+            }
+            cumulative += counts[counts.length - 1];
+            appendSample(text, "_bucket", stage, "+Inf", cumulative);
+            text.append(METRIC_NAME).append("_sum{stage=\"").append(stage.getMetricName()).append("\"} ")
+                    .append(String.format(Locale.ROOT, "%.9f", histogram.getTotalNanos() / 1e9)).append('\n');
+            // The count must match the +Inf bucket, so it is taken from the same snapshot
+            text.append(METRIC_NAME).append("_count{stage=\"").append(stage.getMetricName()).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void appendSample(StringBuilder text, String suffix, Stage stage, String le, long value) {
+        text.append(METRIC_NAME).append(suffix)
+                .append("{stage=\"").append(stage.getMetricName()).append("\",le=\"").append(le).append("\"} ")
+                .append(value).append('\n');
+    }
+}
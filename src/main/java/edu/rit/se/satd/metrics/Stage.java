@@ -0,0 +1,45 @@
+package edu.rit.se.satd.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The stages of mining which are timed. Some stages run inside others, so their times
+ * are also counted in the enclosing stage.
+ */
+@RequiredArgsConstructor
+public enum Stage {
+    // Cloning the repository
+    CLONE("clone"),
+    // Walking the commit graph to find every pair of commits to diff
+    DIFF_PAIRS("diff_pairs"),
+    // Mining a single pair of commits, which includes every stage below up to LINK, and the
+    // time the pair spent queued between the stages of the mining pipeline
+    MINE_DIFF("mine_diff"),
+    // Finding the files changed between two commits, including rename detection
+    DIFF_ENTRIES("diff_entries"),
+    // Pairing the added and deleted files between two commits as renames
+    RENAME_DETECTION("rename_detection"),
+    // Loading the blobs of every changed file of a diff pair in pack order
+    PREFETCH("prefetch"),
+    // Loading the comments of the changed files at one commit, which includes parsing
+    TREE_WALK("tree_walk"),
+    // Parsing a single file for its comments
+    PARSE("parse"),
+    // Classifying a batch of comments as SATD or not
+    CLASSIFY("classify"),
+    // Matching the SATD of the old commit to the SATD of the new commit
+    ALIGN("align"),
+    // Computing the edits to a single file
+    EDIT_DIFF("edit_diff"),
+    // Linking the SATD instances in a diff to instances found in earlier diffs
+    LINK("link"),
+    // Handing a diff to the OutputWriter
+    WRITE("write"),
+    // Writing the SATD instances of a diff to the database, which may be done asynchronously
+    DB_WRITE("db_write");
+
+    // The name of the stage in exported metrics
+    @Getter
+    private final String metricName;
+}
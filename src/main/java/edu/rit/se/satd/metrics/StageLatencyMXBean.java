@@ -0,0 +1,37 @@
+package edu.rit.se.satd.metrics;
+
+/**
+ * The latency of a single mining stage, as exposed over JMX
+ */
+public interface StageLatencyMXBean {
+
+    /**
+     * @return the number of times the stage has run
+     */
+    long getCount();
+
+    /**
+     * @return the total time spent in the stage
+     */
+    double getTotalMillis();
+
+    /**
+     * @return the mean time of a single run of the stage
+     */
+    double getMeanMillis();
+
+    /**
+     * @return the longest time of a single run of the stage
+     */
+    double getMaxMillis();
+
+    /**
+     * @return the upper bound of the histogram bucket containing the median run
+     */
+    double getP50Millis();
+
+    /**
+     * @return the upper bound of the histogram bucket containing the 99th percentile run
+     */
+    double getP99Millis();
+}
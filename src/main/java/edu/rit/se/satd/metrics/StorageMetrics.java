@@ -0,0 +1,87 @@
+package edu.rit.se.satd.metrics;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global metrics of how blobs are read from the repository being mined, used to tune the
+ * storage profile. JGit does not count hits in its own caches, so the hit ratio is that of the
+ * per diff pair blob cache, alongside how much of JGit's pack window cache is in use.
+ */
+public class StorageMetrics {
+
+    private static final AtomicLong blobCacheHits = new AtomicLong();
+    private static final AtomicLong blobCacheMisses = new AtomicLong();
+    private static final AtomicLong blobsPrefetched = new AtomicLong();
+
+    // The configuration of JGit's caches, or null if none has been installed
+    private static volatile WindowCacheConfig windowCacheConfig = null;
+
+    private StorageMetrics() {}
+
+    public static void recordBlobCacheHit() {
+        blobCacheHits.incrementAndGet();
+    }
+
+    /**
+     * Records a blob which had to be read from the repository when it was used
+     */
+    public static void recordBlobCacheMiss() {
+        blobCacheMisses.incrementAndGet();
+    }
+
+    public static void recordBlobsPrefetched(int nBlobs) {
+        blobsPrefetched.addAndGet(nBlobs);
+    }
+
+    public static void setWindowCacheConfig(WindowCacheConfig config) {
+        windowCacheConfig = config;
+    }
+
+    /**
+     * @return the share of blob reads which were served from the blob cache, or 0 if there were none
+     */
+    public static double getBlobCacheHitRatio() {
+        final long hits = blobCacheHits.get();
+        final long total = hits + blobCacheMisses.get();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * @return the storage metrics in the Prometheus text format
+     */
+    static String render() {
+        final StringBuilder text = new StringBuilder();
+        final long hits = blobCacheHits.get();
+        final long misses = blobCacheMisses.get();
+        text.append("# HELP satd_blob_cache_reads_total Blob reads by whether the blob was already cached\n")
+                .append("# TYPE satd_blob_cache_reads_total counter\n")
+                .append("satd_blob_cache_reads_total{result=\"hit\"} ").append(hits).append('\n')
+                .append("satd_blob_cache_reads_total{result=\"miss\"} ").append(misses).append('\n');
+        appendGauge(text, "satd_blob_cache_hit_ratio", "Share of blob reads served from the blob cache",
+                String.valueOf(hits + misses > 0 ? (double) hits / (hits + misses) : 0));
+        text.append("# HELP satd_blobs_prefetched_total Blobs loaded in pack order before they were read\n")
+                .append("# TYPE satd_blobs_prefetched_total counter\n")
+                .append("satd_blobs_prefetched_total ").append(blobsPrefetched.get()).append('\n');
+        appendGauge(text, "satd_jgit_window_cache_open_bytes", "Bytes of pack windows held by JGit",
+                String.valueOf(WindowCacheStats.getOpenBytes()));
+        appendGauge(text, "satd_jgit_window_cache_open_files", "Pack files held open by JGit",
+                String.valueOf(WindowCacheStats.getOpenFiles()));
+        final WindowCacheConfig config = windowCacheConfig;
+        if( config != null ) {
+            appendGauge(text, "satd_jgit_window_cache_limit_bytes", "Most bytes of pack windows JGit may hold",
+                    String.valueOf(config.getPackedGitLimit()));
+            appendGauge(text, "satd_jgit_delta_base_cache_limit_bytes", "Most bytes of delta bases JGit may hold",
+                    String.valueOf(config.getDeltaBaseCacheLimit()));
+        }
+        return text.toString();
+    }
+
+    private static void appendGauge(StringBuilder text, String name, String help, String value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" gauge\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+}
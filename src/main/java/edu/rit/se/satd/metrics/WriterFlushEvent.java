@@ -0,0 +1,17 @@
+package edu.rit.se.satd.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for an OutputWriter writing its buffered output
+ */
+@Name("edu.rit.se.satd.WriterFlush")
+@Label("Writer Flushed")
+@Category("SATD Miner")
+@Description("An OutputWriter writing its buffered output")
+@StackTrace(false)
+public class WriterFlushEvent extends Event {
+
+    @Label("Writer")
+    String writer;
+}
@@ -0,0 +1,104 @@
+package edu.rit.se.satd.mining;
+
+import edu.rit.se.util.LongIntHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The state of the SATDMiner after the first nDiffPairsComplete diff pairs of a repository
+ * were mined and fully written. Mining can be resumed from a checkpoint and will produce
+ * the same SATD instance IDs as a run which was never interrupted.
+ */
+@AllArgsConstructor
+public class MiningCheckpoint {
+
+    private static final int FORMAT_VERSION = 3;
+
+    @Getter
+    private final String repositoryURI;
+    @Getter
+    private final String headCommit;
+    @Getter
+    private final int nDiffPairsComplete;
+    // The last diff pair that was written, used to confirm the diff pairs were ordered identically.
+    // Empty if no diff pairs were complete
+    @Getter
+    private final String lastCommit;
+    @Getter
+    private final String lastParentCommit;
+    @Getter
+    private final int curSATDId;
+    // SATD instance fingerprints to SATD instance IDs
+    @Getter
+    private final LongIntHashMap satdInstanceMappings;
+    // The length of the output file once the complete diff pairs were written, or -1 if the
+    // output is not a single file
+    @Getter
+    private final long outputLength;
+
+    /**
+     * Writes the checkpoint to the given file. The checkpoint is written to a temporary file
+     * first and then moved over the existing checkpoint, so a crash while writing will
+     * leave the previous checkpoint intact.
+     * @param file the file to write the checkpoint to
+     * @throws IOException thrown if the checkpoint could not be written
+     */
+    public void writeTo(File file) throws IOException {
+        final File tmpFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(this.repositoryURI);
+            out.writeUTF(this.headCommit);
+            out.writeInt(this.nDiffPairsComplete);
+            out.writeUTF(this.lastCommit);
+            out.writeUTF(this.lastParentCommit);
+            out.writeInt(this.curSATDId);
+            out.writeInt(this.satdInstanceMappings.size());
+            this.satdInstanceMappings.forEach((fingerprint, id) -> {
+                out.writeLong(fingerprint);
+                out.writeInt(id);
+            });
+            out.writeLong(this.outputLength);
+            out.flush();
+            // Make sure the checkpoint is on disk before it replaces the previous one
+            fileOut.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a checkpoint written by writeTo
+     * @param file the file containing the checkpoint
+     * @param offHeap True if the SATD instance mappings should be stored outside of the Java heap
+     * @return the checkpoint
+     * @throws IOException thrown if the checkpoint could not be read
+     */
+    public static MiningCheckpoint readFrom(File file, boolean offHeap) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final int version = in.readInt();
+            if( version != FORMAT_VERSION ) {
+                throw new IOException("Unsupported checkpoint version: " + version);
+            }
+            final String repositoryURI = in.readUTF();
+            final String headCommit = in.readUTF();
+            final int nDiffPairsComplete = in.readInt();
+            final String lastCommit = in.readUTF();
+            final String lastParentCommit = in.readUTF();
+            final int curSATDId = in.readInt();
+            final int nMappings = in.readInt();
+            final LongIntHashMap mappings =
+                    new LongIntHashMap(nMappings, LongIntHashMap.DEFAULT_LOAD_FACTOR, offHeap);
+            for( int i = 0; i < nMappings; i++ ) {
+                mappings.put(in.readLong(), in.readInt());
+            }
+            return new MiningCheckpoint(repositoryURI, headCommit, nDiffPairsComplete,
+                    lastCommit, lastParentCommit, curSATDId, mappings, in.readLong());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package edu.rit.se.satd.mining;
+
+import edu.rit.se.git.BlobReader;
+import edu.rit.se.satd.detector.ClassificationBatch;
+import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.detector.SynchronizedDetector;
+import edu.rit.se.satd.metrics.*;
+import edu.rit.se.satd.model.SATDDifference;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mines diff pairs in stages, so the git I/O of some diff pairs overlaps the parsing,
+ * classifying and differencing of others. Each diff pair passes through the stages
+ * load, parse, classify and difference, which run on their own threads and hand diff pairs
+ * to the next stage through bounded queues. The classify stage gathers the comments of
+ * every diff pair waiting for it into one batch for the detector.
+ *
+ * Mined diffs are linked and written on the thread which runs the pipeline, one at a time
+ * in the order of the diff pairs, so the results are the same as mining each diff pair in turn.
+ */
+public class MiningPipeline {
+
+    // The number of threads of each stage. Only stages which may run in parallel may have more than one
+    private static final Map<PipelineStage, Integer> stageThreads = new EnumMap<>(PipelineStage.class);
+
+    // The most comments gathered into one batch for the detector. A batch is not held back
+    // until it is full, so batches are only this large while the classify stage is behind
+    public static int maxBatchComments = 1024;
+
+    // How long idle threads wait for work before checking whether the pipeline has stopped
+    private static final long POLL_MILLIS = 100;
+
+    static {
+        for( PipelineStage stage : PipelineStage.values() ) {
+            stageThreads.put(stage, 1);
+        }
+    }
+
+    // Shared by every stage, so it must be safe to use from several threads
+    @Getter
+    private final SATDDetector detector;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean stopped = false;
+
+    // Diff pairs which have been differenced, by index, until they are linked and written in order
+    private final Map<Integer, Item> differenced = new HashMap<>();
+    private final List<BlockingQueue<Item>> queues = new ArrayList<>();
+
+    /**
+     * @param detector the detector used to classify comments, which is shared by the stages
+     */
+    public MiningPipeline(SATDDetector detector) {
+        this.detector = new SynchronizedDetector(detector);
+    }
+
+    /**
+     * Sets the number of threads of a stage
+     * @param stage a stage of the pipeline
+     * @param nThreads the number of threads
+     * @throws IllegalArgumentException thrown if the stage cannot run on that many threads
+     */
+    public static void setStageThreads(PipelineStage stage, int nThreads) {
+        if( nThreads < 1 || (nThreads > 1 && !stage.isParallel()) ) {
+            throw new IllegalArgumentException("The " + stage.getMetricName() + " stage cannot run on " +
+                    nThreads + " threads");
+        }
+        stageThreads.put(stage, nThreads);
+    }
+
+    public static int getStageThreads(PipelineStage stage) {
+        return stageThreads.get(stage);
+    }
+
+    /**
+     * Mines a range of diff pairs. Returns once every diff pair has been written, or rethrows
+     * the first exception thrown while mining any diff pair. A pipeline can only be run once.
+     * @param firstPair the index of the first diff pair to mine
+     * @param endPair the index after the last diff pair to mine
+     * @param source creates the miner of each diff pair, always called on the same thread
+     *               and in the order of the diff pairs
+     * @param sink links and writes each mined diff, called on this thread in the order of
+     *             the diff pairs
+     */
+    public void run(int firstPair, int endPair, PairSource source, PairSink sink) {
+        final int nWorkers = stageThreads.get(PipelineStage.LOAD) + stageThreads.get(PipelineStage.PARSE) +
+                stageThreads.get(PipelineStage.DIFFERENCE) + 1;
+        // Diff pairs past this many wait to be loaded, so a slow diff pair cannot
+        // leave ever more mined diffs waiting to be written
+        final int maxPairsInFlight = 2 * nWorkers;
+        final Semaphore inFlight = new Semaphore(maxPairsInFlight);
+        final BlockingQueue<Item> toLoad = this.newQueue(maxPairsInFlight);
+        final BlockingQueue<Item> toParse = this.newQueue(maxPairsInFlight);
+        final BlockingQueue<Item> toClassify = this.newQueue(maxPairsInFlight);
+        final BlockingQueue<Item> toDifference = this.newQueue(maxPairsInFlight);
+
+        PipelineMetrics.begin(stageThreads);
+        this.startThread("satd-feed", () -> {
+            for( int index = firstPair; index < endPair; index++ ) {
+                while( !inFlight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS) ) {
+                    if( this.stopped ) {
+                        return;
+                    }
+                }
+                final Item item = new Item(index, source.getPair(index));
+                // Every diff pair in flight keeps its own blobs, so they share the blob cache
+                item.miner.setMaxCachedBlobBytes(BlobReader.MAX_CACHED_BYTES / maxPairsInFlight);
+                if( !toLoad.offer(item) ) {
+                    item.miner.close();
+                    throw new IllegalStateException("The load queue is full");
+                }
+            }
+        });
+        this.startWorkers(PipelineStage.LOAD, toLoad, item -> {
+            item.event = FlightEvents.beginDiffPair();
+            item.startNanos = MinerMetrics.start();
+            item.miner.loadDiff();
+        }, toParse::offer);
+        this.startWorkers(PipelineStage.PARSE, toParse, item -> item.miner.parseComments(), toClassify::offer);
+        this.startThread("satd-classify", () -> {
+            final List<Item> items = new ArrayList<>();
+            while( this.awaitBatch(toClassify, items) ) {
+                final long start = MinerMetrics.start();
+                try {
+                    final ClassificationBatch batch = new ClassificationBatch();
+                    for( Item item : items ) {
+                        item.miner.addCommentsTo(batch);
+                    }
+                    batch.classify(this.detector);
+                    PipelineMetrics.recordBatch(items.size(), batch.getNComments());
+                } catch (RuntimeException | Error e) {
+                    items.forEach(item -> item.miner.close());
+                    throw e;
+                }
+                PipelineMetrics.recordBusy(PipelineStage.CLASSIFY, start);
+                items.forEach(toDifference::offer);
+                items.clear();
+            }
+        });
+        this.startWorkers(PipelineStage.DIFFERENCE, toDifference, item -> {
+            item.diff = item.miner.differenceComments();
+            MinerMetrics.record(Stage.MINE_DIFF, item.startNanos);
+        }, item -> {
+            synchronized (this.differenced) {
+                this.differenced.put(item.index, item);
+                this.differenced.notifyAll();
+            }
+            return true;
+        });
+
+        try {
+            for( int index = firstPair; index < endPair; index++ ) {
+                final Item item = this.awaitDifferenced(index);
+                sink.write(index, item.miner, item.diff, item.event);
+                inFlight.release();
+            }
+        } finally {
+            this.stop();
+        }
+    }
+
+    private BlockingQueue<Item> newQueue(int capacity) {
+        final BlockingQueue<Item> queue = new ArrayBlockingQueue<>(capacity);
+        this.queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * Starts the threads of a stage, which each take diff pairs from the stage's queue,
+     * work on them, and hand them to the next stage
+     */
+    private void startWorkers(PipelineStage stage, BlockingQueue<Item> in, Work work, Handoff out) {
+        for( int i = 1; i <= stageThreads.get(stage); i++ ) {
+            this.startThread("satd-" + stage.getMetricName() + "-" + i, () -> {
+                Item item;
+                while( (item = this.poll(in)) != null ) {
+                    final long start = MinerMetrics.start();
+                    try {
+                        work.run(item);
+                    } catch (RuntimeException | Error e) {
+                        item.miner.close();
+                        throw e;
+                    }
+                    PipelineMetrics.recordBusy(stage, start);
+                    if( !out.offer(item) ) {
+                        item.miner.close();
+                        throw new IllegalStateException("The queue after the " + stage.getMetricName() +
+                                " stage is full");
+                    }
+                }
+            });
+        }
+    }
+
+    private void startThread(String name, Task task) {
+        final Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                this.fail(e);
+            }
+        }, name);
+        // A failed pipeline must not keep the JVM from exiting
+        thread.setDaemon(true);
+        this.threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * @return the next diff pair in the queue, or null once the pipeline has stopped
+     */
+    private Item poll(BlockingQueue<Item> queue) throws InterruptedException {
+        while( !this.stopped ) {
+            final Item item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if( item != null ) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits for at least one diff pair to classify, and then takes every diff pair which is
+     * already waiting until the batch is full
+     * @return False once the pipeline has stopped
+     */
+    private boolean awaitBatch(BlockingQueue<Item> queue, List<Item> items) throws InterruptedException {
+        final Item first = this.poll(queue);
+        if( first == null ) {
+            return false;
+        }
+        items.add(first);
+        int nComments = first.miner.getNParsedComments();
+        Item next;
+        while( nComments < maxBatchComments && (next = queue.poll()) != null ) {
+            items.add(next);
+            nComments += next.miner.getNParsedComments();
+        }
+        return true;
+    }
+
+    private Item awaitDifferenced(int index) {
+        synchronized (this.differenced) {
+            while( !this.differenced.containsKey(index) ) {
+                this.rethrowFailure();
+                try {
+                    this.differenced.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while mining", e);
+                }
+            }
+            return this.differenced.remove(index);
+        }
+    }
+
+    /**
+     * Rethrows the first exception thrown by any thread of the pipeline, if there was one
+     */
+    private void rethrowFailure() {
+        final Throwable cause = this.failure.get();
+        if( cause instanceof RuntimeException ) {
+            throw (RuntimeException) cause;
+        } else if( cause instanceof Error ) {
+            throw (Error) cause;
+        } else if( cause != null ) {
+            throw new IllegalStateException("Mining failed", cause);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        this.failure.compareAndSet(null, cause);
+        synchronized (this.differenced) {
+            this.differenced.notifyAll();
+        }
+    }
+
+    /**
+     * Stops every thread of the pipeline, and releases the diff pairs which were not mined
+     */
+    private void stop() {
+        this.stopped = true;
+        for( Thread thread : this.threads ) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        PipelineMetrics.end();
+        for( BlockingQueue<Item> queue : this.queues ) {
+            queue.forEach(item -> item.miner.close());
+            queue.clear();
+        }
+        synchronized (this.differenced) {
+            this.differenced.values().forEach(item -> item.miner.close());
+            this.differenced.clear();
+        }
+    }
+
+    /**
+     * Creates the miner of each diff pair
+     */
+    @FunctionalInterface
+    public interface PairSource {
+        RepositoryDiffMiner getPair(int index);
+    }
+
+    /**
+     * Links and writes each mined diff
+     */
+    @FunctionalInterface
+    public interface PairSink {
+        /**
+         * @param index the index of the diff pair
+         * @param miner the miner of the diff pair
+         * @param diff the mined diff
+         * @param event the Flight Recorder event of the diff pair, to be committed once it is
+         *              linked, or null if events are not available
+         */
+        void write(int index, RepositoryDiffMiner miner, SATDDifference diff, DiffPairEvent event);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run(Item item);
+    }
+
+    @FunctionalInterface
+    private interface Handoff {
+        boolean offer(Item item);
+    }
+
+    /**
+     * A diff pair passing through the pipeline
+     */
+    private static class Item {
+        private final int index;
+        private final RepositoryDiffMiner miner;
+        private DiffPairEvent event = null;
+        private long startNanos = 0;
+        private SATDDifference diff = null;
+
+        private Item(int index, RepositoryDiffMiner miner) {
+            this.index = index;
+            this.miner = miner;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package edu.rit.se.satd.mining;
 
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.git.RepositoryCommitReference;
+import edu.rit.se.git.model.CommitMetaData;
+import edu.rit.se.satd.comment.model.GroupedComment;
 import edu.rit.se.satd.comment.model.OldToNewCommentMapping;
 import edu.rit.se.satd.comment.model.RepositoryComments;
+import edu.rit.se.satd.detector.ClassificationBatch;
 import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.metrics.FileMetrics;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
 import edu.rit.se.satd.mining.diff.CommitToCommitDiff;
 import edu.rit.se.satd.model.SATDDifference;
 import edu.rit.se.satd.model.SATDInstance;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,6 +37,24 @@ public class RepositoryDiffMiner {
     @NonNull
     private SATDDetector satdDetector;
 
+    // The index to find the SATD of previously mined blobs in, and to add the SATD of newly mined blobs to
+    @Setter
+    private SATDIndex satdIndex = null;
+
+    // The most blob bytes to keep while mining, which is shared with the other diffs mined at once
+    @Setter
+    private long maxCachedBlobBytes = BlobReader.MAX_CACHED_BYTES;
+
+    // The number of files modified between the two repositories, known after mining
+    @Getter
+    private int nModifiedFiles = 0;
+
+    // The state of a diff which is mined in phases, set as each phase completes
+    private BlobReader blobs = null;
+    private CommitToCommitDiff cToCDiff = null;
+    private Map<String, RepositoryComments> newerSATD = null;
+    private Map<String, RepositoryComments> olderSATD = null;
+
     /**
      * Mines the differences in SATD between the two repositories set during generation
      * of the DiffMiner object
@@ -38,70 +64,205 @@ public class RepositoryDiffMiner {
      * configured before running
      */
     public SATDDifference mineDiff() {
+        try {
+            this.loadDiff();
+            this.parseComments();
+            final ClassificationBatch batch = new ClassificationBatch();
+            this.addCommentsTo(batch);
+            batch.classify(this.satdDetector);
+            return this.differenceComments();
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * The first phase of mining a diff: finds the files modified between the two repositories,
+     * and loads their blobs. The diff must be closed if it is not mined to completion.
+     */
+    public void loadDiff() {
+        // Every file of the pair is read through one reader, so no blob is inflated twice
+        this.blobs = new BlobReader(this.secondRepo.getGitInstance().getRepository(),
+                this.maxCachedBlobBytes);
+        // Load the diffs between versions
+        this.cToCDiff = new CommitToCommitDiff(this.firstRepo, this.secondRepo, this.satdDetector, this.blobs);
+        this.nModifiedFiles = this.cToCDiff.getModifiedFilesNew().size();
+        this.blobs.prefetch(this.cToCDiff.getModifiedBlobIds());
+    }
+
+    /**
+     * The second phase of mining a diff: parses the modified files of each repository for comments.
+     * The older files are parsed first, so the comments of the newer files can be extracted from them.
+     */
+    public void parseComments() {
+        this.olderSATD = this.firstRepo.getFilesToComments(
+                this.cToCDiff.getModifiedFilesOld(), this.blobs, null, this.satdIndex);
+        this.newerSATD = this.secondRepo.getFilesToComments(
+                this.cToCDiff.getModifiedFilesNew(), this.blobs, this.cToCDiff, this.satdIndex);
+        // Unchanged comments are classified the same, so files whose comments are all
+        // unchanged cannot have changed SATD
+        final int nCompared = (int) this.olderSATD.keySet().stream().filter(this.newerSATD::containsKey).count();
+        FileMetrics.recordFilesCompared(nCompared, this.removeUnchangedFiles());
+    }
+
+    /**
+     * @return the number of comments parsed from the modified files of both repositories
+     */
+    public int getNParsedComments() {
+        int nComments = 0;
+        for( Map<String, RepositoryComments> filesToComments : Arrays.asList(this.newerSATD, this.olderSATD) ) {
+            for( RepositoryComments comments : filesToComments.values() ) {
+                nComments += comments.getComments().size();
+            }
+        }
+        return nComments;
+    }
+
+    /**
+     * The third phase of mining a diff: the parsed comments are classified with a batch, which
+     * may include the comments of other diffs. Once the batch is classified only SATD is left.
+     * @param batch the batch to add the parsed comments of each repository to
+     */
+    public void addCommentsTo(ClassificationBatch batch) {
+        batch.add(this.newerSATD);
+        batch.add(this.olderSATD);
+    }
+
+    /**
+     * The last phase of mining a diff: determines how the SATD of each repository was changed
+     * once the comments have been classified. The diff is closed once this completes.
+     * @return a SATDDifference object representing the SATD as it was changed between the
+     * earlier and the latter tags
+     */
+    public SATDDifference differenceComments() {
         final SATDDifference diff = new SATDDifference(
                 this.secondRepo.getProjectName(),
                 this.secondRepo.getProjectURI(),
-                this.firstRepo.getCommit(),
-                this.secondRepo.getCommit());
+                new CommitMetaData(this.firstRepo.getCommit()),
+                new CommitMetaData(this.secondRepo.getCommit()));
+        final CommitToCommitDiff cToCDiff = this.cToCDiff;
+        final Map<String, RepositoryComments> newerSATD = this.newerSATD;
+        final Map<String, RepositoryComments> olderSATD = this.olderSATD;
+        try {
+            this.indexSATD();
+            FileMetrics.recordFilesSkippedBeforeDifference(this.removeUnchangedFiles());
+            // Get a list of all SATD instances as a mappable instance
+            final List<OldToNewCommentMapping> oldSATDMappings = olderSATD.keySet().stream()
+                    .flatMap(oldFile -> olderSATD.get(oldFile).getComments().stream()
+                        .map(comment -> new OldToNewCommentMapping(comment, oldFile)))
+                    .collect(Collectors.toList());
+            populateDuplicationIds(oldSATDMappings);
+            final List<OldToNewCommentMapping> newSATDMappings = newerSATD.keySet().stream()
+                    .flatMap(newFile -> newerSATD.get(newFile).getComments().stream()
+                            .map(comment -> new OldToNewCommentMapping(comment, newFile)))
+                    .collect(Collectors.toList());
+            populateDuplicationIds(newSATDMappings);
+            final List<String> erroredFiles = new ArrayList<>();
+            // Add errored files to known errors
+            erroredFiles.addAll(newerSATD.values().stream()
+                    .map(RepositoryComments::getParseErrorFiles)
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toList()));
+            erroredFiles.addAll(olderSATD.values().stream()
+                    .map(RepositoryComments::getParseErrorFiles)
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toList()));
 
-        // Load the diffs between versions
-        final CommitToCommitDiff cToCDiff = new CommitToCommitDiff(
-                this.firstRepo, this.secondRepo, this.satdDetector);
-
-        // Get the SATD occurrences for each repo
-        final Map<String, RepositoryComments> newerSATD = this.secondRepo.getFilesToSATDOccurrences(
-                this.satdDetector, cToCDiff.getModifiedFilesNew());
-        final Map<String, RepositoryComments> olderSATD = this.firstRepo.getFilesToSATDOccurrences(
-                this.satdDetector, cToCDiff.getModifiedFilesOld());
-
-        // Get a list of all SATD instances as a mappable instance
-        final List<OldToNewCommentMapping> oldSATDMappings = olderSATD.keySet().stream()
-                .flatMap(oldFile -> olderSATD.get(oldFile).getComments().stream()
-                    .map(comment -> new OldToNewCommentMapping(comment, oldFile)))
-                .collect(Collectors.toList());
-        populateDuplicationIds(oldSATDMappings);
-        final List<OldToNewCommentMapping> newSATDMappings = newerSATD.keySet().stream()
-                .flatMap(newFile -> newerSATD.get(newFile).getComments().stream()
-                        .map(comment -> new OldToNewCommentMapping(comment, newFile)))
-                .collect(Collectors.toList());
-        populateDuplicationIds(newSATDMappings);
-        final List<String> erroredFiles = new ArrayList<>();
-        // Add errored files to known errors
-        erroredFiles.addAll(newerSATD.values().stream()
-                .map(RepositoryComments::getParseErrorFiles)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList()));
-        erroredFiles.addAll(olderSATD.values().stream()
-                .map(RepositoryComments::getParseErrorFiles)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList()));
-
-        // Map the new to old and then old to new (done later), so we can determine which SATD instances
-        // may have changed
-        alignMappingLists(oldSATDMappings, newSATDMappings, erroredFiles);
-
-        // Get all instances that can be mined from the old repository's mapping data
-        final List<SATDInstance> oldInstances =
-                mineDiffsFromMappedSATDInstances(cToCDiff, oldSATDMappings, true);
-        // Use the new instance to avoid double-detecting instances that may not have
-        // been mapped on the first pass through
-        alignMappingLists(newSATDMappings, oldInstances.stream()
-                .map(SATDInstance::getNewInstance)
-                .map(ni -> new OldToNewCommentMapping(ni.getComment(), ni.getFileName()))
-                .collect(Collectors.toList()), erroredFiles);
-        // Add SATD instances that were in the NEW repo, but couldn't be mapped to the OLD repo
-        final List<SATDInstance> newInstances =
-                mineDiffsFromMappedSATDInstances(cToCDiff, newSATDMappings, false);
-
-        diff.addSATDInstances(oldInstances);
-        diff.addSATDInstances(newInstances);
+            // Map the new to old and then old to new (done later), so we can determine which SATD instances
+            // may have changed
+            alignMappingLists(oldSATDMappings, newSATDMappings, erroredFiles);
 
+            // Get all instances that can be mined from the old repository's mapping data
+            final List<SATDInstance> oldInstances =
+                    mineDiffsFromMappedSATDInstances(cToCDiff, oldSATDMappings, true);
+            // Use the new instance to avoid double-detecting instances that may not have
+            // been mapped on the first pass through
+            alignMappingLists(newSATDMappings, oldInstances.stream()
+                    .map(SATDInstance::getNewInstance)
+                    .map(ni -> new OldToNewCommentMapping(ni.getComment(), ni.getFileName()))
+                    .collect(Collectors.toList()), erroredFiles);
+            // Add SATD instances that were in the NEW repo, but couldn't be mapped to the OLD repo
+            final List<SATDInstance> newInstances =
+                    mineDiffsFromMappedSATDInstances(cToCDiff, newSATDMappings, false);
 
+            diff.addSATDInstances(oldInstances);
+            diff.addSATDInstances(newInstances);
+        } finally {
+            this.close();
+        }
         return diff;
     }
 
-    private static void alignMappingLists(List<OldToNewCommentMapping> list1, List<OldToNewCommentMapping> list2,
-                                          List<String> erroredFiles) {
+    /**
+     * Adds the SATD of each classified file to the index, unless it was found in the index.
+     * Files which could not be parsed are not indexed, so they are reported again if mined again.
+     */
+    private void indexSATD() {
+        if( this.satdIndex == null ) {
+            return;
+        }
+        for( Map<String, RepositoryComments> filesToComments : Arrays.asList(this.newerSATD, this.olderSATD) ) {
+            for( RepositoryComments comments : filesToComments.values() ) {
+                if( comments.isClassified() && comments.getBlobId() != null &&
+                        comments.getParseErrorFiles().isEmpty() ) {
+                    this.satdIndex.putSATD(comments.getBlobId(), comments.getComments());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the files whose comments are the same in both repositories, disregarding where
+     * in the file the comments are. Every comment of such a file would be aligned with its
+     * counterpart, so none of them could be part of an SATD instance.
+     * @return the number of files removed
+     */
+    private int removeUnchangedFiles() {
+        final List<String> unchangedFiles = this.olderSATD.keySet().stream()
+                .filter(file -> this.newerSATD.containsKey(file) &&
+                        haveSameComments(this.olderSATD.get(file), this.newerSATD.get(file)))
+                .collect(Collectors.toList());
+        for( String file : unchangedFiles ) {
+            this.olderSATD.remove(file);
+            this.newerSATD.remove(file);
+        }
+        return unchangedFiles.size();
+    }
+
+    private static boolean haveSameComments(RepositoryComments oldComments, RepositoryComments newComments) {
+        if( oldComments.getComments().size() != newComments.getComments().size() ) {
+            return false;
+        }
+        final Comparator<GroupedComment> byFingerprint = Comparator.comparingLong(GroupedComment::getFingerprint);
+        final List<GroupedComment> oldSorted = new ArrayList<>(oldComments.getComments());
+        final List<GroupedComment> newSorted = new ArrayList<>(newComments.getComments());
+        oldSorted.sort(byFingerprint);
+        newSorted.sort(byFingerprint);
+        for( int i = 0; i < oldSorted.size(); i++ ) {
+            if( !oldSorted.get(i).hasSameContentAs(newSorted.get(i)) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the blobs read for the diff. Mining the diff cannot continue once it is closed.
+     */
+    public void close() {
+        if( this.blobs != null ) {
+            this.blobs.close();
+            this.blobs = null;
+        }
+        this.cToCDiff = null;
+        this.newerSATD = null;
+        this.olderSATD = null;
+    }
+
+    // Package-private so it can be benchmarked
+    static void alignMappingLists(List<OldToNewCommentMapping> list1, List<OldToNewCommentMapping> list2,
+                                  List<String> erroredFiles) {
+        final long start = MinerMetrics.start();
         list1.forEach(mappedComment ->
                 list2.stream()
                         .filter(OldToNewCommentMapping::isNotMapped)
@@ -115,6 +276,7 @@ public class RepositoryDiffMiner {
         list2.stream()
                 .filter(c -> erroredFiles.contains(c.getFile()))
                 .forEach(c -> c.mapTo(null));
+        MinerMetrics.record(Stage.ALIGN, start);
     }
 
     private static List<SATDInstance> mineDiffsFromMappedSATDInstances(CommitToCommitDiff cToCDiff,
@@ -132,7 +294,8 @@ public class RepositoryDiffMiner {
                         .collect(Collectors.toList());
     }
 
-    private static void populateDuplicationIds(List<OldToNewCommentMapping> mappingList) {
+    // Package-private so it can be tested
+    static void populateDuplicationIds(List<OldToNewCommentMapping> mappingList) {
         final Map<OldToNewCommentMapping, Integer> curDupIds = new HashMap<>();
         mappingList.forEach(mapping -> {
             if( !curDupIds.containsKey(mapping) ) {
@@ -0,0 +1,348 @@
+package edu.rit.se.satd.mining;
+
+import edu.rit.se.satd.comment.IgnorableWords;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.util.BloomFilter;
+import edu.rit.se.util.Fingerprint;
+import edu.rit.se.util.JavaParseUtil;
+import edu.rit.se.util.LongIntHashMap;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An index on disk of the SATD in each blob of a Java file, keyed by the blob's ID. A blob's
+ * content never changes, so its SATD can be reused by any later run, in any repository, which
+ * parses with the same parser and classifies with the same detector and ignored words. Blobs found
+ * in the index are neither parsed nor classified again.
+ *
+ * Blobs with SATD are stored as records appended to a file, so a run which is interrupted only
+ * loses the records it was writing. Most blobs have no SATD, so those are only added to a Bloom
+ * filter, sized so a blob which was never indexed is mistaken for one without SATD about once in
+ * ten billion lookups. The filter is saved when the index is flushed.
+ *
+ * The index may be shared by several threads.
+ */
+public class SATDIndex implements Closeable {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // The filters of blobs without SATD, where each filter is twice the size of the last
+    private static final int INITIAL_FILTER_CAPACITY = 1 << 12;
+    private static final double FALSE_POSITIVE_RATE = 1e-10;
+
+    // The size of a record before its comments: the blob ID, and the length of the comments
+    private static final int RECORD_HEADER_BYTES = Constants.OBJECT_ID_LENGTH + Integer.BYTES;
+
+    private final RandomAccessFile records;
+    private final File filtersFile;
+    // The first 64 bits of each indexed blob's ID, mapped to the number of its record
+    private final LongIntHashMap recordNumbers = new LongIntHashMap();
+    private long[] recordOffsets = new long[64];
+    private int nRecords = 0;
+    private final List<BloomFilter> noSATDFilters;
+    private boolean filtersChanged = false;
+
+    private long nHits = 0;
+    private long nMisses = 0;
+
+    private SATDIndex(RandomAccessFile records, File filtersFile, List<BloomFilter> noSATDFilters) {
+        this.records = records;
+        this.filtersFile = filtersFile;
+        this.noSATDFilters = noSATDFilters;
+    }
+
+    /**
+     * Opens the index in a directory, creating it if it does not exist. The directory can hold
+     * an index for each parser, detector and set of ignored words, so the ignored words must be
+     * populated before the index is opened.
+     * @param dir the directory the index is stored in
+     * @param detector the detector the indexed SATD is classified by
+     * @return the index
+     * @throws IOException thrown if the index could not be read or created
+     */
+    public static SATDIndex open(File dir, SATDDetector detector) throws IOException {
+        if( !dir.isDirectory() && !dir.mkdirs() ) {
+            throw new IOException("Could not create SATD index directory " + dir);
+        }
+        final String name = getName(detector);
+        final File filtersFile = new File(dir, name + ".bloom");
+        final SATDIndex index = new SATDIndex(new RandomAccessFile(new File(dir, name + ".records"), "rw"),
+                filtersFile, filtersFile.exists() ? readFilters(filtersFile) : new ArrayList<>());
+        try {
+            index.loadRecords();
+        } catch (IOException e) {
+            index.records.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * @param blobId the ID of a blob of a Java file
+     * @return the SATD of the blob, an empty list if the blob has none, or null if the blob is not indexed
+     */
+    public synchronized List<GroupedComment> getSATD(AnyObjectId blobId) {
+        final int recordNumber = this.recordNumbers.getOrDefault(getKey(blobId), -1);
+        if( recordNumber >= 0 ) {
+            try {
+                final List<GroupedComment> satd = this.readRecord(blobId, this.recordOffsets[recordNumber]);
+                if( satd != null ) {
+                    this.nHits++;
+                    return satd;
+                }
+            } catch (IOException e) {
+                System.err.println("\nError reading SATD index: " + e.getLocalizedMessage());
+            }
+        } else if( this.mightHaveNoSATD(blobId) ) {
+            this.nHits++;
+            return new ArrayList<>();
+        }
+        this.nMisses++;
+        return null;
+    }
+
+    /**
+     * Adds the SATD of a blob to the index, unless the blob is already indexed
+     * @param blobId the ID of a blob of a Java file
+     * @param satd every comment of the blob which is SATD
+     */
+    public synchronized void putSATD(AnyObjectId blobId, List<GroupedComment> satd) {
+        final long key = getKey(blobId);
+        if( this.recordNumbers.containsKey(key) ) {
+            return;
+        }
+        if( satd.isEmpty() ) {
+            if( !this.mightHaveNoSATD(blobId) ) {
+                this.addNoSATD(blobId);
+            }
+            return;
+        }
+        try {
+            final long offset = this.records.length();
+            this.records.seek(offset);
+            this.records.write(toRecord(blobId, satd));
+            this.addRecord(key, offset);
+        } catch (IOException e) {
+            System.err.println("\nError writing SATD index: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Saves the blobs without SATD, and makes sure every record is on disk
+     */
+    public synchronized void flush() {
+        try {
+            this.records.getFD().sync();
+            if( this.filtersChanged ) {
+                this.writeFilters();
+                this.filtersChanged = false;
+            }
+        } catch (IOException e) {
+            System.err.println("\nError saving SATD index: " + e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.flush();
+        this.records.close();
+    }
+
+    /**
+     * @return a one line summary of the blobs indexed, and how often blobs were found in the index
+     */
+    public synchronized String getReport() {
+        int nNoSATD = 0;
+        for( BloomFilter filter : this.noSATDFilters ) {
+            nNoSATD += filter.size();
+        }
+        final long nLookups = this.nHits + this.nMisses;
+        return String.format("%,d blobs with SATD, %,d without, %,d of %,d lookups found (%.1f%%)",
+                this.nRecords, nNoSATD, this.nHits, nLookups,
+                nLookups > 0 ? 100.0 * this.nHits / nLookups : 0);
+    }
+
+    // The name of the index files, which differs between configurations. Package-private so it can be tested
+    static String getName(SATDDetector detector) {
+        return String.format("%016x", getConfiguration(detector));
+    }
+
+    /**
+     * @return a fingerprint of everything, other than a blob's content, which decides its SATD
+     */
+    private static long getConfiguration(SATDDetector detector) {
+        long configuration = Fingerprint.add(Fingerprint.EMPTY, JavaParseUtil.PARSER_VERSION);
+        configuration = Fingerprint.add(configuration, detector.getVersion());
+        for( String word : new TreeSet<>(IgnorableWords.getIgnorableWords()) ) {
+            configuration = Fingerprint.add(configuration, word);
+        }
+        return configuration;
+    }
+
+    // Object IDs are hashes already, so their first bits are used as they are
+    private static long getKey(AnyObjectId blobId) {
+        return getIdBytes(blobId).getLong(0);
+    }
+
+    private static ByteBuffer getIdBytes(AnyObjectId blobId) {
+        final byte[] bytes = new byte[Constants.OBJECT_ID_LENGTH];
+        blobId.copyRawTo(bytes, 0);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private boolean mightHaveNoSATD(AnyObjectId blobId) {
+        final ByteBuffer id = getIdBytes(blobId);
+        for( BloomFilter filter : this.noSATDFilters ) {
+            if( filter.mightContain(id.getLong(0), id.getLong(Long.BYTES)) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNoSATD(AnyObjectId blobId) {
+        if( this.noSATDFilters.isEmpty() || this.noSATDFilters.get(this.noSATDFilters.size() - 1).isFull() ) {
+            final int capacity = this.noSATDFilters.isEmpty() ? INITIAL_FILTER_CAPACITY :
+                    this.noSATDFilters.get(this.noSATDFilters.size() - 1).getCapacity() * 2;
+            this.noSATDFilters.add(new BloomFilter(capacity, FALSE_POSITIVE_RATE));
+        }
+        final ByteBuffer id = getIdBytes(blobId);
+        this.noSATDFilters.get(this.noSATDFilters.size() - 1).add(id.getLong(0), id.getLong(Long.BYTES));
+        this.filtersChanged = true;
+    }
+
+    private void addRecord(long key, long offset) {
+        if( this.nRecords == this.recordOffsets.length ) {
+            this.recordOffsets = Arrays.copyOf(this.recordOffsets, this.nRecords * 2);
+        }
+        this.recordOffsets[this.nRecords] = offset;
+        this.recordNumbers.put(key, this.nRecords++);
+    }
+
+    private static byte[] toRecord(AnyObjectId blobId, List<GroupedComment> satd) throws IOException {
+        final ByteArrayOutputStream comments = new ByteArrayOutputStream();
+        final DataOutputStream commentsOut = new DataOutputStream(comments);
+        commentsOut.writeInt(satd.size());
+        for( GroupedComment comment : satd ) {
+            comment.writeTo(commentsOut);
+        }
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(RECORD_HEADER_BYTES + comments.size());
+        final DataOutputStream recordOut = new DataOutputStream(record);
+        recordOut.write(getIdBytes(blobId).array());
+        recordOut.writeInt(comments.size());
+        comments.writeTo(recordOut);
+        return record.toByteArray();
+    }
+
+    /**
+     * @return the SATD in the record, or null if the record is of another blob whose ID begins the same
+     */
+    private List<GroupedComment> readRecord(AnyObjectId blobId, long offset) throws IOException {
+        final byte[] header = new byte[RECORD_HEADER_BYTES];
+        this.records.seek(offset);
+        this.records.readFully(header);
+        if( !Arrays.equals(Arrays.copyOf(header, Constants.OBJECT_ID_LENGTH), getIdBytes(blobId).array()) ) {
+            return null;
+        }
+        final byte[] comments = new byte[ByteBuffer.wrap(header).getInt(Constants.OBJECT_ID_LENGTH)];
+        this.records.readFully(comments);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(comments));
+        final int nComments = in.readInt();
+        final List<GroupedComment> satd = new ArrayList<>(nComments);
+        for( int i = 0; i < nComments; i++ ) {
+            satd.add(GroupedComment.readFrom(in));
+        }
+        return satd;
+    }
+
+    /**
+     * Finds the offset of every record. A record which was only partly written is removed.
+     */
+    private void loadRecords() throws IOException {
+        final long length = this.records.length();
+        if( length == 0 ) {
+            this.records.writeInt(FORMAT_VERSION);
+            return;
+        }
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(this.records.getFD())));
+        final int version = in.readInt();
+        if( version != FORMAT_VERSION ) {
+            throw new IOException("Unsupported SATD index version: " + version);
+        }
+        final byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+        long offset = Integer.BYTES;
+        while( offset + RECORD_HEADER_BYTES <= length ) {
+            in.readFully(id);
+            final int commentsLength = in.readInt();
+            if( commentsLength < 0 || offset + RECORD_HEADER_BYTES + commentsLength > length ) {
+                break;
+            }
+            final long key = ByteBuffer.wrap(id).getLong(0);
+            if( !this.recordNumbers.containsKey(key) ) {
+                this.addRecord(key, offset);
+            }
+            skipFully(in, commentsLength);
+            offset += RECORD_HEADER_BYTES + commentsLength;
+        }
+        if( offset < length ) {
+            this.records.setLength(offset);
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int nBytes) throws IOException {
+        int remaining = nBytes;
+        while( remaining > 0 ) {
+            final int skipped = in.skipBytes(remaining);
+            if( skipped <= 0 ) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static List<BloomFilter> readFilters(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final int version = in.readInt();
+            if( version != FORMAT_VERSION ) {
+                throw new IOException("Unsupported SATD index version: " + version);
+            }
+            final int nFilters = in.readInt();
+            final List<BloomFilter> filters = new ArrayList<>(nFilters);
+            for( int i = 0; i < nFilters; i++ ) {
+                filters.add(BloomFilter.readFrom(in));
+            }
+            return filters;
+        }
+    }
+
+    /**
+     * Writes the filters to a temporary file first and then moves it over the existing filters,
+     * so a crash while writing will leave the previous filters intact
+     */
+    private void writeFilters() throws IOException {
+        final File tmpFile = new File(this.filtersFile.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(this.noSATDFilters.size());
+            for( BloomFilter filter : this.noSATDFilters ) {
+                filter.writeTo(out);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), this.filtersFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
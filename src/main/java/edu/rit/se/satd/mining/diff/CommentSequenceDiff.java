@@ -0,0 +1,274 @@
+package edu.rit.se.satd.mining.diff;
+
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.ParsedFile;
+import edu.rit.se.satd.comment.model.SourceOutline;
+import edu.rit.se.util.Fingerprint;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the edits to a file by diffing the sequence of its comments and declarations, rather
+ * than every line of it. The differencers only check whether edits touched a comment, the
+ * declaration of its class, or the method containing it, so only those lines need to be edited.
+ *
+ * Comments are found in both versions of the file by their text, classes by their name, and
+ * methods by their declaration, by diffing the sequences of them. The lines of each class and
+ * method found in both are then compared, to find those that were edited. Edits to the elements
+ * are turned back into edits to the lines of the elements, which are placed as a line diff would
+ * place them. An edited method body is put on the line of the body's closing brace, which is
+ * inside the method without being on the lines of any comment before it.
+ */
+class CommentSequenceDiff {
+
+    private CommentSequenceDiff() {}
+
+    /**
+     * @param oldFile the earlier version of a file, or null if it was added
+     * @param oldText the content of the earlier version
+     * @param newFile the file, or null if it was deleted
+     * @param newText the content of the file
+     * @return the edits from the earlier version to the file, with the lines numbered as they are by JGit
+     */
+    // Package-private so it can be benchmarked
+    static List<Edit> diff(ParsedFile oldFile, RawText oldText, ParsedFile newFile, RawText newText) {
+        final ElementSequence a = new ElementSequence(oldFile, oldText);
+        final ElementSequence b = new ElementSequence(newFile, newText);
+        final List<Edit> edits = new ArrayList<>();
+        int nextA = 0;
+        int nextB = 0;
+        for( Edit edit : CommitToCommitDiff.diffAlgo.diff(ElementComparator.INSTANCE, a, b) ) {
+            addChangedLines(a, nextA, edit.getBeginA(), b, nextB, edits);
+            if( edit.getLengthA() == edit.getLengthB() ) {
+                // Each element was replaced by one other, so only the lines of each are edited
+                for( int i = 0; i < edit.getLengthA(); i++ ) {
+                    edits.add(toLineEdit(a, edit.getBeginA() + i, edit.getBeginA() + i + 1,
+                            b, edit.getBeginB() + i, edit.getBeginB() + i + 1));
+                }
+            } else {
+                edits.add(toLineEdit(a, edit.getBeginA(), edit.getEndA(), b, edit.getBeginB(), edit.getEndB()));
+            }
+            nextA = edit.getEndA();
+            nextB = edit.getEndB();
+        }
+        addChangedLines(a, nextA, a.size(), b, nextB, edits);
+        return edits;
+    }
+
+    /**
+     * Adds an edit for each of the same elements whose lines were changed, such as an edited method body
+     */
+    private static void addChangedLines(ElementSequence a, int beginA, int endA, ElementSequence b, int beginB,
+                                        List<Edit> edits) {
+        for( int i = beginA, j = beginB; i < endA; i++, j++ ) {
+            if( !a.elements[i].hasSameLines(a.content, b.elements[j], b.content) ) {
+                edits.add(toLineEdit(a, i, i + 1, b, j, j + 1));
+            }
+        }
+    }
+
+    private static Edit toLineEdit(ElementSequence a, int beginA, int endA, ElementSequence b, int beginB, int endB) {
+        if( beginA == endA ) {
+            final int lineB = b.getBeginLine(beginB, endB) - 1;
+            final int lineA = a.getInsertionLine(beginA, b, beginB, lineB);
+            return new Edit(lineA, lineA, lineB, b.getEndLine(beginB, endB));
+        }
+        final int lineA = a.getBeginLine(beginA, endA) - 1;
+        if( beginB == endB ) {
+            final int lineB = b.getInsertionLine(beginB, a, beginA, lineA);
+            return new Edit(lineA, a.getEndLine(beginA, endA), lineB, lineB);
+        }
+        return new Edit(lineA, a.getEndLine(beginA, endA), b.getBeginLine(beginB, endB) - 1, b.getEndLine(beginB, endB));
+    }
+
+    private enum Kind {
+        // In the order elements on the same line are put in
+        CLASS, SIGNATURE, COMMENT, BODY
+    }
+
+    private static class Element {
+        private final Kind kind;
+        // The comment's text, or the declaration of the method
+        private final String text;
+        // Of the kind and text, which are compared to find the same elements in both versions of a file
+        private final long fingerprint;
+        // The lines which are edited if the element is
+        private final int beginLine;
+        private final int endLine;
+        // The byte offsets of the lines which are compared to find if the same element was changed
+        private final int beginOffset;
+        private final int endOffset;
+
+        private Element(Kind kind, String text, int beginLine, int endLine, int beginOffset, int endOffset) {
+            this.kind = kind;
+            this.text = text;
+            this.beginLine = beginLine;
+            this.endLine = endLine;
+            this.beginOffset = beginOffset;
+            this.endOffset = endOffset;
+            this.fingerprint = Fingerprint.add(Fingerprint.combine(Fingerprint.EMPTY, kind.ordinal()), text);
+        }
+
+        private boolean isSameAs(Element other) {
+            return this.fingerprint == other.fingerprint && this.kind == other.kind && this.text.equals(other.text);
+        }
+
+        private boolean hasSameLines(byte[] content, Element other, byte[] otherContent) {
+            // The lines are only compared once, so they are not hashed first
+            if( this.endOffset - this.beginOffset != other.endOffset - other.beginOffset ) {
+                return false;
+            }
+            for( int i = 0; i < this.endOffset - this.beginOffset; i++ ) {
+                if( content[this.beginOffset + i] != otherContent[other.beginOffset + i] ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class ElementSequence extends Sequence {
+        private final byte[] content;
+        // The offset of the first byte of each line, numbered from zero, followed by the length of the content
+        private final int[] lineOffsets;
+        private final Element[] elements;
+
+        private ElementSequence(ParsedFile file, RawText text) {
+            this.content = text.getRawContent();
+            this.lineOffsets = getLineOffsets(this.content);
+            final List<Element> elements = new ArrayList<>();
+            if( file != null ) {
+                final SourceOutline outline = file.getOutline();
+                for( int i = 0; i < outline.getClassCount(); i++ ) {
+                    final int nameBeginLine = outline.getClassNameBeginLine(i);
+                    final int nameEndLine = outline.getClassNameEndLine(i);
+                    if( nameBeginLine > 0 ) {
+                        // Found by its own name, since a line diff would not see its package change
+                        final String name = outline.getClassName(i);
+                        elements.add(this.element(Kind.CLASS, name.substring(name.lastIndexOf('.') + 1),
+                                nameBeginLine, nameEndLine, nameBeginLine, nameEndLine));
+                    }
+                }
+                for( int i = 0; i < outline.getMethodCount(); i++ ) {
+                    final int beginLine = outline.getMethodBeginLine(i);
+                    final int endLine = outline.getMethodEndLine(i);
+                    final int bodyBeginLine = outline.getMethodBodyBeginLine(i);
+                    final String declaration = outline.getMethodDeclaration(i);
+                    if( bodyBeginLine < 0 ) {
+                        elements.add(this.element(Kind.SIGNATURE, declaration, beginLine, endLine, beginLine, endLine));
+                    } else {
+                        elements.add(this.element(Kind.SIGNATURE, declaration,
+                                beginLine, bodyBeginLine, beginLine, bodyBeginLine));
+                        elements.add(this.element(Kind.BODY, declaration, endLine, endLine, bodyBeginLine + 1, endLine));
+                    }
+                }
+                for( GroupedComment comment : file.getComments() ) {
+                    elements.add(new Element(Kind.COMMENT, comment.getComment(),
+                            comment.getStartLine(), comment.getEndLine(), 0, 0));
+                }
+            }
+            elements.sort(Comparator.<Element>comparingInt(element -> element.beginLine)
+                    .thenComparing(element -> element.kind));
+            this.elements = elements.toArray(new Element[0]);
+        }
+
+        private Element element(Kind kind, String text, int beginLine, int endLine,
+                                int firstComparedLine, int lastComparedLine) {
+            final int beginOffset = this.getLineOffset(firstComparedLine);
+            final int endOffset = Math.max(beginOffset, this.getLineOffset(lastComparedLine + 1));
+            return new Element(kind, text, beginLine, endLine, beginOffset, endOffset);
+        }
+
+        /**
+         * @param line a line, numbered from one
+         * @return the offset of the first byte of the line, or the length of the content past the last line
+         */
+        private int getLineOffset(int line) {
+            return this.lineOffsets[Math.max(0, Math.min(line - 1, this.getLineCount()))];
+        }
+
+        private int getLineCount() {
+            return this.lineOffsets.length - 1;
+        }
+
+        @Override
+        public int size() {
+            return this.elements.length;
+        }
+
+        private int getBeginLine(int begin, int end) {
+            int beginLine = Integer.MAX_VALUE;
+            for( int i = begin; i < end; i++ ) {
+                beginLine = Math.min(beginLine, this.elements[i].beginLine);
+            }
+            return beginLine;
+        }
+
+        private int getEndLine(int begin, int end) {
+            int endLine = 0;
+            for( int i = begin; i < end; i++ ) {
+                endLine = Math.max(endLine, this.elements[i].endLine);
+            }
+            return endLine;
+        }
+
+        /**
+         * Finds where the lines of some elements of the other sequence were removed from this one,
+         * or would be inserted into it
+         * @param index the index of the element after the lines, after the same unchanged element as in the other sequence
+         * @param other the other sequence
+         * @param otherIndex the index of the first of the other sequence's elements
+         * @param otherLine the line before the other sequence's elements, numbered from one
+         * @return the line of this sequence after which the lines are, numbered from one
+         */
+        private int getInsertionLine(int index, ElementSequence other, int otherIndex, int otherLine) {
+            final int minLine = index > 0 ? this.elements[index - 1].endLine : 0;
+            final int maxLine = index < this.elements.length ? this.elements[index].beginLine - 1 : this.getLineCount();
+            // The lines between the elements are assumed to have moved with the unchanged element before them
+            final int lineOffset = index > 0 && otherIndex > 0 ?
+                    this.elements[index - 1].endLine - other.elements[otherIndex - 1].endLine : 0;
+            return Math.max(minLine, Math.min(maxLine, otherLine + lineOffset));
+        }
+
+        private static int[] getLineOffsets(byte[] content) {
+            int[] lineOffsets = new int[64];
+            int nLines = 0;
+            if( content.length > 0 ) {
+                lineOffsets[nLines++] = 0;
+            }
+            for( int i = 0; i < content.length; i++ ) {
+                // As with JGit, a line feed at the end of the content does not begin another line
+                if( content[i] == '\n' && i + 1 < content.length ) {
+                    if( nLines == lineOffsets.length ) {
+                        lineOffsets = Arrays.copyOf(lineOffsets, nLines * 2);
+                    }
+                    lineOffsets[nLines++] = i + 1;
+                }
+            }
+            final int[] offsets = Arrays.copyOf(lineOffsets, nLines + 1);
+            offsets[nLines] = content.length;
+            return offsets;
+        }
+    }
+
+    private static class ElementComparator extends SequenceComparator<ElementSequence> {
+        private static final ElementComparator INSTANCE = new ElementComparator();
+
+        @Override
+        public boolean equals(ElementSequence a, int ai, ElementSequence b, int bi) {
+            return a.elements[ai].isSameAs(b.elements[bi]);
+        }
+
+        @Override
+        public int hash(ElementSequence seq, int ptr) {
+            return Fingerprint.toHashCode(seq.elements[ptr].fingerprint);
+        }
+    }
+}
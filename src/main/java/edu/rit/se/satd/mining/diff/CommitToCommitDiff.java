@@ -1,40 +1,110 @@
 package edu.rit.se.satd.mining.diff;
 
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.git.GitUtil;
 import edu.rit.se.git.RepositoryCommitReference;
 import edu.rit.se.satd.comment.model.GroupedComment;
 import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
 import edu.rit.se.satd.model.SATDInstance;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class CommitToCommitDiff {
 
     private final Git gitInstance;
-    private final RevCommit newCommit;
     private final List<DiffEntry> diffEntries;
+    // The entries of files which had an earlier version, by their new path
+    private final Map<String, DiffEntry> entriesByNewPath = new HashMap<>();
     private final SATDDetector detector;
+    private final BlobReader blobs;
+    // The edits to each entry, computed the first time any differencer needs them
+    private final Map<DiffEntry, List<Edit>> editCache = new HashMap<>();
+    // Shared by every old file in the commit, so the comments SATD may have moved to are only indexed once
+    private OldFileDifferencer oldFileDifferencer = null;
+    private NewFileDifferencer newFileDifferencer = null;
 
     public static DiffAlgorithm diffAlgo = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS);
 
+    // Whether the differencers diff the comments and declarations of each file rather than its lines.
+    // Lines are still diffed for files which cannot be parsed, and to extract comments incrementally
+    public static boolean commentSequenceDiff = false;
+
+    // Whether SATD moved to another file may be changed as it was moved, or must be identical
+    public static boolean fuzzyMoveDetection = true;
+
+    /**
+     * @param oldRepo the older commit
+     * @param newRepo the newer commit
+     * @param detector the detector used to classify comments
+     * @param blobs the reader of the diff pair, which must stay open while the diff is used
+     */
     public CommitToCommitDiff(RepositoryCommitReference oldRepo,
-                              RepositoryCommitReference newRepo, SATDDetector detector) {
+                              RepositoryCommitReference newRepo, SATDDetector detector, BlobReader blobs) {
         this.gitInstance = newRepo.getGitInstance();
-        this.newCommit = newRepo.getCommit();
-        this.diffEntries = GitUtil.getDiffEntries(this.gitInstance, oldRepo.getCommit(), this.newCommit)
-                .stream()
-                .filter(diffEntry -> diffEntry.getOldPath().endsWith(".java") || diffEntry.getNewPath().endsWith(".java"))
-                .collect(Collectors.toList());
+        this.blobs = blobs;
+        final long start = MinerMetrics.start();
+        this.diffEntries = GitUtil.getDiffEntries(
+                this.gitInstance, oldRepo.getCommit(), newRepo.getCommit(), blobs.getObjectReader());
+        MinerMetrics.record(Stage.DIFF_ENTRIES, start);
+        for( DiffEntry entry : this.diffEntries ) {
+            if( entry.getMode(DiffEntry.Side.OLD) != FileMode.MISSING &&
+                    entry.getMode(DiffEntry.Side.NEW) != FileMode.MISSING && entry.getOldId().isComplete() ) {
+                this.entriesByNewPath.putIfAbsent(entry.getNewPath(), entry);
+            }
+        }
         this.detector = detector;
     }
 
+    /**
+     * @param newPath the path of a modified file in the new commit
+     * @return the ID of the blob of the file's earlier version, or null if the file was added
+     */
+    public ObjectId getOldBlobId(String newPath) {
+        final DiffEntry entry = this.entriesByNewPath.get(newPath);
+        return entry != null ? entry.getOldId().toObjectId() : null;
+    }
+
+    /**
+     * @param newPath the path of a modified file in the new commit, which has an earlier version
+     * @return the line edits from the file's earlier version, which are shared with the differencers
+     * unless they diff comments instead
+     */
+    public List<Edit> getEditsToNewFile(String newPath) {
+        final DiffEntry newEntry = this.entriesByNewPath.get(newPath);
+        if( commentSequenceDiff ) {
+            return FileDifferencer.computeLineEdits(this.blobs, newEntry);
+        }
+        return this.editCache.computeIfAbsent(newEntry, entry -> FileDifferencer.computeEdits(this.blobs, entry));
+    }
+
+    /**
+     * @return the IDs of the old and new blobs of every modified file
+     */
+    public List<ObjectId> getModifiedBlobIds() {
+        final List<ObjectId> blobIds = new ArrayList<>();
+        for( DiffEntry entry : this.diffEntries ) {
+            for( DiffEntry.Side side : DiffEntry.Side.values() ) {
+                if( entry.getMode(side) != FileMode.MISSING && entry.getId(side).isComplete() ) {
+                    blobIds.add(entry.getId(side).toObjectId());
+                }
+            }
+        }
+        return blobIds;
+    }
+
     public List<String> getModifiedFilesNew() {
         return this.diffEntries.stream()
                 .map(DiffEntry::getNewPath)
@@ -48,13 +118,20 @@ public class CommitToCommitDiff {
     }
 
     public List<SATDInstance> loadDiffsForOldFile(String oldFile, GroupedComment comment) {
-        return this.loadDiffsForFile(oldFile, comment,
-                new OldFileDifferencer(this.gitInstance, this.newCommit, this.detector, this.diffEntries));
+        if( this.oldFileDifferencer == null ) {
+            this.oldFileDifferencer =
+                    new OldFileDifferencer(this.gitInstance, this.blobs, this.editCache,
+                            this.detector, this.diffEntries);
+        }
+        return this.loadDiffsForFile(oldFile, comment, this.oldFileDifferencer);
 
     }
 
     public List<SATDInstance> loadDiffsForNewFile(String newFile, GroupedComment comment) {
-        return this.loadDiffsForFile(newFile, comment, new NewFileDifferencer(this.gitInstance));
+        if( this.newFileDifferencer == null ) {
+            this.newFileDifferencer = new NewFileDifferencer(this.gitInstance, this.blobs, this.editCache);
+        }
+        return this.loadDiffsForFile(newFile, comment, this.newFileDifferencer);
     }
 
     private List<SATDInstance> loadDiffsForFile(String file, GroupedComment comment, FileDifferencer differ) {
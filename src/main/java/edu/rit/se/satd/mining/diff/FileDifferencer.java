@@ -1,17 +1,26 @@
 package edu.rit.se.satd.mining.diff;
 
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.ParsedFile;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
 import edu.rit.se.satd.model.SATDInstance;
+import edu.rit.se.util.JavaParseUtil;
+import edu.rit.se.util.KnownParserException;
 import lombok.AllArgsConstructor;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.FileMode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Used to mine all SATDInstances from a file relating to a comment
@@ -21,19 +30,98 @@ public abstract class FileDifferencer {
 
     protected Git gitInstance;
 
+    // The reader of the diff pair, shared with the parser so each blob is only inflated once
+    protected BlobReader blobs;
+
+    // The edits to each entry of the commit, shared by every differencer of the commit
+    private Map<DiffEntry, List<Edit>> editCache;
+
     public abstract List<SATDInstance> getInstancesFromFile(DiffEntry d, GroupedComment c);
 
+    /**
+     * Gets the edits made to a file, which are computed once per entry and then reused
+     * for every comment in the file
+     * @param entry the diff entry of the file
+     * @return the edits made to the file
+     */
     List<Edit> getEdits(DiffEntry entry) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        DiffFormatter formatter = new DiffFormatter(outputStream);
-        formatter.setRepository(this.gitInstance.getRepository());
-        formatter.setContext(0);
-        formatter.setDiffAlgorithm(CommitToCommitDiff.diffAlgo);
+        return this.editCache.computeIfAbsent(entry, e -> computeEdits(this.blobs, e));
+    }
+
+    static List<Edit> computeEdits(BlobReader blobs, DiffEntry entry) {
+        // Timed once, including the line diff of files whose comments could not be diffed
+        final long start = MinerMetrics.start();
+        try {
+            if( CommitToCommitDiff.commentSequenceDiff ) {
+                final List<Edit> edits = computeCommentEdits(blobs, entry);
+                if( edits != null ) {
+                    return edits;
+                }
+            }
+            return diffLines(blobs, entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            MinerMetrics.record(Stage.EDIT_DIFF, start);
+        }
+    }
+
+    static List<Edit> computeLineEdits(BlobReader blobs, DiffEntry entry) {
+        final long start = MinerMetrics.start();
         try {
-            return formatter.toFileHeader(entry).toEditList();
+            return diffLines(blobs, entry);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            MinerMetrics.record(Stage.EDIT_DIFF, start);
+        }
+    }
+
+    private static List<Edit> diffLines(BlobReader blobs, DiffEntry entry) throws IOException {
+        final RawText oldText = getText(blobs, entry, DiffEntry.Side.OLD);
+        final RawText newText = getText(blobs, entry, DiffEntry.Side.NEW);
+        // Binary files have no line edits, as with DiffFormatter
+        if( RawText.isBinary(oldText.getRawContent()) || RawText.isBinary(newText.getRawContent()) ) {
+            return Collections.emptyList();
+        }
+        return CommitToCommitDiff.diffAlgo.diff(RawTextComparator.DEFAULT, oldText, newText);
+    }
+
+    /**
+     * Diffs the comments and declarations of both versions of a file. Both were usually parsed
+     * already, when the comments of the diff pair were found.
+     * @return the edits to the file, or null if either version could not be parsed, or if JavaParser
+     * numbers its lines differently than JGit, so its lines must be diffed instead
+     */
+    private static List<Edit> computeCommentEdits(BlobReader blobs, DiffEntry entry) throws IOException {
+        final RawText oldText = getText(blobs, entry, DiffEntry.Side.OLD);
+        final RawText newText = getText(blobs, entry, DiffEntry.Side.NEW);
+        if( !JavaParseUtil.hasSameLinesInJavaParser(oldText) || !JavaParseUtil.hasSameLinesInJavaParser(newText) ) {
+            return null;
+        }
+        try {
+            return CommentSequenceDiff.diff(
+                    getParsedFile(blobs, entry, DiffEntry.Side.OLD), oldText,
+                    getParsedFile(blobs, entry, DiffEntry.Side.NEW), newText);
+        } catch (KnownParserException e) {
+            return null;
+        }
+    }
+
+    private static ParsedFile getParsedFile(BlobReader blobs, DiffEntry entry, DiffEntry.Side side)
+            throws KnownParserException, IOException {
+        if( entry.getMode(side) == FileMode.MISSING ) {
+            return null;
+        }
+        return JavaParseUtil.parseBlob(blobs, entry.getId(side).toObjectId(), entry.getPath(side), null, null);
+    }
+
+    private static RawText getText(BlobReader blobs, DiffEntry entry, DiffEntry.Side side) throws IOException {
+        // Added files have no old blob, and deleted files have no new one
+        if( entry.getMode(side) == FileMode.MISSING ) {
+            return RawText.EMPTY_TEXT;
         }
+        return blobs.getRawText(entry.getId(side).toObjectId());
     }
 
     public abstract String getPertinentFilePath(DiffEntry entry);
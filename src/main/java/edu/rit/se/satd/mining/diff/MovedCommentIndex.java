@@ -0,0 +1,67 @@
+package edu.rit.se.satd.mining.diff;
+
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.detector.SATDDetector;
+import edu.rit.se.satd.model.SATDInstanceInFile;
+import edu.rit.se.util.MinHashIndex;
+import edu.rit.se.util.SimilarityUtil;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * An index of the comments which were added or changed in the new version of each file
+ * in a commit, used to find SATD which was moved from one file to another.
+ */
+@RequiredArgsConstructor
+class MovedCommentIndex {
+
+    // Used to confirm that similar comments are still SATD
+    private final SATDDetector detector;
+
+    private final MinHashIndex<IndexedComment> index = new MinHashIndex<>();
+
+    /**
+     * Adds a comment that was impacted by the edits to a file
+     * @param oldPath the path of the file before the commit
+     * @param newPath the path of the file after the commit
+     * @param comment the comment in the new version of the file
+     */
+    void add(String oldPath, String newPath, GroupedComment comment) {
+        this.index.add(comment.getComment(), new IndexedComment(oldPath, new SATDInstanceInFile(newPath, comment)));
+    }
+
+    /**
+     * Finds the comments that a comment may have been moved to. Identical comments are
+     * preferred, and only if there are none are SATD comments which are similar enough accepted.
+     * @param comment the comment which was removed
+     * @param curPath the path of the file the comment was removed from, which is not searched
+     * @param allowSimilar True if similar comments are accepted, or false if only identical comments are
+     * @return the comments the comment may have been moved to, in the order they were added
+     */
+    List<SATDInstanceInFile> findMatches(GroupedComment comment, String curPath,
+                                         boolean allowSimilar) {
+        final List<SATDInstanceInFile> candidates = this.index.getCandidates(comment.getComment()).stream()
+                .filter(candidate -> !candidate.oldPath.equals(curPath))
+                .map(candidate -> candidate.instance)
+                .collect(Collectors.toList());
+        final List<SATDInstanceInFile> identicalComments = candidates.stream()
+                .filter(candidate -> candidate.getComment().getComment().equals(comment.getComment()))
+                .collect(Collectors.toList());
+        if( !identicalComments.isEmpty() || !allowSimilar ) {
+            return identicalComments;
+        }
+        return candidates.stream()
+                .filter(candidate -> SimilarityUtil.commentsAreSimilar(comment, candidate.getComment()))
+                .filter(candidate -> this.detector.isSATD(candidate.getComment().getComment()))
+                .collect(Collectors.toList());
+    }
+
+    @AllArgsConstructor
+    private static class IndexedComment {
+        private final String oldPath;
+        private final SATDInstanceInFile instance;
+    }
+}
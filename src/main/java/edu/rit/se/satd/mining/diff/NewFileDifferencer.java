@@ -1,5 +1,6 @@
 package edu.rit.se.satd.mining.diff;
 
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.git.GitUtil;
 import edu.rit.se.satd.comment.model.GroupedComment;
 import edu.rit.se.satd.comment.model.NullGroupedComment;
@@ -7,16 +8,18 @@ import edu.rit.se.satd.model.SATDInstance;
 import edu.rit.se.satd.model.SATDInstanceInFile;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.Edit;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.eclipse.jgit.diff.DiffEntry.DEV_NULL;
 
 public class NewFileDifferencer extends FileDifferencer {
 
-    NewFileDifferencer(Git gitInstance) {
-        super(gitInstance);
+    NewFileDifferencer(Git gitInstance, BlobReader blobs, Map<DiffEntry, List<Edit>> editCache) {
+        super(gitInstance, blobs, editCache);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package edu.rit.se.satd.mining.diff;
 
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.git.GitUtil;
 import edu.rit.se.satd.comment.model.GroupedComment;
 import edu.rit.se.satd.comment.model.NullGroupedComment;
@@ -10,18 +11,15 @@ import edu.rit.se.satd.model.SATDInstanceInFile;
 import edu.rit.se.util.JavaParseUtil;
 import edu.rit.se.util.KnownParserException;
 import edu.rit.se.util.SimilarityUtil;
-import java.util.AbstractMap;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.Edit;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.treewalk.TreeWalk;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,15 +27,16 @@ import static edu.rit.se.satd.comment.model.NullGroupedComment.NULL_FIELD;
 
 public class OldFileDifferencer extends FileDifferencer {
 
-    private final RevCommit newCommit;
-
     private final SATDDetector detector;
 
     private final List<DiffEntry> otherDiffEntries;
 
-    OldFileDifferencer(Git gitInstance, RevCommit newCommit, SATDDetector detector, List<DiffEntry> otherDiffEntries) {
-        super(gitInstance);
-        this.newCommit = newCommit;
+    // Built when it is first needed
+    private MovedCommentIndex movedCommentIndex = null;
+
+    OldFileDifferencer(Git gitInstance, BlobReader blobs, Map<DiffEntry, List<Edit>> editCache,
+                       SATDDetector detector, List<DiffEntry> otherDiffEntries) {
+        super(gitInstance, blobs, editCache);
         this.detector = detector;
         // Remove all entries that detail removed files --
         //   We won't need to look through these for changed comments
@@ -58,7 +57,7 @@ public class OldFileDifferencer extends FileDifferencer {
         switch (diffEntry.getChangeType()) {
             case RENAME:
                 final RepositoryComments comInNewRepository =
-                        this.getCommentsInFileInNewRepository(diffEntry.getNewPath());
+                        this.getCommentsInFileInNewRepository(diffEntry);
                 final GroupedComment newComment = comInNewRepository.getComments().stream()
                         .filter(nc -> nc.getComment().equals(oldComment.getComment()))
                         .filter(nc -> nc.getContainingMethod().equals(oldComment.getContainingMethod()))
@@ -91,7 +90,7 @@ public class OldFileDifferencer extends FileDifferencer {
                         .collect(Collectors.toList());
                 // Find the comments in the new repository version
                 final RepositoryComments commentsInNewRepository =
-                        this.getCommentsInFileInNewRepository(diffEntry.getNewPath());
+                        this.getCommentsInFileInNewRepository(diffEntry);
                 // Find the comments created by deleting
                 final List<GroupedComment> updatedComments = editsToSATDComment.stream()
                         .flatMap( edit -> commentsInNewRepository.getComments().stream()
@@ -189,10 +188,33 @@ public class OldFileDifferencer extends FileDifferencer {
     }
 
 
-    private RepositoryComments getCommentsInFileInNewRepository(String fileName) {
+    /**
+     * Indexes the comments impacted by edits in each file in the new commit. The index is
+     * built the first time SATD is found missing, and then reused for the rest of the commit.
+     * @return the index of comments SATD may have been moved to
+     */
+    private MovedCommentIndex getMovedCommentIndex() {
+        if( this.movedCommentIndex == null ) {
+            this.movedCommentIndex = new MovedCommentIndex(this.detector);
+            for( DiffEntry diffEntry : this.otherDiffEntries ) {
+                final List<Edit> edits = this.getEdits(diffEntry);
+                this.getCommentsInFileInNewRepository(diffEntry).getComments().stream()
+                        // Only comments that were impacted by edits in this commit
+                        .filter(comment -> edits.stream()
+                                .anyMatch(edit -> editImpactedComment(edit, comment, 0, false)))
+                        .forEach(comment -> this.movedCommentIndex.add(
+                                diffEntry.getOldPath(), diffEntry.getNewPath(), comment));
+            }
+        }
+        return this.movedCommentIndex;
+    }
+
+    private RepositoryComments getCommentsInFileInNewRepository(DiffEntry diffEntry) {
         final RepositoryComments comments = new RepositoryComments();
         try {
-            comments.addComments(JavaParseUtil.parseFileForComments(this.getFileContents(fileName), fileName));
+            // The new file was usually parsed already, when the comments of the new commit were found
+            comments.addComments(JavaParseUtil.parseBlobForComments(this.blobs, diffEntry.getNewId().toObjectId(),
+                    diffEntry.getNewPath(), null, null));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         } catch (KnownParserException e) {
@@ -201,11 +223,6 @@ public class OldFileDifferencer extends FileDifferencer {
         return comments;
     }
 
-    private InputStream getFileContents(String fileName) throws IOException {
-        final TreeWalk walker = TreeWalk.forPath(this.gitInstance.getRepository(), fileName, this.newCommit.getTree());
-        return this.gitInstance.getRepository().open(walker.getObjectId(0)).openStream();
-    }
-
     private boolean editImpactedComment(Edit edit, GroupedComment comment, int boundIncrease, boolean isOld) {
         return isOld ? GitUtil.editOccursInOldFileBetween(edit,
                 comment.getStartLine() - boundIncrease, comment.getEndLine() + boundIncrease)
@@ -241,21 +258,8 @@ public class OldFileDifferencer extends FileDifferencer {
     }
 
     private List<SATDInstanceInFile> getOtherInstancesInCommitFiles(GroupedComment commentToMatch, String curPath) {
-        final List<SATDInstanceInFile> allInstances = this.otherDiffEntries.stream()
-                .filter(diffEntry -> !diffEntry.getOldPath().equals(curPath))
-                .map(diffEntry -> new AbstractMap.SimpleEntry<>(diffEntry, this.getCommentsInFileInNewRepository(diffEntry.getNewPath())))
-                .flatMap(pair ->
-                        ((RepositoryComments)pair.getValue()).getComments().stream()
-                                // Only comments that match this comment
-                                // TODO - can we apply the same thresholding logic here?
-                                .filter(comm -> commentToMatch.getComment().equals(comm.getComment()))
-                                // Only comments that were impacted by edits in this commit
-                                .filter(comment -> this.getEdits((DiffEntry)pair.getKey()).stream()
-                                        .anyMatch(edit -> editImpactedComment(edit, comment, 0, false)))
-                                .map(comm -> new SATDInstanceInFile(
-                                        ((DiffEntry)pair.getKey()).getNewPath(), comm
-                                )))
-                .collect(Collectors.toList());
+        final List<SATDInstanceInFile> allInstances = this.getMovedCommentIndex()
+                .findMatches(commentToMatch, curPath, CommitToCommitDiff.fuzzyMoveDetection);
         final List<SATDInstanceInFile> instancesWithSameMethod =
                 allInstances.stream()
                         .filter(instanceInFile ->
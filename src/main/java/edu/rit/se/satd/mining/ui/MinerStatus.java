@@ -3,10 +3,20 @@ package edu.rit.se.satd.mining.ui;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+/**
+ * Reports the progress of mining a single repository.
+ *
+ * Progress is recorded in atomic counters, so it can be updated cheaply from any thread.
+ * The progress is rendered on a fixed-rate background tick rather than on every update,
+ * either as a console status line or as a JSON line for other tools to read.
+ */
 @RequiredArgsConstructor
 public class MinerStatus {
 
@@ -17,115 +27,236 @@ public class MinerStatus {
     private static final String STATUS_COMPLETE = "Complete";
     private static final String STATUS_ERROR = "Error";
 
+    // How often the progress is rendered in each output mode
+    private static final long CONSOLE_REFRESH_MS = 250;
+    private static final long JSON_REFRESH_MS = 1000;
+
+    // A single daemon thread renders the progress of every miner
+    private static final ScheduledExecutorService RENDER_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "miner-status");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum OutputMode {
+        // A status line on the console, overwritten in place
+        CONSOLE,
+        // One JSON object per line on stdout
+        JSON,
+        // No progress output
+        NONE
+    }
+
     @NonNull
     private String repoName;
 
-    private int nDiffsPromised = 0;
-    private int nDiffsComplete = 0;
-    private int nErrorsEncountered = 0;
-    private String displayWindow = STATUS_INITIALIZING;
-    private String status = STATUS_INITIALIZING;
-    private int lastPrintLen = 0;
+    private final AtomicInteger nDiffsPromised = new AtomicInteger();
+    private final AtomicInteger nDiffsComplete = new AtomicInteger();
+    private final AtomicInteger nErrorsEncountered = new AtomicInteger();
+    private volatile String displayWindow = STATUS_INITIALIZING;
+    private volatile String status = STATUS_INITIALIZING;
 
     // Fields for time remaining
-    private long timeMiningStarted = -1;
+    private volatile long timeMiningStarted = -1;
 
-    private boolean outputEnabled = true;
+    private volatile OutputMode outputMode = OutputMode.CONSOLE;
+
+    // Guarded by this
+    private ScheduledFuture<?> renderTask = null;
+    private int lastPrintLen = 0;
+    private String lastRendered = null;
 
     public void setNDiffsPromised(int promised) {
-        this.nDiffsPromised = promised;
-        this.updateOutput();
+        this.nDiffsPromised.set(promised);
     }
 
     public void fulfilDiffPromise() {
-        this.nDiffsComplete++;
-        this.updateOutput();
+        this.nDiffsComplete.incrementAndGet();
+    }
+
+    public void fulfilDiffPromises(int nFulfilled) {
+        this.nDiffsComplete.addAndGet(nFulfilled);
     }
 
     public void addErrorEncountered() {
-        this.nErrorsEncountered++;
-        this.updateOutput();
+        this.nErrorsEncountered.incrementAndGet();
     }
 
     public void setDisplayWindow(String text) {
         this.displayWindow = text;
-        this.updateOutput();
     }
 
     public void beginInitialization() {
         this.status = STATUS_INITIALIZING;
-        this.updateOutput();
+        this.startRendering();
     }
 
     public void beginCalculatingDiffs() {
         this.status = STATUS_CALCULATING_DIFFS;
-        this.updateOutput();
+        this.startRendering();
     }
 
     public void beginMiningSATD() {
         this.status = STATUS_MINING_SATD;
         this.timeMiningStarted = System.currentTimeMillis();
-        this.updateOutput();
+        this.startRendering();
     }
 
     public void beginCleanup() {
         this.status = STATUS_CLEANING_UP;
-        this.updateOutput();
+        this.startRendering();
     }
 
     public void setComplete(long msElapsed) {
         this.status = STATUS_COMPLETE;
-        System.out.print("\r" + StringUtils.repeat(" ", this.lastPrintLen));
-        System.out.println(String.format("\rCompleted analyzing %d diffs in %,dms (%.2fms/diff, %d error%s) -- %s",
-                this.nDiffsComplete,
-                msElapsed,
-                ((float)msElapsed)/this.nDiffsComplete,
-                this.nErrorsEncountered,
-                this.nErrorsEncountered != 1 ? "s" : "",
-                this.repoName)
-        );
+        this.stopRendering();
+        final int nDiffsComplete = this.nDiffsComplete.get();
+        final int nErrorsEncountered = this.nErrorsEncountered.get();
+        synchronized (this) {
+            if( this.outputMode == OutputMode.JSON ) {
+                System.out.println(this.getJSONLine(msElapsed));
+                return;
+            }
+            System.out.print("\r" + StringUtils.repeat(" ", this.lastPrintLen));
+            System.out.println(String.format("\rCompleted analyzing %d diffs in %,dms (%.2fms/diff, %d error%s) -- %s",
+                    nDiffsComplete,
+                    msElapsed,
+                    ((float)msElapsed)/nDiffsComplete,
+                    nErrorsEncountered,
+                    nErrorsEncountered != 1 ? "s" : "",
+                    this.repoName)
+            );
+        }
     }
 
     public void setError() {
         this.status = STATUS_ERROR;
+        this.stopRendering();
+        synchronized (this) {
+            if( this.outputMode == OutputMode.JSON ) {
+                System.out.println(this.getJSONLine(-1));
+            }
+        }
         System.err.println(String.format("\rError analyzing %s", this.repoName));
     }
 
     public void setOutputEnabled(boolean enabled) {
-        this.outputEnabled = enabled;
-    }
-
-    private void updateOutput() {
-        if( outputEnabled ) {
-            String out = String.format("\r%s -- %-20s|%s| %s (%.1f%%, %d/%d, %d error%s) -- %s\r",
-                    this.repoName,
-                    this.status,
-                    this.getLoadBar(),
-                    this.getTimeRemaining(),
-                    100 * this.getPercComplete(),
-                    this.nDiffsComplete,
-                    this.nDiffsPromised,
-                    this.nErrorsEncountered,
-                    nErrorsEncountered != 1 ? "s" : "",
-                    this.displayWindow);
-            this.lastPrintLen = out.length();
-            System.out.print("\r" + StringUtils.repeat(" ", this.lastPrintLen) + "\r" + out);
+        this.setOutputMode(enabled ? OutputMode.CONSOLE : OutputMode.NONE);
+    }
+
+    public void setOutputMode(@NonNull OutputMode mode) {
+        this.outputMode = mode;
+        if( mode == OutputMode.NONE ) {
+            this.stopRendering();
+        }
+    }
+
+    private synchronized void startRendering() {
+        if( this.renderTask == null && this.outputMode != OutputMode.NONE ) {
+            final long refreshMS = this.outputMode == OutputMode.JSON ? JSON_REFRESH_MS : CONSOLE_REFRESH_MS;
+            this.renderTask = RENDER_EXECUTOR.scheduleAtFixedRate(
+                    this::render, 0, refreshMS, TimeUnit.MILLISECONDS);
         }
     }
 
-    private String getLoadBar() {
+    private synchronized void stopRendering() {
+        if( this.renderTask != null ) {
+            this.renderTask.cancel(false);
+            this.renderTask = null;
+        }
+    }
+
+    private synchronized void render() {
+        // The task may have been cancelled while this run was waiting to start
+        if( this.renderTask == null ) {
+            return;
+        }
+        switch (this.outputMode) {
+            case CONSOLE:
+                this.renderConsoleLine();
+                break;
+            case JSON:
+                final String line = this.getJSONLine(-1);
+                // Only report progress that changed since the last line
+                if( !line.equals(this.lastRendered) ) {
+                    System.out.println(line);
+                    this.lastRendered = line;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void renderConsoleLine() {
+        final int nDiffsComplete = this.nDiffsComplete.get();
+        final int nDiffsPromised = this.nDiffsPromised.get();
+        final int nErrorsEncountered = this.nErrorsEncountered.get();
+        final float percComplete = getPercComplete(nDiffsComplete, nDiffsPromised);
+        String out = String.format("\r%s -- %-20s|%s| %s (%.1f%%, %d/%d, %d error%s) -- %s\r",
+                this.repoName,
+                this.status,
+                getLoadBar(percComplete),
+                this.getTimeRemaining(nDiffsComplete, nDiffsPromised),
+                100 * percComplete,
+                nDiffsComplete,
+                nDiffsPromised,
+                nErrorsEncountered,
+                nErrorsEncountered != 1 ? "s" : "",
+                this.displayWindow);
+        if( out.equals(this.lastRendered) ) {
+            return;
+        }
+        this.lastRendered = out;
+        final int previousPrintLen = this.lastPrintLen;
+        this.lastPrintLen = out.length();
+        System.out.print("\r" + StringUtils.repeat(" ", previousPrintLen) + "\r" + out);
+        System.out.flush();
+    }
+
+    /**
+     * @param msElapsed the time mining took, or -1 if it has not completed
+     * @return the current progress as a single line JSON object
+     */
+    private String getJSONLine(long msElapsed) {
+        final int nDiffsComplete = this.nDiffsComplete.get();
+        final int nDiffsPromised = this.nDiffsPromised.get();
+        final long msRemaining = this.getMSRemaining(nDiffsComplete, nDiffsPromised);
+        final StringBuilder line = new StringBuilder(256)
+                .append("{\"repo\":\"").append(StringEscapeUtils.escapeJson(this.repoName))
+                .append("\",\"status\":\"").append(this.status)
+                .append("\",\"diffs_complete\":").append(nDiffsComplete)
+                .append(",\"diffs_promised\":").append(nDiffsPromised)
+                .append(",\"errors\":").append(this.nErrorsEncountered.get())
+                .append(",\"ms_remaining\":").append(msRemaining >= 0 ? String.valueOf(msRemaining) : "null")
+                .append(",\"window\":\"").append(StringEscapeUtils.escapeJson(this.displayWindow)).append('"');
+        if( msElapsed >= 0 ) {
+            line.append(",\"ms_elapsed\":").append(msElapsed);
+        }
+        return line.append('}').toString();
+    }
+
+    private static String getLoadBar(float percComplete) {
         return IntStream.range(0, 11)
-                .mapToObj(i -> i <= 10 * this.getPercComplete() ? "▰" : "▱")
+                .mapToObj(i -> i <= 10 * percComplete ? "▰" : "▱")
                 .collect(Collectors.joining());
     }
 
-    private String getTimeRemaining() {
-        if( this.timeMiningStarted == -1 || this.nDiffsComplete < 1 ) {
+    private long getMSRemaining(int nDiffsComplete, int nDiffsPromised) {
+        final long timeMiningStarted = this.timeMiningStarted;
+        if( timeMiningStarted == -1 || nDiffsComplete < 1 ) {
+            return -1;
+        }
+        return (System.currentTimeMillis() - timeMiningStarted)
+                * Math.max(nDiffsPromised - nDiffsComplete, 0)
+                / nDiffsComplete;
+    }
+
+    private String getTimeRemaining(int nDiffsComplete, int nDiffsPromised) {
+        final long estimatedMSRemaining = this.getMSRemaining(nDiffsComplete, nDiffsPromised);
+        if( estimatedMSRemaining < 0 ) {
             return "-";
         }
-        final long estimatedMSRemaining = (System.currentTimeMillis() - this.timeMiningStarted)
-                * (this.nDiffsPromised - this.nDiffsComplete)
-                / this.nDiffsComplete;
         final long estimatedSecRemaining = estimatedMSRemaining / 1000;
         if( estimatedSecRemaining < 60 ) {
             return String.format("%ds remaining", estimatedSecRemaining);
@@ -134,7 +265,7 @@ public class MinerStatus {
         return String.format("%d min%s remaining", estimatedMinsRemaining, estimatedMinsRemaining == 1 ? "" : "s");
     }
 
-    private float getPercComplete() {
-        return this.nDiffsPromised > 0 ? (float) this.nDiffsComplete / (float) this.nDiffsPromised : 0;
+    private static float getPercComplete(int nDiffsComplete, int nDiffsPromised) {
+        return nDiffsPromised > 0 ? (float) nDiffsComplete / (float) nDiffsPromised : 0;
     }
 }
@@ -1,9 +1,9 @@
 package edu.rit.se.satd.model;
 
+import edu.rit.se.git.model.CommitMetaData;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,10 +23,14 @@ public class SATDDifference {
     @Getter
     @NonNull
     final private String projectURI;
+    // The metadata of the commits rather than the commits themselves, so a diff does not
+    // keep the commit objects and their bodies alive while it waits to be written
     @Getter
-    final private RevCommit oldCommit;
+    @NonNull
+    final private CommitMetaData oldCommit;
     @Getter
-    final private RevCommit newCommit;
+    @NonNull
+    final private CommitMetaData newCommit;
 
     // The lists of the different types of SATD that can be found in a project
     @Getter
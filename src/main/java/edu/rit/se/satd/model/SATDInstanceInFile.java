@@ -1,32 +1,44 @@
 package edu.rit.se.satd.model;
 
 import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.util.Fingerprint;
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 public class SATDInstanceInFile {
 
     @Getter
-    @NonNull
-    private String fileName;
+    private final String fileName;
 
     @Getter
-    @NonNull
-    private GroupedComment comment;
+    private final GroupedComment comment;
+
+    // The fingerprint of the file name and the comment's content
+    @Getter
+    private final long fingerprint;
+
+    public SATDInstanceInFile(@NonNull String fileName, @NonNull GroupedComment comment) {
+        this.fileName = fileName;
+        this.comment = comment;
+        this.fingerprint = Fingerprint.combine(
+                Fingerprint.add(Fingerprint.EMPTY, this.fileName), this.comment.getFingerprint());
+    }
 
     @Override
     public int hashCode() {
-        return (this.fileName + this.comment.getComment() +
-                this.comment.getCommentType() + this.comment.getContainingClass() +
-                this.comment.getContainingMethod()).hashCode();
+        return Fingerprint.toHashCode(this.fingerprint);
     }
 
     @Override
     public boolean equals(Object obj) {
+        if( this == obj ) {
+            return true;
+        }
         if( obj instanceof  SATDInstanceInFile ) {
-            return this.hashCode() == obj.hashCode();
+            final SATDInstanceInFile other = (SATDInstanceInFile) obj;
+            return this.fingerprint == other.fingerprint &&
+                    this.fileName.equals(other.fileName) &&
+                    this.comment.hasSameContentAs(other.comment);
         }
         return false;
     }
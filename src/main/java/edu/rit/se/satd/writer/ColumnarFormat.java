@@ -0,0 +1,87 @@
+package edu.rit.se.satd.writer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Describes the layout of the columnar SATD output written by ColumnarOutputWriter.
+ *
+ * A file is a sequence of segments, one per writer that appended to it. Each segment is:
+ *   MAGIC, then the number and names of each column group, then any number of record batches,
+ *   then a batch with a row count of 0.
+ * Each record batch is:
+ *   the row count, the strings added to the segment's dictionary by this batch,
+ *   then every column in declaration order. String columns hold dictionary codes,
+ *   int columns hold ints and long columns hold longs.
+ *
+ * String values share a single dictionary per segment, so a comment or path which is
+ * repeated across many rows (or in both the old and new columns) is only stored once.
+ */
+public final class ColumnarFormat {
+
+    static final String MAGIC = "SATDCOL1";
+
+    // Dictionary code written in place of a null string
+    static final int NULL_CODE = -1;
+
+    // Value written in place of a null date
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private ColumnarFormat() {}
+
+    /**
+     * Writes a string of any length as its UTF-8 byte count followed by the bytes
+     */
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString
+     */
+    static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public enum StringColumn {
+        PROJECT_NAME,
+        PROJECT_URL,
+        OLD_COMMIT_HASH,
+        NEW_COMMIT_HASH,
+        NEW_COMMIT_AUTHOR_NAME,
+        NEW_COMMIT_AUTHOR_EMAIL,
+        OLD_PATH,
+        OLD_COMMENT,
+        OLD_COMMENT_TYPE,
+        OLD_CONTAINING_CLASS,
+        OLD_CONTAINING_METHOD,
+        NEW_PATH,
+        NEW_COMMENT,
+        NEW_COMMENT_TYPE,
+        NEW_CONTAINING_CLASS,
+        NEW_CONTAINING_METHOD,
+        RESOLUTION
+    }
+
+    public enum IntColumn {
+        OLD_START_LINE,
+        OLD_END_LINE,
+        NEW_START_LINE,
+        NEW_END_LINE,
+        SATD_INSTANCE_ID,
+        PARENT_INSTANCE_ID,
+        DUPLICATION_ID
+    }
+
+    public enum LongColumn {
+        OLD_COMMIT_DATE,
+        NEW_COMMIT_DATE,
+        NEW_AUTHOR_DATE
+    }
+}
@@ -0,0 +1,229 @@
+package edu.rit.se.satd.writer;
+
+import edu.rit.se.git.model.CommitMetaData;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.WriterFlushEvent;
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.model.SATDInstance;
+import edu.rit.se.satd.writer.ColumnarFormat.IntColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.LongColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.StringColumn;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An OutputWriter which writes SATD instances in a columnar binary format, in record
+ * batches of a configurable number of rows. All string columns are dictionary-encoded.
+ * See ColumnarFormat for the layout, and ColumnarReader to read the output back.
+ */
+public class ColumnarOutputWriter implements OutputWriter {
+
+    public static final int DEFAULT_BATCH_SIZE = 65536;
+
+    private static final int N_STRING_COLUMNS = StringColumn.values().length;
+    private static final int N_INT_COLUMNS = IntColumn.values().length;
+    private static final int N_LONG_COLUMNS = LongColumn.values().length;
+
+    private final FileOutputStream fileOut;
+    private final DataOutputStream out;
+    private final int batchSize;
+    // Whether the header of this writer's segment was written
+    private boolean segmentStarted = false;
+
+    // The dictionary is shared by all string columns in this segment
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newDictionaryEntries = new ArrayList<>();
+
+    private final int[][] stringColumns;
+    private final int[][] intColumns;
+    private final long[][] longColumns;
+    private int rowsInBatch = 0;
+
+    public ColumnarOutputWriter(String outFile, int batchSize) throws IOException {
+        if( batchSize < 1 ) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.stringColumns = new int[N_STRING_COLUMNS][batchSize];
+        this.intColumns = new int[N_INT_COLUMNS][batchSize];
+        this.longColumns = new long[N_LONG_COLUMNS][batchSize];
+        this.fileOut = new FileOutputStream(outFile, true);
+        this.out = new DataOutputStream(new BufferedOutputStream(this.fileOut, 1 << 16));
+    }
+
+    @Override
+    public void writeDiff(SATDDifference diff) throws IOException {
+        final CommitMetaData oldCommit = diff.getOldCommit();
+        final CommitMetaData newCommit = diff.getNewCommit();
+        for( SATDInstance satdInstance : diff.getSatdInstances() ) {
+            final GroupedComment oldComment = satdInstance.getOldInstance().getComment();
+            final GroupedComment newComment = satdInstance.getNewInstance().getComment();
+
+            this.setString(StringColumn.PROJECT_NAME, diff.getProjectName());
+            this.setString(StringColumn.PROJECT_URL, diff.getProjectURI());
+            this.setString(StringColumn.OLD_COMMIT_HASH, oldCommit.getHash());
+            this.setString(StringColumn.NEW_COMMIT_HASH, newCommit.getHash());
+            this.setString(StringColumn.NEW_COMMIT_AUTHOR_NAME, newCommit.getAuthorName());
+            this.setString(StringColumn.NEW_COMMIT_AUTHOR_EMAIL, newCommit.getAuthorEmail());
+            this.setString(StringColumn.OLD_PATH, satdInstance.getOldInstance().getFileName());
+            this.setString(StringColumn.OLD_COMMENT, oldComment.getComment());
+            this.setString(StringColumn.OLD_COMMENT_TYPE, oldComment.getCommentType());
+            this.setString(StringColumn.OLD_CONTAINING_CLASS, oldComment.getContainingClass());
+            this.setString(StringColumn.OLD_CONTAINING_METHOD, oldComment.getContainingMethod());
+            this.setString(StringColumn.NEW_PATH, satdInstance.getNewInstance().getFileName());
+            this.setString(StringColumn.NEW_COMMENT, newComment.getComment());
+            this.setString(StringColumn.NEW_COMMENT_TYPE, newComment.getCommentType());
+            this.setString(StringColumn.NEW_CONTAINING_CLASS, newComment.getContainingClass());
+            this.setString(StringColumn.NEW_CONTAINING_METHOD, newComment.getContainingMethod());
+            this.setString(StringColumn.RESOLUTION, satdInstance.getResolution().name());
+
+            this.setInt(IntColumn.OLD_START_LINE, oldComment.getStartLine());
+            this.setInt(IntColumn.OLD_END_LINE, oldComment.getEndLine());
+            this.setInt(IntColumn.NEW_START_LINE, newComment.getStartLine());
+            this.setInt(IntColumn.NEW_END_LINE, newComment.getEndLine());
+            this.setInt(IntColumn.SATD_INSTANCE_ID, satdInstance.getId());
+            this.setInt(IntColumn.PARENT_INSTANCE_ID, satdInstance.getParentId());
+            this.setInt(IntColumn.DUPLICATION_ID, satdInstance.getDuplicationId());
+
+            this.setDate(LongColumn.OLD_COMMIT_DATE, oldCommit.getCommitDate());
+            this.setDate(LongColumn.NEW_COMMIT_DATE, newCommit.getCommitDate());
+            this.setDate(LongColumn.NEW_AUTHOR_DATE, newCommit.getAuthorDate());
+
+            if( ++this.rowsInBatch == this.batchSize ) {
+                this.writeBatch();
+            }
+        }
+    }
+
+    private void setString(StringColumn column, String value) {
+        int code = ColumnarFormat.NULL_CODE;
+        if( value != null ) {
+            final Integer existingCode = this.dictionary.get(value);
+            if( existingCode != null ) {
+                code = existingCode;
+            } else {
+                code = this.dictionary.size();
+                this.dictionary.put(value, code);
+                this.newDictionaryEntries.add(value);
+            }
+        }
+        this.stringColumns[column.ordinal()][this.rowsInBatch] = code;
+    }
+
+    private void setInt(IntColumn column, int value) {
+        this.intColumns[column.ordinal()][this.rowsInBatch] = value;
+    }
+
+    private void setDate(LongColumn column, Date value) {
+        this.longColumns[column.ordinal()][this.rowsInBatch] =
+                value != null ? value.getTime() : ColumnarFormat.NULL_DATE;
+    }
+
+    private void startSegment() throws IOException {
+        if( this.segmentStarted ) {
+            return;
+        }
+        this.segmentStarted = true;
+        this.out.writeUTF(ColumnarFormat.MAGIC);
+        this.out.writeInt(N_STRING_COLUMNS);
+        for( StringColumn column : StringColumn.values() ) {
+            this.out.writeUTF(column.name());
+        }
+        this.out.writeInt(N_INT_COLUMNS);
+        for( IntColumn column : IntColumn.values() ) {
+            this.out.writeUTF(column.name());
+        }
+        this.out.writeInt(N_LONG_COLUMNS);
+        for( LongColumn column : LongColumn.values() ) {
+            this.out.writeUTF(column.name());
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        final WriterFlushEvent event = FlightEvents.beginWriterFlush();
+        this.startSegment();
+        this.out.writeInt(this.rowsInBatch);
+        // Only the dictionary entries first seen in this batch are written
+        this.out.writeInt(this.newDictionaryEntries.size());
+        for( String entry : this.newDictionaryEntries ) {
+            ColumnarFormat.writeString(this.out, entry);
+        }
+        this.newDictionaryEntries.clear();
+        for( int[] column : this.stringColumns ) {
+            for( int i = 0; i < this.rowsInBatch; i++ ) {
+                this.out.writeInt(column[i]);
+            }
+        }
+        for( int[] column : this.intColumns ) {
+            for( int i = 0; i < this.rowsInBatch; i++ ) {
+                this.out.writeInt(column[i]);
+            }
+        }
+        for( long[] column : this.longColumns ) {
+            for( int i = 0; i < this.rowsInBatch; i++ ) {
+                this.out.writeLong(column[i]);
+            }
+        }
+        this.rowsInBatch = 0;
+        FlightEvents.commitWriterFlush(event, this);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Write the rows held so far, even if the batch is not yet full. The segment is always
+        // started, so the output ends inside this writer's segment once it is flushed
+        this.startSegment();
+        if( this.rowsInBatch > 0 ) {
+            this.writeBatch();
+        }
+        this.out.flush();
+        // The output must be on disk before a checkpoint refers to its length
+        this.fileOut.getFD().sync();
+    }
+
+    @Override
+    public long getOutputLength() throws IOException {
+        this.out.flush();
+        return this.fileOut.getChannel().size();
+    }
+
+    /**
+     * Discards the batches written after a checkpoint, and ends the segment they were written to.
+     * A segment is always open once the output is flushed, so the output ended inside one at the checkpoint.
+     */
+    @Override
+    public void truncateOutput(long length) throws IOException {
+        if( this.segmentStarted ) {
+            throw new IllegalStateException("Output cannot be truncated once diffs were written");
+        }
+        final long outputLength = this.fileOut.getChannel().size();
+        if( outputLength < length ) {
+            throw new IOException("Output is shorter than at the checkpoint: " + outputLength + " < " + length);
+        }
+        this.fileOut.getChannel().truncate(length);
+        // An empty batch marks the end of the segment
+        this.out.writeInt(0);
+        this.out.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.startSegment();
+            if( this.rowsInBatch > 0 ) {
+                this.writeBatch();
+            }
+            // An empty batch marks the end of the segment
+            this.out.writeInt(0);
+            this.out.close();
+        } catch (IOException e) {
+            System.err.println("Error closing columnar output: " + e.getLocalizedMessage());
+        }
+    }
+}
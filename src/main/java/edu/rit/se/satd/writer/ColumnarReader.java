@@ -0,0 +1,185 @@
+package edu.rit.se.satd.writer;
+
+import edu.rit.se.satd.writer.ColumnarFormat.IntColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.LongColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.StringColumn;
+import lombok.Getter;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the record batches written by ColumnarOutputWriter.
+ *
+ * Can also be run directly to dump a file as tab-separated rows:
+ *   java -cp satd-analyzer.jar edu.rit.se.satd.writer.ColumnarReader <file>
+ */
+public class ColumnarReader implements Closeable {
+
+    private final DataInputStream in;
+
+    // The dictionary of the segment currently being read
+    private final List<String> dictionary = new ArrayList<>();
+    private boolean inSegment = false;
+
+    public ColumnarReader(String inFile) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(inFile), 1 << 16));
+    }
+
+    /**
+     * @return the next record batch in the file, or null if the end of the file was reached
+     * @throws IOException thrown if the file could not be read or is not in the expected format
+     */
+    public Batch nextBatch() throws IOException {
+        while( true ) {
+            if( !this.inSegment ) {
+                if( !this.readSegmentHeader() ) {
+                    return null;
+                }
+            }
+            final int rowCount = this.in.readInt();
+            if( rowCount == 0 ) {
+                // End of the segment, so look for another appended after it
+                this.inSegment = false;
+                continue;
+            }
+            final int newEntries = this.in.readInt();
+            for( int i = 0; i < newEntries; i++ ) {
+                this.dictionary.add(ColumnarFormat.readString(this.in));
+            }
+            final int[][] stringColumns = this.readIntColumns(StringColumn.values().length, rowCount);
+            final int[][] intColumns = this.readIntColumns(IntColumn.values().length, rowCount);
+            final long[][] longColumns = new long[LongColumn.values().length][rowCount];
+            for( long[] column : longColumns ) {
+                for( int i = 0; i < rowCount; i++ ) {
+                    column[i] = this.in.readLong();
+                }
+            }
+            return new Batch(rowCount, this.dictionary, stringColumns, intColumns, longColumns);
+        }
+    }
+
+    private boolean readSegmentHeader() throws IOException {
+        final String magic;
+        try {
+            magic = this.in.readUTF();
+        } catch (EOFException e) {
+            return false;
+        }
+        if( !magic.equals(ColumnarFormat.MAGIC) ) {
+            throw new IOException("Not a columnar SATD file.");
+        }
+        this.checkColumnNames(Arrays.stream(StringColumn.values()).map(Enum::name).collect(Collectors.toList()));
+        this.checkColumnNames(Arrays.stream(IntColumn.values()).map(Enum::name).collect(Collectors.toList()));
+        this.checkColumnNames(Arrays.stream(LongColumn.values()).map(Enum::name).collect(Collectors.toList()));
+        this.dictionary.clear();
+        this.inSegment = true;
+        return true;
+    }
+
+    private void checkColumnNames(List<String> expected) throws IOException {
+        final int nColumns = this.in.readInt();
+        final List<String> found = new ArrayList<>();
+        for( int i = 0; i < nColumns; i++ ) {
+            found.add(this.in.readUTF());
+        }
+        if( !found.equals(expected) ) {
+            throw new IOException("Unexpected columns in file: " + found);
+        }
+    }
+
+    private int[][] readIntColumns(int nColumns, int rowCount) throws IOException {
+        final int[][] columns = new int[nColumns][rowCount];
+        for( int[] column : columns ) {
+            for( int i = 0; i < rowCount; i++ ) {
+                column[i] = this.in.readInt();
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * A single record batch. String values are resolved against the dictionary
+     * of the segment the batch was read from.
+     */
+    public static class Batch {
+
+        @Getter
+        private final int rowCount;
+        private final String[] dictionary;
+        private final int[][] stringColumns;
+        private final int[][] intColumns;
+        private final long[][] longColumns;
+
+        private Batch(int rowCount, List<String> dictionary,
+                      int[][] stringColumns, int[][] intColumns, long[][] longColumns) {
+            this.rowCount = rowCount;
+            this.dictionary = dictionary.toArray(new String[0]);
+            this.stringColumns = stringColumns;
+            this.intColumns = intColumns;
+            this.longColumns = longColumns;
+        }
+
+        public String getString(StringColumn column, int row) {
+            final int code = this.stringColumns[column.ordinal()][row];
+            return code == ColumnarFormat.NULL_CODE ? null : this.dictionary[code];
+        }
+
+        public int getDictionaryCode(StringColumn column, int row) {
+            return this.stringColumns[column.ordinal()][row];
+        }
+
+        public int getInt(IntColumn column, int row) {
+            return this.intColumns[column.ordinal()][row];
+        }
+
+        /**
+         * @return the epoch milliseconds of the date, or null if no date was recorded
+         */
+        public Long getDate(LongColumn column, int row) {
+            final long value = this.longColumns[column.ordinal()][row];
+            return value == ColumnarFormat.NULL_DATE ? null : value;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if( args.length != 1 ) {
+            System.err.println("usage: ColumnarReader <file>");
+            return;
+        }
+        final List<String> header = new ArrayList<>();
+        Arrays.stream(StringColumn.values()).map(Enum::name).forEach(header::add);
+        Arrays.stream(IntColumn.values()).map(Enum::name).forEach(header::add);
+        Arrays.stream(LongColumn.values()).map(Enum::name).forEach(header::add);
+        System.out.println(String.join("\t", header));
+        try (ColumnarReader reader = new ColumnarReader(args[0])) {
+            Batch batch;
+            while( (batch = reader.nextBatch()) != null ) {
+                for( int row = 0; row < batch.getRowCount(); row++ ) {
+                    final List<String> values = new ArrayList<>();
+                    for( StringColumn column : StringColumn.values() ) {
+                        final String value = batch.getString(column, row);
+                        // Keep each row on a single line
+                        values.add(value == null ? "" : value.replace("\t", "\\t").replace("\n", "\\n"));
+                    }
+                    for( IntColumn column : IntColumn.values() ) {
+                        values.add(String.valueOf(batch.getInt(column, row)));
+                    }
+                    for( LongColumn column : LongColumn.values() ) {
+                        final Long value = batch.getDate(column, row);
+                        values.add(value == null ? "" : String.valueOf(value));
+                    }
+                    System.out.println(String.join("\t", values));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package edu.rit.se.satd.writer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the key used for the Comments table.
+ *
+ * The key is the first 64 bits of the SHA-1 hash of the UTF-8 comment text, read as a signed
+ * big-endian long. This is the same value MySQL computes with
+ * CAST(CONV(LEFT(SHA1(CONVERT(text USING utf8mb4)), 16), 16, 10) AS SIGNED), whatever the charset of
+ * the text, so existing databases can be migrated in SQL.
+ */
+final class CommentTextHash {
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private CommentTextHash() {}
+
+    static long of(String commentText) {
+        final byte[] digest = SHA1.get().digest(commentText.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for( int i = 0; i < Long.BYTES; i++ ) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,189 @@
+package edu.rit.se.satd.writer;
+
+import edu.rit.se.git.model.CommitMetaData;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.WriterFlushEvent;
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.model.SATDInstance;
+import edu.rit.se.satd.model.SATDInstanceInFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An OutputWriter which streams each SATD instance as a single, denormalized
+ * JSON record onto its own line of a gzip compressed file.
+ *
+ * Files are opened for appending, so the output of several repositories (or runs)
+ * can be written to the same file. Each run, and each flush, ends a gzip member, which
+ * standard gzip readers will read as one continuous stream.
+ */
+public class JsonLinesOutputWriter implements OutputWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileOutputStream fileOut;
+    // The gzip member being written, or null if none was started since the last flush
+    private GZIPOutputStream gzipOut = null;
+    private Writer out = null;
+
+    // Reused for every record to avoid building a new String per field
+    private final StringBuilder record = new StringBuilder(1024);
+
+    public JsonLinesOutputWriter(String outFile) throws IOException {
+        this.fileOut = new FileOutputStream(outFile, true);
+    }
+
+    private Writer getOut() throws IOException {
+        if( this.out == null ) {
+            this.gzipOut = new GZIPOutputStream(this.fileOut, BUFFER_SIZE);
+            this.out = new OutputStreamWriter(this.gzipOut, StandardCharsets.UTF_8);
+        }
+        return this.out;
+    }
+
+    @Override
+    public void writeDiff(SATDDifference diff) throws IOException {
+        final CommitMetaData oldCommit = diff.getOldCommit();
+        final CommitMetaData newCommit = diff.getNewCommit();
+        for( SATDInstance satdInstance : diff.getSatdInstances() ) {
+            this.record.setLength(0);
+            this.record.append('{');
+            this.appendField("project_name", diff.getProjectName()).append(',');
+            this.appendField("project_url", diff.getProjectURI()).append(',');
+            this.appendCommit("old_commit", oldCommit).append(',');
+            this.appendCommit("new_commit", newCommit).append(',');
+            this.appendInstance("old_instance", satdInstance.getOldInstance()).append(',');
+            this.appendInstance("new_instance", satdInstance.getNewInstance()).append(',');
+            this.appendField("resolution", satdInstance.getResolution().name()).append(',');
+            this.appendField("satd_instance_id", satdInstance.getId()).append(',');
+            this.appendField("parent_instance_id", satdInstance.getParentId()).append(',');
+            this.appendField("duplication_id", satdInstance.getDuplicationId());
+            this.record.append("}\n");
+            this.getOut().append(this.record);
+        }
+    }
+
+    private StringBuilder appendCommit(String name, CommitMetaData commit) {
+        this.appendName(name).append('{');
+        this.appendField("commit_hash", commit.getHash()).append(',');
+        this.appendField("author_name", commit.getAuthorName()).append(',');
+        this.appendField("author_email", commit.getAuthorEmail()).append(',');
+        this.appendField("author_date", commit.getAuthorDate()).append(',');
+        this.appendField("committer_name", commit.getCommitterName()).append(',');
+        this.appendField("committer_email", commit.getCommitterEmail()).append(',');
+        this.appendField("commit_date", commit.getCommitDate());
+        return this.record.append('}');
+    }
+
+    private StringBuilder appendInstance(String name, SATDInstanceInFile instance) {
+        final GroupedComment comment = instance.getComment();
+        this.appendName(name).append('{');
+        this.appendField("path", instance.getFileName()).append(',');
+        this.appendField("comment", comment.getComment()).append(',');
+        this.appendField("comment_type", comment.getCommentType()).append(',');
+        this.appendField("start_line", comment.getStartLine()).append(',');
+        this.appendField("end_line", comment.getEndLine()).append(',');
+        this.appendField("containing_class", comment.getContainingClass()).append(',');
+        this.appendField("containing_method", comment.getContainingMethod());
+        return this.record.append('}');
+    }
+
+    private StringBuilder appendName(String name) {
+        // Field names are constants and never need escaping
+        return this.record.append('"').append(name).append("\":");
+    }
+
+    private StringBuilder appendField(String name, int value) {
+        return this.appendName(name).append(value);
+    }
+
+    private StringBuilder appendField(String name, Date value) {
+        // Dates are written as epoch milliseconds
+        this.appendName(name);
+        return value != null ? this.record.append(value.getTime()) : this.record.append("null");
+    }
+
+    private StringBuilder appendField(String name, String value) {
+        this.appendName(name);
+        if( value == null ) {
+            return this.record.append("null");
+        }
+        this.record.append('"');
+        for( int i = 0; i < value.length(); i++ ) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    this.record.append("\\\"");
+                    break;
+                case '\\':
+                    this.record.append("\\\\");
+                    break;
+                case '\n':
+                    this.record.append("\\n");
+                    break;
+                case '\r':
+                    this.record.append("\\r");
+                    break;
+                case '\t':
+                    this.record.append("\\t");
+                    break;
+                default:
+                    if( c < 0x20 ) {
+                        this.record.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        this.record.append(c);
+                    }
+            }
+        }
+        return this.record.append('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // The gzip member is ended, so the file is whole if it is truncated back to this length
+        final WriterFlushEvent event = FlightEvents.beginWriterFlush();
+        if( this.out != null ) {
+            this.out.flush();
+            this.gzipOut.finish();
+            this.out = null;
+            this.gzipOut = null;
+        }
+        // The output must be on disk before a checkpoint refers to its length
+        this.fileOut.getFD().sync();
+        FlightEvents.commitWriterFlush(event, this);
+    }
+
+    @Override
+    public long getOutputLength() throws IOException {
+        return this.fileOut.getChannel().size();
+    }
+
+    @Override
+    public void truncateOutput(long length) throws IOException {
+        if( this.out != null ) {
+            throw new IllegalStateException("Output cannot be truncated once diffs were written");
+        }
+        final long outputLength = this.fileOut.getChannel().size();
+        if( outputLength < length ) {
+            throw new IOException("Output is shorter than at the checkpoint: " + outputLength + " < " + length);
+        }
+        this.fileOut.getChannel().truncate(length);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if( this.out != null ) {
+                this.out.close();
+            } else {
+                this.fileOut.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing JSON Lines output: " + e.getLocalizedMessage());
+        }
+    }
+}
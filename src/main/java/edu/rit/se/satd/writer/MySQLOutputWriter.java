@@ -2,6 +2,10 @@ package edu.rit.se.satd.writer;
 
 import edu.rit.se.git.model.CommitMetaData;
 import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
+import edu.rit.se.satd.metrics.WriterFlushEvent;
 import edu.rit.se.satd.model.SATDDifference;
 import edu.rit.se.satd.model.SATDInstance;
 
@@ -14,8 +18,9 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
 
 public class MySQLOutputWriter implements OutputWriter {
 
@@ -23,12 +28,21 @@ public class MySQLOutputWriter implements OutputWriter {
 
     private final Map<String, Integer> cachedProjectKeys = new HashMap<>();
 
+    // Hashes of the comments known to be in the Comments table. Shared by the async writers.
+    private final Set<Long> cachedCommentKeys = ConcurrentHashMap.newKeySet();
+
     private final String dbURI;
     private final String user;
     private final String pass;
 
     private final ScheduledThreadPoolExecutor finalWriteExecutor;
 
+    // Async writes which may not have completed yet. Completed writes are removed as new ones
+    // are added, so only the writes still in flight are held
+    private final Queue<Future<?>> pendingWrites = new ConcurrentLinkedQueue<>();
+    // The first async write which failed since the last flush, or null if none did
+    private IOException failedWrite = null;
+
 
     public MySQLOutputWriter(String propertiesPath) throws IOException {
         final Properties properties = new Properties();
@@ -67,13 +81,14 @@ public class MySQLOutputWriter implements OutputWriter {
                 projectId = this.getProjectId(conn, diff.getProjectName(), diff.getProjectURI());
                 this.cachedProjectKeys.put(diff.getProjectName(), projectId);
             }
-            final String oldCommitId = this.getCommitId(conn, new CommitMetaData(diff.getOldCommit()), projectId);
-            final String newCommitId = this.getCommitId(conn, new CommitMetaData(diff.getNewCommit()), projectId);
+            final String oldCommitId = this.getCommitId(conn, diff.getOldCommit(), projectId);
+            final String newCommitId = this.getCommitId(conn, diff.getNewCommit(), projectId);
 
             // Now finish the remaining writes async and allow time for the previous writer to complete.
             final Connection asyncConn = conn;
             conn = null;
             final Thread writeLastAsync = new Thread(() -> {
+                final long start = MinerMetrics.start();
                 try {
                     for (SATDInstance satdInstance : diff.getSatdInstances()) {
                         final int oldFileId = this.getSATDInFileId(asyncConn, satdInstance, true);
@@ -88,9 +103,11 @@ public class MySQLOutputWriter implements OutputWriter {
                     } catch (SQLException e) {
                         System.err.println("Error closing SQL connection in thread");
                     }
+                    MinerMetrics.record(Stage.DB_WRITE, start);
                 }
             });
-            finalWriteExecutor.schedule(writeLastAsync, 100, TimeUnit.MILLISECONDS);
+            this.removeCompletedWrites();
+            this.pendingWrites.add(finalWriteExecutor.schedule(writeLastAsync, 100, TimeUnit.MILLISECONDS));
 
         } catch (SQLException e) {
             // Issues with SQL will be wrapped in an IOException to maintain interface consistency
@@ -160,12 +177,14 @@ public class MySQLOutputWriter implements OutputWriter {
                 : satdInstance.getEndLineNumberNewFile();
         final GroupedComment comment = useOld ? satdInstance.getOldInstance().getComment() :
                 satdInstance.getNewInstance().getComment();
+        final String commentText = shortenStringToLength(
+                comment.getComment().replace("\"", "\\\""), COMMENTS_MAX_CHARS);
+        final long commentHash = CommentTextHash.of(commentText);
         final PreparedStatement queryStmt = conn.prepareStatement(
                 "SELECT SATDInFile.f_id FROM SATDInFile WHERE " +
-                "SATDInFile.f_comment=? AND SATDInFile.f_path=? AND " +
+                "SATDInFile.c_hash=? AND SATDInFile.f_path=? AND " +
                 "SATDInFile.start_line=? AND SATDInFile.end_line=?");
-        queryStmt.setString(1, shortenStringToLength(
-                comment.getComment().replace("\"", "\\\""), COMMENTS_MAX_CHARS)); // f_comment
+        queryStmt.setLong(1, commentHash); // c_hash
         queryStmt.setString(2, filePath); // f_path
         queryStmt.setInt(3, startLineNumber); // start_line
         queryStmt.setInt(4, endLineNumber); // end_line
@@ -174,14 +193,22 @@ public class MySQLOutputWriter implements OutputWriter {
             // Return the result if one was found
             return res.getInt(1);
         } else {
+            // Store the comment text once, the first time it is seen
+            if( !this.cachedCommentKeys.contains(commentHash) ) {
+                final PreparedStatement commentStmt = conn.prepareStatement(
+                        "INSERT IGNORE INTO Comments(c_hash, c_text) VALUES (?,?);");
+                commentStmt.setLong(1, commentHash); // c_hash
+                commentStmt.setString(2, commentText); // c_text
+                commentStmt.executeUpdate();
+                this.cachedCommentKeys.add(commentHash);
+            }
             // Otherwise, add it and then return the newly generated key
             final PreparedStatement updateStmt = conn.prepareStatement(
-                    "INSERT INTO SATDInFile(f_comment, f_comment_type, f_path, start_line, end_line, " +
+                    "INSERT INTO SATDInFile(c_hash, f_comment_type, f_path, start_line, end_line, " +
                             "containing_class, containing_method) " +
                             "VALUES (?,?,?,?,?,?,?);",
                     Statement.RETURN_GENERATED_KEYS);
-            updateStmt.setString(1, shortenStringToLength(
-                    comment.getComment().replace("\"", "\\\""), COMMENTS_MAX_CHARS)); // f_comment
+            updateStmt.setLong(1, commentHash); // c_hash
             updateStmt.setString(2, comment.getCommentType()); // f_comment_type
             updateStmt.setString(3, filePath); // f_path
             updateStmt.setInt(4, startLineNumber); // start_line
@@ -286,6 +313,51 @@ public class MySQLOutputWriter implements OutputWriter {
         return str.substring(0, Math.min(str.length(), length));
     }
 
+    /**
+     * Removes the writes at the head of the queue which have completed, keeping the first failure
+     * so that it is thrown by the next flush. Writes are scheduled with the same delay, so they
+     * mostly complete in the order they were added.
+     */
+    private void removeCompletedWrites() {
+        Future<?> pendingWrite;
+        while( (pendingWrite = this.pendingWrites.peek()) != null && pendingWrite.isDone() ) {
+            this.pendingWrites.poll();
+            try {
+                this.awaitWrite(pendingWrite);
+            } catch (IOException e) {
+                if( this.failedWrite == null ) {
+                    this.failedWrite = e;
+                }
+            }
+        }
+    }
+
+    private void awaitWrite(Future<?> pendingWrite) throws IOException {
+        try {
+            pendingWrite.get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        final WriterFlushEvent event = FlightEvents.beginWriterFlush();
+        Future<?> pendingWrite;
+        while( (pendingWrite = this.pendingWrites.poll()) != null ) {
+            this.awaitWrite(pendingWrite);
+        }
+        if( this.failedWrite != null ) {
+            final IOException failedWrite = this.failedWrite;
+            this.failedWrite = null;
+            throw failedWrite;
+        }
+        FlightEvents.commitWriterFlush(event, this);
+    }
+
     @Override
     public void close() {
         // Shutdown the executor and then run each remaining task
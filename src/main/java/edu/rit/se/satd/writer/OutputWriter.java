@@ -13,6 +13,30 @@ public interface OutputWriter {
      */
     void writeDiff(SATDDifference diff) throws IOException;
 
+    /**
+     * Blocks until every diff given to writeDiff has been fully written to the output
+     * @throws IOException thrown if any pending write failed
+     */
+    void flush() throws IOException;
+
+    /**
+     * @return the length of the output file once flushed, or -1 if the writer does not write to a single file
+     * @throws IOException thrown if the length of the file could not be found
+     */
+    default long getOutputLength() throws IOException {
+        return -1;
+    }
+
+    /**
+     * Discards everything written to the output file after it had the given length, so that
+     * diffs written after a checkpoint are not written twice when mining resumes from it.
+     * Must be called before any diff is written.
+     * @param length a length returned by getOutputLength
+     * @throws IOException thrown if the file could not be truncated
+     */
+    default void truncateOutput(long length) throws IOException {
+    }
+
     /**
      * Finishes any write processes and terminated the writer
      */
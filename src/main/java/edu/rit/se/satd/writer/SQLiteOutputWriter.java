@@ -0,0 +1,327 @@
+package edu.rit.se.satd.writer;
+
+import edu.rit.se.git.model.CommitMetaData;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.Stage;
+import edu.rit.se.satd.metrics.WriterFlushEvent;
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.model.SATDInstance;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An OutputWriter which writes to an embedded, single-file SQLite database.
+ * The tables and indexes mirror the schema found in sql/satd.sql, so the same queries
+ * can be run against either output.
+ *
+ * All writes are done synchronously on a single connection, and are committed
+ * in large transactions to avoid paying for a journal sync on every insert.
+ */
+public class SQLiteOutputWriter implements OutputWriter {
+
+    private static final int COMMENTS_MAX_CHARS = 4096;
+
+    // The number of diffs to write before committing the open transaction
+    private static final int DIFFS_PER_TRANSACTION = 250;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS Projects (" +
+                    "p_id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "p_name VARCHAR(255) NOT NULL UNIQUE, " +
+                    "p_url VARCHAR(255) NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS Comments (" +
+                    "c_hash BIGINT PRIMARY KEY NOT NULL, " +
+                    "c_text VARCHAR(4096))",
+            "CREATE TABLE IF NOT EXISTS SATDInFile (" +
+                    "f_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "c_hash BIGINT, " +
+                    "f_comment_type VARCHAR(32), " +
+                    "f_path VARCHAR(512), " +
+                    "start_line INT, " +
+                    "end_line INT, " +
+                    "containing_class VARCHAR(512), " +
+                    "containing_method VARCHAR(512), " +
+                    "FOREIGN KEY (c_hash) REFERENCES Comments(c_hash))",
+            "CREATE INDEX IF NOT EXISTS satd_in_file_lookup ON SATDInFile(c_hash, f_path, start_line, end_line)",
+            "CREATE TABLE IF NOT EXISTS Commits (" +
+                    "commit_hash VARCHAR(256), " +
+                    "p_id INT, " +
+                    "author_name VARCHAR(256), " +
+                    "author_email VARCHAR(256), " +
+                    "author_date DATETIME, " +
+                    "committer_name VARCHAR(256), " +
+                    "committer_email VARCHAR(256), " +
+                    "commit_date DATETIME, " +
+                    "PRIMARY KEY (p_id, commit_hash), " +
+                    "FOREIGN KEY (p_id) REFERENCES Projects(p_id))",
+            "CREATE TABLE IF NOT EXISTS SATD (" +
+                    "satd_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "satd_instance_id INT, " +
+                    "parent_instance_id INT, " +
+                    "p_id INT, " +
+                    "first_commit VARCHAR(256), " +
+                    "second_commit VARCHAR(256), " +
+                    "first_file INT, " +
+                    "second_file INT, " +
+                    "resolution VARCHAR(64), " +
+                    "FOREIGN KEY (p_id) REFERENCES Projects(p_id), " +
+                    "FOREIGN KEY (p_id, first_commit) REFERENCES Commits(p_id, commit_hash), " +
+                    "FOREIGN KEY (p_id, second_commit) REFERENCES Commits(p_id, commit_hash), " +
+                    "FOREIGN KEY (first_file) REFERENCES SATDInFile(f_id), " +
+                    "FOREIGN KEY (second_file) REFERENCES SATDInFile(f_id))",
+            "CREATE INDEX IF NOT EXISTS satd_lookup ON SATD(first_file, second_file, first_commit, second_commit)"
+    };
+
+    private final Connection conn;
+
+    // Statements are prepared once and reused for every write
+    private final PreparedStatement queryProjectStmt;
+    private final PreparedStatement insertProjectStmt;
+    private final PreparedStatement queryCommitStmt;
+    private final PreparedStatement insertCommitStmt;
+    private final PreparedStatement insertCommentStmt;
+    private final PreparedStatement queryFileStmt;
+    private final PreparedStatement insertFileStmt;
+    private final PreparedStatement querySATDStmt;
+    private final PreparedStatement insertSATDStmt;
+
+    private final Map<String, Integer> cachedProjectKeys = new HashMap<>();
+    private final Set<String> cachedCommitKeys = new HashSet<>();
+    private final Set<Long> cachedCommentKeys = new HashSet<>();
+
+    private int diffsInTransaction = 0;
+
+    public SQLiteOutputWriter(String dbPath) throws IOException {
+        try {
+            // Load driver
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+        try {
+            this.conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            try (Statement stmt = this.conn.createStatement()) {
+                // Tune the journal for bulk appends from a single writer
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.execute("PRAGMA temp_store=MEMORY");
+                stmt.execute("PRAGMA cache_size=-65536");
+                for( String table : SCHEMA ) {
+                    stmt.execute(table);
+                }
+            }
+            this.conn.setAutoCommit(false);
+
+            this.queryProjectStmt = this.conn.prepareStatement(
+                    "SELECT Projects.p_id FROM Projects WHERE Projects.p_name=?");
+            this.insertProjectStmt = this.conn.prepareStatement(
+                    "INSERT INTO Projects(p_name, p_url) VALUES (?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            this.queryCommitStmt = this.conn.prepareStatement(
+                    "SELECT Commits.commit_hash FROM Commits WHERE Commits.commit_hash=? AND Commits.p_id=?");
+            this.insertCommitStmt = this.conn.prepareStatement(
+                    "INSERT INTO Commits(commit_hash, author_name, author_email, " +
+                            "committer_name, committer_email, author_date, commit_date, p_id) " +
+                            "VALUES (?,?,?,?,?,?,?,?)");
+            this.insertCommentStmt = this.conn.prepareStatement(
+                    "INSERT OR IGNORE INTO Comments(c_hash, c_text) VALUES (?,?)");
+            this.queryFileStmt = this.conn.prepareStatement(
+                    "SELECT SATDInFile.f_id FROM SATDInFile WHERE " +
+                            "SATDInFile.c_hash=? AND SATDInFile.f_path=? AND " +
+                            "SATDInFile.start_line=? AND SATDInFile.end_line=?");
+            this.insertFileStmt = this.conn.prepareStatement(
+                    "INSERT INTO SATDInFile(c_hash, f_comment_type, f_path, start_line, end_line, " +
+                            "containing_class, containing_method) " +
+                            "VALUES (?,?,?,?,?,?,?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            this.querySATDStmt = this.conn.prepareStatement(
+                    "SELECT SATD.satd_id FROM SATD WHERE SATD.first_commit=? AND " +
+                            "SATD.second_commit=? AND SATD.first_file=? AND SATD.second_file=?");
+            this.insertSATDStmt = this.conn.prepareStatement(
+                    "INSERT INTO SATD(first_commit, second_commit, first_file, second_file, " +
+                            "resolution, satd_instance_id, p_id, parent_instance_id) " +
+                            "VALUES (?,?,?,?,?,?,?,?)",
+                    Statement.RETURN_GENERATED_KEYS);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeDiff(SATDDifference diff) throws IOException {
+        final long start = MinerMetrics.start();
+        try {
+            int projectId;
+            // Cache project key to shorten each write by one query
+            if( this.cachedProjectKeys.containsKey(diff.getProjectName()) ) {
+                projectId = this.cachedProjectKeys.get(diff.getProjectName());
+            } else {
+                projectId = this.getProjectId(diff.getProjectName(), diff.getProjectURI());
+                this.cachedProjectKeys.put(diff.getProjectName(), projectId);
+            }
+            final String oldCommitId = this.getCommitId(diff.getOldCommit(), projectId);
+            final String newCommitId = this.getCommitId(diff.getNewCommit(), projectId);
+            for (SATDInstance satdInstance : diff.getSatdInstances()) {
+                final int oldFileId = this.getSATDInFileId(satdInstance, true);
+                final int newFileId = this.getSATDInFileId(satdInstance, false);
+                this.getSATDInstanceId(satdInstance, newCommitId, oldCommitId, newFileId, oldFileId, projectId);
+            }
+            if( ++this.diffsInTransaction >= DIFFS_PER_TRANSACTION ) {
+                this.commitTransaction();
+            }
+        } catch (SQLException e) {
+            // Issues with SQL will be wrapped in an IOException to maintain interface consistency
+            throw new IOException(e);
+        } finally {
+            MinerMetrics.record(Stage.DB_WRITE, start);
+        }
+    }
+
+    private int getProjectId(String projectName, String projectUrl) throws SQLException {
+        this.queryProjectStmt.setString(1, projectName); // p_name
+        try (ResultSet res = this.queryProjectStmt.executeQuery()) {
+            if( res.next() ) {
+                return res.getInt(1);
+            }
+        }
+        this.insertProjectStmt.setString(1, projectName); // p_name
+        this.insertProjectStmt.setString(2, projectUrl); // p_url
+        this.insertProjectStmt.executeUpdate();
+        return getGeneratedKey(this.insertProjectStmt, "Could not obtain the project ID.");
+    }
+
+    private int getSATDInFileId(SATDInstance satdInstance, boolean useOld) throws SQLException {
+        // Get the correct values from the SATD Instance
+        final String filePath = useOld ? satdInstance.getOldInstance().getFileName()
+                : satdInstance.getNewInstance().getFileName();
+        final int startLineNumber = useOld ? satdInstance.getStartLineNumberOldFile()
+                : satdInstance.getStartLineNumberNewFile();
+        final int endLineNumber = useOld ? satdInstance.getEndLineNumberOldFile()
+                : satdInstance.getEndLineNumberNewFile();
+        final GroupedComment comment = useOld ? satdInstance.getOldInstance().getComment() :
+                satdInstance.getNewInstance().getComment();
+        final String commentText = shortenStringToLength(
+                comment.getComment().replace("\"", "\\\""), COMMENTS_MAX_CHARS);
+        final long commentHash = CommentTextHash.of(commentText);
+        this.queryFileStmt.setLong(1, commentHash); // c_hash
+        this.queryFileStmt.setString(2, filePath); // f_path
+        this.queryFileStmt.setInt(3, startLineNumber); // start_line
+        this.queryFileStmt.setInt(4, endLineNumber); // end_line
+        try (ResultSet res = this.queryFileStmt.executeQuery()) {
+            if( res.next() ) {
+                return res.getInt(1);
+            }
+        }
+        // Store the comment text once, the first time it is seen
+        if( this.cachedCommentKeys.add(commentHash) ) {
+            this.insertCommentStmt.setLong(1, commentHash); // c_hash
+            this.insertCommentStmt.setString(2, commentText); // c_text
+            this.insertCommentStmt.executeUpdate();
+        }
+        this.insertFileStmt.setLong(1, commentHash); // c_hash
+        this.insertFileStmt.setString(2, comment.getCommentType()); // f_comment_type
+        this.insertFileStmt.setString(3, filePath); // f_path
+        this.insertFileStmt.setInt(4, startLineNumber); // start_line
+        this.insertFileStmt.setInt(5, endLineNumber); // end_line
+        this.insertFileStmt.setString(6, comment.getContainingClass());
+        this.insertFileStmt.setString(7, comment.getContainingMethod());
+        this.insertFileStmt.executeUpdate();
+        return getGeneratedKey(this.insertFileStmt, "Could not obtain a file instance ID.");
+    }
+
+    private int getSATDInstanceId(SATDInstance satdInstance, String newCommitHash, String oldCommitHash,
+                                  int newFileId, int oldFileId, int projectId) throws SQLException {
+        this.querySATDStmt.setString(1, oldCommitHash); // first_commit
+        this.querySATDStmt.setString(2, newCommitHash); // second_commit
+        this.querySATDStmt.setInt(3, oldFileId); // first_file
+        this.querySATDStmt.setInt(4, newFileId); // second_file
+        try (ResultSet res = this.querySATDStmt.executeQuery()) {
+            if( res.next() ) {
+                return res.getInt(1);
+            }
+        }
+        this.insertSATDStmt.setString(1, oldCommitHash); // first_commit
+        this.insertSATDStmt.setString(2, newCommitHash); // second_commit
+        this.insertSATDStmt.setInt(3, oldFileId); // first_file
+        this.insertSATDStmt.setInt(4, newFileId); // second_file
+        this.insertSATDStmt.setString(5, satdInstance.getResolution().name()); // resolution
+        this.insertSATDStmt.setInt(6, satdInstance.getId()); // satd_instance_id
+        this.insertSATDStmt.setInt(7, projectId); // p_id
+        this.insertSATDStmt.setInt(8, satdInstance.getParentId()); // parent_instance_id
+        this.insertSATDStmt.executeUpdate();
+        return getGeneratedKey(this.insertSATDStmt, "Could not obtain an SATD instance ID.");
+    }
+
+    private String getCommitId(CommitMetaData commitMetaData, int projectId) throws SQLException {
+        // Commits are shared between adjacent diffs, so most lookups can be answered from memory
+        if( this.cachedCommitKeys.add(projectId + ":" + commitMetaData.getHash()) ) {
+            this.queryCommitStmt.setString(1, commitMetaData.getHash()); // commit_hash
+            this.queryCommitStmt.setInt(2, projectId); // p_id
+            final boolean exists;
+            try (ResultSet res = this.queryCommitStmt.executeQuery()) {
+                exists = res.next();
+            }
+            if( !exists ) {
+                this.insertCommitStmt.setString(1, commitMetaData.getHash()); // commit_hash
+                this.insertCommitStmt.setString(2, commitMetaData.getAuthorName()); // author_name
+                this.insertCommitStmt.setString(3, commitMetaData.getAuthorEmail()); // author_email
+                this.insertCommitStmt.setString(4, commitMetaData.getCommitterName()); // committer_name
+                this.insertCommitStmt.setString(5, commitMetaData.getCommitterEmail()); // committer_email
+                this.insertCommitStmt.setTimestamp(6, commitMetaData.getAuthorDate() != null ?
+                        new Timestamp(commitMetaData.getAuthorDate().getTime()) : null); // author_date
+                this.insertCommitStmt.setTimestamp(7, commitMetaData.getCommitDate() != null ?
+                        new Timestamp(commitMetaData.getCommitDate().getTime()) : null); // commit_date
+                this.insertCommitStmt.setInt(8, projectId); // p_id
+                this.insertCommitStmt.executeUpdate();
+            }
+        }
+        return commitMetaData.getHash();
+    }
+
+    private static int getGeneratedKey(PreparedStatement stmt, String errorMessage) throws SQLException {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            if( keys.next() ) {
+                return keys.getInt(1);
+            }
+        }
+        // Some unpredicted issue was encountered, so just throw a new exception
+        throw new SQLException(errorMessage);
+    }
+
+    private static String shortenStringToLength(String str, int length) {
+        return str.substring(0, Math.min(str.length(), length));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            this.commitTransaction();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void commitTransaction() throws SQLException {
+        final WriterFlushEvent event = FlightEvents.beginWriterFlush();
+        this.conn.commit();
+        this.diffsInTransaction = 0;
+        FlightEvents.commitWriterFlush(event, this);
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.conn.commit();
+            this.conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing SQLite connection: " + e.getLocalizedMessage());
+        }
+    }
+}
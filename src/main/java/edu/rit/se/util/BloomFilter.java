@@ -0,0 +1,114 @@
+package edu.rit.se.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A Bloom filter, which records that keys were added to it in a fixed number of bits per key
+ * rather than keeping the keys themselves. A key which was added is always found, and a key
+ * which was not is mistaken for one that was at the false positive rate the filter was sized
+ * for, once it holds as many keys as it was sized for.
+ *
+ * Each key is given as two 64-bit hashes, which must already be well mixed, such as fingerprints
+ * or parts of an object ID. Not safe to use from several threads.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int nHashes;
+    // The number of keys the filter was sized for
+    private final int capacity;
+    private int size;
+
+    /**
+     * @param capacity the number of keys the filter will hold
+     * @param falsePositiveRate the rate keys which were not added are found at, once the filter is full
+     */
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        this(new long[getNWords(capacity, falsePositiveRate)], getNHashes(falsePositiveRate), capacity, 0);
+    }
+
+    private BloomFilter(long[] bits, int nHashes, int capacity, int size) {
+        this.bits = bits;
+        this.nHashes = nHashes;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    public void add(long hash1, long hash2) {
+        final long nBits = this.bits.length * 64L;
+        for( int i = 0; i < this.nHashes; i++ ) {
+            final long bit = Long.remainderUnsigned(hash1 + i * hash2, nBits);
+            this.bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        this.size++;
+    }
+
+    /**
+     * @return True if the key may have been added, or False if it certainly was not
+     */
+    public boolean mightContain(long hash1, long hash2) {
+        final long nBits = this.bits.length * 64L;
+        for( int i = 0; i < this.nHashes; i++ ) {
+            final long bit = Long.remainderUnsigned(hash1 + i * hash2, nBits);
+            if( (this.bits[(int) (bit >>> 6)] & (1L << bit)) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the filter holds as many keys as it was sized for, so adding more
+     * would raise its false positive rate
+     */
+    public boolean isFull() {
+        return this.size >= this.capacity;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return the number of keys added to the filter
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(this.capacity);
+        out.writeInt(this.size);
+        out.writeInt(this.nHashes);
+        out.writeInt(this.bits.length);
+        for( long word : this.bits ) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a filter written by writeTo
+     */
+    public static BloomFilter readFrom(DataInput in) throws IOException {
+        final int capacity = in.readInt();
+        final int size = in.readInt();
+        final int nHashes = in.readInt();
+        final long[] bits = new long[in.readInt()];
+        for( int i = 0; i < bits.length; i++ ) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilter(bits, nHashes, capacity, size);
+    }
+
+    // The optimal number of bits per key is -ln(p) / ln(2)^2, with ln(2) bits per key per hash
+    private static int getNWords(int capacity, double falsePositiveRate) {
+        final double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        return (int) Math.max(1, (long) Math.ceil(capacity * bitsPerKey / 64));
+    }
+
+    private static int getNHashes(double falsePositiveRate) {
+        return (int) Math.max(1, Math.round(-Math.log(falsePositiveRate) / Math.log(2)));
+    }
+}
@@ -0,0 +1,58 @@
+package edu.rit.se.util;
+
+/**
+ * Computes 64-bit fingerprints of strings, so objects made of several strings can be
+ * hashed and told apart quickly without concatenating their fields.
+ *
+ * Fingerprints of equal strings are always equal. Different strings have the same
+ * fingerprint so rarely that a fingerprint match only needs to be confirmed with equals.
+ */
+public class Fingerprint {
+
+    public static final long EMPTY = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * Adds a string to a fingerprint. The length of the string is included, so adding
+     * "ab" then "c" gives a different fingerprint than adding "a" then "bc".
+     * @param fingerprint the fingerprint so far, or EMPTY for the first string
+     * @param str the string to add
+     * @return the new fingerprint
+     */
+    public static long add(long fingerprint, String str) {
+        long h = fingerprint;
+        for( int i = 0; i < str.length(); i++ ) {
+            h = (h ^ str.charAt(i)) * PRIME;
+        }
+        return mix(h ^ str.length());
+    }
+
+    /**
+     * Combines two fingerprints. The order of the fingerprints matters.
+     * @param first a fingerprint
+     * @param second a fingerprint
+     * @return the combined fingerprint
+     */
+    public static long combine(long first, long second) {
+        return mix(first * PRIME + second);
+    }
+
+    /**
+     * @param fingerprint a fingerprint
+     * @return a hash code with bits from the whole fingerprint
+     */
+    public static int toHashCode(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    // The finalizer of MurmurHash3, which spreads every bit of the input over the output
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
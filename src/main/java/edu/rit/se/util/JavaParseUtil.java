@@ -4,15 +4,38 @@ import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.Position;
 import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.comments.CommentsCollection;
+import edu.rit.se.git.BlobReader;
 import edu.rit.se.satd.comment.IgnorableWords;
 import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.ParsedFile;
+import edu.rit.se.satd.comment.model.SourceOutline;
+import edu.rit.se.satd.metrics.FileMetrics;
+import edu.rit.se.satd.metrics.FlightEvents;
+import edu.rit.se.satd.metrics.MinerMetrics;
+import edu.rit.se.satd.metrics.ParseEvent;
+import edu.rit.se.satd.metrics.Stage;
+import org.apache.commons.io.input.CountingInputStream;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.lib.ObjectId;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static edu.rit.se.satd.comment.model.GroupedComment.TYPE_COMMENTED_SOURCE;
 
@@ -20,51 +43,264 @@ public class JavaParseUtil {
 
     public static Range NULL_RANGE = new Range(new Position(-1, -1), new Position(-1, -1));
 
+    // Identifies how comments are found in a file, so comments found by another version of
+    // the parser are not reused. Must be changed whenever the comments found in a file would change
+    public static final String PARSER_VERSION = "javaparser-3.15.11/1";
+
+    // Whether the comments of a modified file are extracted from those of its earlier version
+    // when they can be, so that only the methods which were edited are parsed again
+    public static boolean incrementalParsing = true;
+
     /**
      * Gets a list of comments from the input java file
      * @param file An input stream containing the contents of a java file to parse for comments
      * @return a list of grouped comments that correlate to comments from the parsed java file
      */
     public static List<GroupedComment> parseFileForComments(InputStream file, String fileName) throws KnownParserException {
+        return parseFile(file, fileName).getGroupedComments();
+    }
+
+    /**
+     * Gets a list of comments from a blob of a java file. The comments of recently parsed blobs are
+     * reused, and if the file's earlier version was parsed recently, only the methods which were
+     * edited since are parsed.
+     * @param blobs the reader of the diff pair, used to read the blob
+     * @param blobId the ID of the blob
+     * @param fileName the path of the file
+     * @param parentBlobId the ID of the blob of the file's earlier version, or null if it has none
+     * @param edits the edits from the file's earlier version to this blob, only used if it has an earlier version
+     * @return a list of grouped comments that correlate to comments from the parsed java file
+     * @throws IOException thrown if the blob could not be read
+     */
+    public static List<GroupedComment> parseBlobForComments(BlobReader blobs, ObjectId blobId, String fileName,
+                                                            ObjectId parentBlobId, Supplier<List<Edit>> edits)
+            throws KnownParserException, IOException {
+        return parseBlob(blobs, blobId, fileName, parentBlobId, edits).getGroupedComments();
+    }
+
+    /**
+     * Parses a blob of a java file, or finds it among the recently parsed blobs
+     * @param blobs the reader of the diff pair, used to read the blob
+     * @param blobId the ID of the blob
+     * @param fileName the path of the file
+     * @param parentBlobId the ID of the blob of the file's earlier version, or null if it has none
+     * @param edits the edits from the file's earlier version to this blob, only used if it has an earlier version
+     * @return the parsed file
+     * @throws IOException thrown if the blob could not be read
+     */
+    public static ParsedFile parseBlob(BlobReader blobs, ObjectId blobId, String fileName,
+                                       ObjectId parentBlobId, Supplier<List<Edit>> edits)
+            throws KnownParserException, IOException {
+        ParsedFile parsedFile = ParsedFileCache.get(blobId, fileName);
+        if( parsedFile != null ) {
+            FileMetrics.recordFileParsed(FileMetrics.ParseKind.CACHED);
+            return parsedFile;
+        }
+        final RawText text = blobs.getRawText(blobId);
+        final ParsedFile parent = incrementalParsing && parentBlobId != null ?
+                getParsedFile(parentBlobId, fileName) : null;
+        if( parent != null ) {
+            parsedFile = extractFromEarlierVersion(parent, blobs.getRawText(parentBlobId), text, edits.get(), fileName);
+        }
+        if( parsedFile != null ) {
+            FileMetrics.recordFileParsed(FileMetrics.ParseKind.INCREMENTAL);
+        } else {
+            try {
+                parsedFile = parseFile(new ByteArrayInputStream(text.getRawContent()), fileName);
+            } catch (KnownParserException e) {
+                ParsedFileCache.putParseError(blobId);
+                throw e;
+            }
+            FileMetrics.recordFileParsed(FileMetrics.ParseKind.FULL);
+        }
+        ParsedFileCache.put(blobId, parsedFile);
+        return parsedFile;
+    }
+
+    /**
+     * Parses a java file for its comments and the outline of its declarations
+     * @param file An input stream containing the contents of a java file to parse for comments
+     * @return the parsed file
+     */
+    public static ParsedFile parseFile(InputStream file, String fileName) throws KnownParserException {
+        final ParseEvent event = FlightEvents.beginParse();
+        // Only count the bytes read while the event is being recorded
+        final CountingInputStream countedFile = FlightEvents.isRecording(event) ? new CountingInputStream(file) : null;
+        final long start = MinerMetrics.start();
+        try {
+            return parseComments(countedFile != null ? countedFile : file, fileName);
+        } finally {
+            MinerMetrics.record(Stage.PARSE, start);
+            FlightEvents.commitParse(event, fileName, countedFile != null ? countedFile.getByteCount() : -1);
+        }
+    }
+
+    private static ParsedFile parseComments(InputStream file, String fileName) throws KnownParserException {
         final JavaParser parser = new JavaParser();
-        final ParseResult parsedFile = parser.parse(file);
-        if( !parsedFile.getProblems().isEmpty() ) {
+        final ParseResult<CompilationUnit> parsedFile = parser.parse(file);
+        if( !parsedFile.getProblems().isEmpty() || !parsedFile.getResult().isPresent() ) {
             throw new KnownParserException(fileName);
         }
-        final Iterator<GroupedComment> allComments = parsedFile.getCommentsCollection().isPresent() ?
-                ((CommentsCollection)parsedFile.getCommentsCollection().get())
-                        .getComments()
-                        .stream()
-                        .filter(comment -> !comment.isJavadocComment())
-                        .map(GroupedComment::fromJavaParserComment)
-                        .filter(comment -> !comment.getCommentType().equals(TYPE_COMMENTED_SOURCE))
-                        .filter(comment -> IgnorableWords.getIgnorableWords().stream()
-                                .noneMatch(word -> comment.getComment().contains(word)))
-                        .sorted()
-                        .iterator()
-                : Collections.emptyIterator();
-
-        final List<GroupedComment> groupedComments = new ArrayList<>();
-        GroupedComment previousComment = null;
-        while( allComments.hasNext() ) {
-
-            final GroupedComment thisComment = allComments.next();
-
-            if( previousComment != null && previousComment.precedesDirectly(thisComment) ) {
-                previousComment = previousComment.joinWith(thisComment);
-            } else {
-                // Previous comment was the last of the group, so add it to the list
-                if( previousComment != null ) {
-                    groupedComments.add(previousComment);
+        return new ParsedFile(
+                toComments(parsedFile.getCommentsCollection(), 0),
+                SourceOutline.of(parsedFile.getResult().get()));
+    }
+
+    /**
+     * @param comments the comments of a parse
+     * @param lineOffset the number of lines before the first line that was parsed
+     * @return the comments which may be SATD, in the order they appear
+     */
+    private static List<GroupedComment> toComments(Optional<CommentsCollection> comments, int lineOffset) {
+        if( !comments.isPresent() ) {
+            return Collections.emptyList();
+        }
+        return comments.get().getComments().stream()
+                .filter(comment -> !comment.isJavadocComment())
+                .map(GroupedComment::fromJavaParserComment)
+                .filter(comment -> !comment.getCommentType().equals(TYPE_COMMENTED_SOURCE))
+                .filter(comment -> IgnorableWords.getIgnorableWords().stream()
+                        .noneMatch(word -> comment.getComment().contains(word)))
+                .map(comment -> lineOffset == 0 ? comment :
+                        comment.movedTo(comment.getStartLine() + lineOffset, comment.getEndLine() + lineOffset))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Extracts the comments of a file from those of its earlier version. When every edit is inside the
+     * body of a method, the comments outside the edited methods are only moved, and the edited methods
+     * are parsed on their own. The outline of the file is then the same, other than the lines moved.
+     * @param parent the earlier version of the file
+     * @param oldText the content of the earlier version
+     * @param newText the content of the file
+     * @param edits the edits from the earlier version to the file
+     * @return the parsed file, or null if the edits may have changed a declaration of the file,
+     * so the whole file must be parsed
+     */
+    // Package-private so it can be benchmarked
+    static ParsedFile extractFromEarlierVersion(ParsedFile parent, RawText oldText, RawText newText,
+                                                        List<Edit> edits, String fileName) {
+        if( edits.isEmpty() || !hasSameLinesInJavaParser(oldText) || !hasSameLinesInJavaParser(newText) ) {
+            return null;
+        }
+        // The methods containing the edits
+        final TreeSet<Integer> editedMethods = new TreeSet<>();
+        for( Edit edit : edits ) {
+            // An edit replaces the lines after its beginning, up to and including its end
+            final int method = parent.getOutline().findSimpleMethodAround(edit.getBeginA() + 1, edit.getEndA());
+            if( method < 0 ) {
+                return null;
+            }
+            editedMethods.add(method);
+        }
+        final ParseEvent event = FlightEvents.beginParse();
+        final long start = MinerMetrics.start();
+        long nBytesParsed = 0;
+        try {
+            final IntUnaryOperator newLines = line -> movedLine(edits, line);
+            final SourceOutline outline = parent.getOutline().withLinesMoved(newLines);
+            final List<GroupedComment> comments = new ArrayList<>();
+            for( GroupedComment comment : parent.getComments() ) {
+                boolean isInEditedMethod = false;
+                for( int method : editedMethods ) {
+                    final int beginLine = parent.getOutline().getMethodBeginLine(method);
+                    final int endLine = parent.getOutline().getMethodEndLine(method);
+                    if( comment.getEndLine() >= beginLine && comment.getStartLine() <= endLine ) {
+                        // A comment partly outside the method is on the lines which are parsed again
+                        if( comment.getStartLine() < beginLine || comment.getEndLine() > endLine ) {
+                            return null;
+                        }
+                        isInEditedMethod = true;
+                    }
+                }
+                if( !isInEditedMethod ) {
+                    comments.add(comment.movedTo(
+                            newLines.applyAsInt(comment.getStartLine()), newLines.applyAsInt(comment.getEndLine())));
+                }
+            }
+            for( int method : editedMethods ) {
+                final int beginLine = outline.getMethodBeginLine(method);
+                final int endLine = outline.getMethodEndLine(method);
+                final int beginOffset = getLineOffset(newText, beginLine);
+                final int endOffset = getLineOffset(newText, endLine + 1);
+                nBytesParsed += endOffset - beginOffset;
+                final String source = new String(newText.getRawContent(), beginOffset, endOffset - beginOffset,
+                        StandardCharsets.UTF_8);
+                final ParseResult<BodyDeclaration<?>> parsedMethod = new JavaParser().parseBodyDeclaration(source);
+                if( !parsedMethod.getProblems().isEmpty() || !parsedMethod.getResult().isPresent() ||
+                        !(parsedMethod.getResult().get() instanceof MethodDeclaration) ||
+                        !outline.matchesMethod(method, (MethodDeclaration) parsedMethod.getResult().get(), beginLine - 1) ) {
+                    return null;
                 }
-                // restart grouping with the current comment
-                previousComment = thisComment;
+                comments.addAll(toComments(parsedMethod.getCommentsCollection(), beginLine - 1));
             }
+            // Comments are only ever on the same line as comments from the same place, which stay in order
+            comments.sort(Comparator.comparingInt(GroupedComment::getStartLine));
+            return new ParsedFile(comments, outline);
+        } finally {
+            MinerMetrics.record(Stage.PARSE, start);
+            FlightEvents.commitParse(event, fileName, nBytesParsed);
         }
-        if( previousComment != null && !groupedComments.contains(previousComment) ) {
-            groupedComments.add(previousComment);
+    }
+
+    /**
+     * @param edits the edits to a file
+     * @param line a line of the earlier version of the file which was not edited
+     * @return the line in the edited file
+     */
+    private static int movedLine(List<Edit> edits, int line) {
+        int movedLine = line;
+        for( Edit edit : edits ) {
+            if( edit.getEndA() >= line ) {
+                break;
+            }
+            movedLine += edit.getLengthB() - edit.getLengthA();
+        }
+        return movedLine;
+    }
+
+    /**
+     * @param text the content of a file
+     * @param line a line of the file, numbered from one
+     * @return the offset of the first byte of the line, or the length of the file if it has fewer lines
+     */
+    private static int getLineOffset(RawText text, int line) {
+        final byte[] raw = text.getRawContent();
+        int curLine = 1;
+        for( int i = 0; i < raw.length && curLine < line; i++ ) {
+            if( raw[i] == '\n' ) {
+                curLine++;
+                if( curLine == line ) {
+                    return i + 1;
+                }
+            }
+        }
+        return curLine == line ? 0 : raw.length;
+    }
+
+    /**
+     * JGit only ends lines with line feeds, while JavaParser also ends them with lone carriage returns,
+     * so their line numbers only agree in files without those
+     * @param text the content of a file
+     * @return True if JGit and JavaParser number the lines of the file the same way
+     */
+    public static boolean hasSameLinesInJavaParser(RawText text) {
+        final byte[] raw = text.getRawContent();
+        for( int i = 0; i < raw.length; i++ ) {
+            if( raw[i] == '\r' && (i + 1 == raw.length || raw[i + 1] != '\n') ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParsedFile getParsedFile(ObjectId blobId, String fileName) {
+        try {
+            return ParsedFileCache.get(blobId, fileName);
+        } catch (KnownParserException e) {
+            return null;
         }
-        return groupedComments;
     }
 
     /**
@@ -0,0 +1,266 @@
+package edu.rit.se.util;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * An open-addressing hash map from long keys to int values, which stores both without
+ * boxing. Collisions are resolved with linear probing, and removals shift later entries
+ * back rather than leaving tombstones, so lookups stay short however many entries churn.
+ *
+ * The table can be kept off the Java heap in direct buffers, so a very large map does not
+ * add to the heap the garbage collector must trace.
+ */
+public class LongIntHashMap {
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    // The largest power of two table whose keys fit in one buffer, whose size in bytes must be an int
+    private static final int MAX_CAPACITY = 1 << 27;
+
+    // Marks a free slot. The key 0 is stored outside of the table
+    private static final long FREE_KEY = 0;
+
+    @Getter
+    private final boolean offHeap;
+    @Getter
+    private final float loadFactor;
+
+    private LongBuffer keys;
+    private IntBuffer values;
+    private int mask;
+    private int shift;
+    private int resizeThreshold;
+    private int size = 0;
+
+    private boolean hasFreeKey = false;
+    private int freeKeyValue = 0;
+
+    public LongIntHashMap() {
+        this(16, DEFAULT_LOAD_FACTOR, false);
+    }
+
+    /**
+     * @param expectedSize the number of entries to size the table for
+     * @param loadFactor the share of the table which may be filled before it is doubled
+     * @param offHeap True if the table should be stored outside of the Java heap
+     */
+    public LongIntHashMap(int expectedSize, float loadFactor, boolean offHeap) {
+        if( loadFactor <= 0 || loadFactor >= 1 ) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1: " + loadFactor);
+        }
+        this.offHeap = offHeap;
+        this.loadFactor = loadFactor;
+        this.allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / loadFactor)));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the number of slots in the table
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return the share of the table's slots which are in use
+     */
+    public double getLoad() {
+        return (double) this.size / this.capacity();
+    }
+
+    /**
+     * @return the number of bytes the table occupies
+     */
+    public long getTableBytes() {
+        return (long) this.capacity() * (Long.BYTES + Integer.BYTES);
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE_KEY ? this.hasFreeKey : this.findSlot(key) >= 0;
+    }
+
+    /**
+     * @param key a key
+     * @param defaultValue the value to return if the key is not in the map
+     * @return the value mapped to the key, or defaultValue if there is none
+     */
+    public int getOrDefault(long key, int defaultValue) {
+        if( key == FREE_KEY ) {
+            return this.hasFreeKey ? this.freeKeyValue : defaultValue;
+        }
+        final int slot = this.findSlot(key);
+        return slot >= 0 ? this.values.get(slot) : defaultValue;
+    }
+
+    /**
+     * @param key a key
+     * @return the value mapped to the key
+     * @throws IllegalStateException thrown if the key is not in the map
+     */
+    public int get(long key) {
+        if( !this.containsKey(key) ) {
+            throw new IllegalStateException("No value for key " + key);
+        }
+        return this.getOrDefault(key, 0);
+    }
+
+    public void put(long key, int value) {
+        if( key == FREE_KEY ) {
+            if( !this.hasFreeKey ) {
+                this.size++;
+            }
+            this.hasFreeKey = true;
+            this.freeKeyValue = value;
+            return;
+        }
+        int slot = this.idealSlot(key);
+        long existing;
+        while( (existing = this.keys.get(slot)) != FREE_KEY ) {
+            if( existing == key ) {
+                this.values.put(slot, value);
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.keys.put(slot, key);
+        this.values.put(slot, value);
+        if( ++this.size > this.resizeThreshold ) {
+            this.resize(this.capacity() * 2);
+        }
+    }
+
+    public void remove(long key) {
+        if( key == FREE_KEY ) {
+            if( this.hasFreeKey ) {
+                this.hasFreeKey = false;
+                this.size--;
+            }
+            return;
+        }
+        int gap = this.findSlot(key);
+        if( gap < 0 ) {
+            return;
+        }
+        this.size--;
+        // Shift back each following entry which would no longer be found past the gap
+        int slot = gap;
+        long next;
+        while( (next = this.keys.get(slot = (slot + 1) & this.mask)) != FREE_KEY ) {
+            final int ideal = this.idealSlot(next);
+            if( ((slot - ideal) & this.mask) >= ((slot - gap) & this.mask) ) {
+                this.keys.put(gap, next);
+                this.values.put(gap, this.values.get(slot));
+                gap = slot;
+            }
+        }
+        this.keys.put(gap, FREE_KEY);
+    }
+
+    /**
+     * Visits every entry in the map, in no particular order
+     * @param visitor called with each key and value
+     * @param <X> the type of exception the visitor may throw
+     * @throws X thrown if the visitor throws it
+     */
+    public <X extends Exception> void forEach(EntryVisitor<X> visitor) throws X {
+        if( this.hasFreeKey ) {
+            visitor.visit(FREE_KEY, this.freeKeyValue);
+        }
+        for( int slot = 0; slot <= this.mask; slot++ ) {
+            final long key = this.keys.get(slot);
+            if( key != FREE_KEY ) {
+                visitor.visit(key, this.values.get(slot));
+            }
+        }
+    }
+
+    /**
+     * @return a one line summary of the map's size, load and memory use
+     */
+    public String getReport() {
+        return String.format("%,d entries in %,d slots (load %.2f, resized at %.2f), %.1f MB %s",
+                this.size, this.capacity(), this.getLoad(), this.loadFactor,
+                this.getTableBytes() / (1024.0 * 1024.0), this.offHeap ? "off-heap" : "on heap");
+    }
+
+    @Override
+    public String toString() {
+        return this.getReport();
+    }
+
+    private int idealSlot(long key) {
+        // Fibonacci hashing, which spreads keys that differ in any bits over the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);
+    }
+
+    private int findSlot(long key) {
+        int slot = this.idealSlot(key);
+        long existing;
+        while( (existing = this.keys.get(slot)) != FREE_KEY ) {
+            if( existing == key ) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = this.allocateBuffer(capacity * Long.BYTES).asLongBuffer();
+        this.values = this.allocateBuffer(capacity * Integer.BYTES).asIntBuffer();
+        this.mask = capacity - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.resizeThreshold = Math.min((int) (capacity * this.loadFactor), capacity - 1);
+    }
+
+    private ByteBuffer allocateBuffer(int bytes) {
+        return (this.offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes))
+                .order(ByteOrder.nativeOrder());
+    }
+
+    private void resize(int newCapacity) {
+        if( newCapacity > MAX_CAPACITY ) {
+            throw new IllegalStateException("Map cannot hold more than " +
+                    (int) (MAX_CAPACITY * this.loadFactor) + " entries");
+        }
+        final LongBuffer oldKeys = this.keys;
+        final IntBuffer oldValues = this.values;
+        final int oldCapacity = this.capacity();
+        this.allocate(newCapacity);
+        for( int oldSlot = 0; oldSlot < oldCapacity; oldSlot++ ) {
+            final long key = oldKeys.get(oldSlot);
+            if( key != FREE_KEY ) {
+                int slot = this.idealSlot(key);
+                while( this.keys.get(slot) != FREE_KEY ) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.keys.put(slot, key);
+                this.values.put(slot, oldValues.get(oldSlot));
+            }
+        }
+    }
+
+    private static int tableSizeFor(int minCapacity) {
+        if( minCapacity > MAX_CAPACITY ) {
+            throw new IllegalArgumentException("Map cannot hold " + minCapacity + " slots");
+        }
+        return Math.max(2, Integer.highestOneBit(Math.max(minCapacity, 2) - 1) << 1);
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor<X extends Exception> {
+        void visit(long key, int value) throws X;
+    }
+}
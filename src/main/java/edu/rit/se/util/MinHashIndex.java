@@ -0,0 +1,102 @@
+package edu.rit.se.util;
+
+import java.util.*;
+
+/**
+ * A locality-sensitive hashing index which finds the strings that may be similar to a query
+ * without comparing the query to every string in the index.
+ *
+ * Each string is reduced to a MinHash signature over its character trigrams, which is split
+ * into bands. Strings that share every hash of any band are candidates. Identical strings
+ * are always candidates of each other, and the chance of any other pair being a candidate
+ * rises steeply with the share of trigrams they have in common. Candidates should still
+ * be checked with an exact similarity measure such as SimilarityUtil.
+ * @param <T> the type of value stored with each string
+ */
+public class MinHashIndex<T> {
+
+    private static final int N_BANDS = 32;
+    private static final int ROWS_PER_BAND = 2;
+    private static final int SHINGLE_LENGTH = 3;
+
+    // One seed per hash function, fixed so signatures are the same on every run
+    private static final long[] SEEDS = new Random(0x5A7DL).longs(N_BANDS * ROWS_PER_BAND).toArray();
+
+    private final List<T> values = new ArrayList<>();
+    // The IDs of the values in each bucket, keyed by the band and the hash of that band
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+    /**
+     * Adds a string to the index
+     * @param text the string to index
+     * @param value the value to return when the string is a candidate
+     */
+    public void add(String text, T value) {
+        final int id = this.values.size();
+        this.values.add(value);
+        final long[] signature = getSignature(text);
+        for( int band = 0; band < N_BANDS; band++ ) {
+            this.buckets.computeIfAbsent(getBucketKey(signature, band), k -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    /**
+     * Finds the values of the strings which may be similar to the given string
+     * @param text the string to find candidates for
+     * @return the values of the candidates, in the order they were added
+     */
+    public List<T> getCandidates(String text) {
+        final long[] signature = getSignature(text);
+        final BitSet ids = new BitSet(this.values.size());
+        for( int band = 0; band < N_BANDS; band++ ) {
+            final List<Integer> bucket = this.buckets.get(getBucketKey(signature, band));
+            if( bucket != null ) {
+                bucket.forEach(ids::set);
+            }
+        }
+        final List<T> candidates = new ArrayList<>(ids.cardinality());
+        for( int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1) ) {
+            candidates.add(this.values.get(id));
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return this.values.size();
+    }
+
+    private static long getBucketKey(long[] signature, int band) {
+        long key = band;
+        for( int row = 0; row < ROWS_PER_BAND; row++ ) {
+            key = mix(key * 31 + signature[band * ROWS_PER_BAND + row]);
+        }
+        return key;
+    }
+
+    private static long[] getSignature(String text) {
+        final long[] signature = new long[SEEDS.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        // Strings shorter than a shingle are a single shingle
+        final int nShingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for( int start = 0; start < nShingles; start++ ) {
+            long shingle = 0;
+            for( int i = start; i < Math.min(start + SHINGLE_LENGTH, text.length()); i++ ) {
+                shingle = (shingle << 16) | text.charAt(i);
+            }
+            for( int i = 0; i < SEEDS.length; i++ ) {
+                signature[i] = Math.min(signature[i], mix(shingle ^ SEEDS[i]));
+            }
+        }
+        return signature;
+    }
+
+    // The finalizer of MurmurHash3, which spreads every bit of the input over the output
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,70 @@
+package edu.rit.se.util;
+
+import edu.rit.se.satd.comment.model.ParsedFile;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently parsed files by the ID of their blob. A file modified by one diff pair
+ * is usually the earlier version of the same file in the next diff pair, and its blob is parsed
+ * again whenever SATD may have moved into it, so recent parses are often needed again.
+ *
+ * Blobs which could not be parsed are kept too, so they are not parsed again either.
+ * Safe to use from several threads.
+ */
+public class ParsedFileCache {
+
+    // The most files kept at once. The least recently used files are dropped past this
+    public static int maxFiles = 512;
+
+    // Kept in place of the parse of a blob which could not be parsed
+    private static final ParsedFile PARSE_ERROR = new ParsedFile(null, null);
+
+    private static final Map<ObjectId, ParsedFile> CACHE = new LinkedHashMap<ObjectId, ParsedFile>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, ParsedFile> eldest) {
+            return this.size() > maxFiles;
+        }
+    };
+
+    private ParsedFileCache() {}
+
+    /**
+     * @param blobId the ID of a blob
+     * @return the parsed file, or null if the blob has not been parsed recently
+     * @throws KnownParserException thrown if the blob could not be parsed
+     */
+    public static ParsedFile get(AnyObjectId blobId, String fileName) throws KnownParserException {
+        final ParsedFile parsedFile;
+        synchronized (CACHE) {
+            parsedFile = CACHE.get(blobId);
+        }
+        if( parsedFile == PARSE_ERROR ) {
+            throw new KnownParserException(fileName);
+        }
+        return parsedFile;
+    }
+
+    public static void put(AnyObjectId blobId, ParsedFile parsedFile) {
+        synchronized (CACHE) {
+            CACHE.put(blobId.copy(), parsedFile);
+        }
+    }
+
+    public static void putParseError(AnyObjectId blobId) {
+        put(blobId, PARSE_ERROR);
+    }
+
+    /**
+     * Forgets every parsed file. Should be called once a repository has been mined,
+     * since its files will not appear in the next repository.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+}
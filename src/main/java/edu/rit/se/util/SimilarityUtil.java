@@ -1,7 +1,8 @@
 package edu.rit.se.util;
 
 import edu.rit.se.satd.comment.model.GroupedComment;
-import org.apache.commons.text.similarity.LevenshteinDistance;
+
+import java.util.Arrays;
 
 /**
  * Utility class to contain string similarity comparison logic
@@ -13,6 +14,14 @@ public class SimilarityUtil {
     // the other
     private static double LEVENSHTEIN_DISTANCE_MIN = 0.50;
 
+    // The two rows of the edit distance table, reused by every comparison on a thread
+    private static final ThreadLocal<int[][]> DISTANCE_ROWS = ThreadLocal.withInitial(() -> new int[2][256]);
+
+    // The number of buckets characters are counted in. Must be a power of two
+    private static final int N_CHARACTER_BUCKETS = 128;
+    private static final ThreadLocal<int[]> CHARACTER_COUNTS =
+            ThreadLocal.withInitial(() -> new int[N_CHARACTER_BUCKETS]);
+
     /**
      * Determines if the two comments are similar enough to constitute them being classified
      * as one being modified into being the other, rather than one being removed and one added
@@ -22,18 +31,166 @@ public class SimilarityUtil {
      * @return True if the comments are similar enough, else false
      */
     public static boolean commentsAreSimilar(GroupedComment comment1, GroupedComment comment2) {
-        if( comment1.getComment().isEmpty() && comment2.getComment().isEmpty() ) {
+        final String text1 = comment1.getComment();
+        final String text2 = comment2.getComment();
+        if( text1.isEmpty() && text2.isEmpty() ) {
+            return true;
+        }
+        if(text1.contains(text2) || text2.contains(text1)) {
             return true;
         }
-        if(comment1.getComment().contains(comment2.getComment()) || comment2.getComment().contains(comment1.getComment())) {
+        final int maxLength = Integer.max(text1.length(), text2.length());
+        final int maxDistance = getMaxSimilarDistance(maxLength);
+        if( maxDistance < 0 ) {
+            return false;
+        }
+        // The distance can never be more than the length of the longer comment
+        if( maxDistance >= maxLength ) {
             return true;
         }
-        return LEVENSHTEIN_DISTANCE_MIN >= new LevenshteinDistance()
-                .apply(comment1.getComment(), comment2.getComment()) /
-                    (double)Integer.max(comment1.getComment().length(), comment2.getComment().length());
+        return levenshteinDistanceWithin(text1, text2, maxDistance);
     }
 
     public static void setLevenshteinDistanceMin(double newMin) {
         LEVENSHTEIN_DISTANCE_MIN = newMin;
     }
+
+    /**
+     * Finds the largest edit distance at which two comments are still similar, so that
+     * distance / maxLength <= LEVENSHTEIN_DISTANCE_MIN holds exactly as it does in
+     * floating point, rather than only approximately after rounding.
+     * @param maxLength the length of the longer comment
+     * @return the largest distance which is similar, or -1 if no distance is
+     */
+    private static int getMaxSimilarDistance(int maxLength) {
+        final double threshold = LEVENSHTEIN_DISTANCE_MIN;
+        int distance = (int) Math.max(-1, Math.min(maxLength, Math.floor(threshold * maxLength)));
+        while( distance < maxLength && threshold >= (distance + 1) / (double) maxLength ) {
+            distance++;
+        }
+        while( distance >= 0 && !(threshold >= distance / (double) maxLength) ) {
+            distance--;
+        }
+        return distance;
+    }
+
+    /**
+     * Determines if the Levenshtein distance between two strings is at most maxDistance.
+     * Pairs whose lengths or character counts already differ by more than maxDistance are
+     * rejected without computing the distance. Otherwise only the diagonal band of the
+     * distance table which a path of at most maxDistance edits can cross is computed, and
+     * the comparison stops as soon as every entry in a row of the band exceeds maxDistance.
+     * @param left a string
+     * @param right a string
+     * @param maxDistance the largest distance allowed
+     * @return True if the distance is at most maxDistance, else false
+     */
+    static boolean levenshteinDistanceWithin(String left, String right, int maxDistance) {
+        // Keep the rows as short as possible
+        if( left.length() > right.length() ) {
+            final String tmp = left;
+            left = right;
+            right = tmp;
+        }
+        final int n = left.length();
+        final int m = right.length();
+        if( m - n > maxDistance ) {
+            return false;
+        }
+        if( n == 0 ) {
+            return true;
+        }
+        if( getCharacterCountDistance(left, right) > maxDistance ) {
+            return false;
+        }
+
+        // A path through the table which ends at most maxDistance edits away can only be
+        // lowOffset cells below the diagonal and highOffset cells above it
+        final int lowOffset = (maxDistance - (m - n)) / 2;
+        final int highOffset = (maxDistance + (m - n)) / 2;
+
+        int[][] rows = DISTANCE_ROWS.get();
+        if( rows[0].length <= n ) {
+            rows = new int[2][Integer.highestOneBit(n) << 1];
+            DISTANCE_ROWS.set(rows);
+        }
+        // The previous and current rows of the table
+        int[] p = rows[0];
+        int[] d = rows[1];
+
+        final int boundary = Math.min(n, lowOffset) + 1;
+        for( int i = 0; i < boundary; i++ ) {
+            p[i] = i;
+        }
+        // Entries outside of the band are treated as being too far apart
+        for( int i = boundary; i <= n; i++ ) {
+            p[i] = Integer.MAX_VALUE;
+        }
+        for( int i = 0; i <= n; i++ ) {
+            d[i] = Integer.MAX_VALUE;
+        }
+
+        for( int j = 1; j <= m; j++ ) {
+            final char rightJ = right.charAt(j - 1);
+            d[0] = j;
+
+            final int min = Math.max(1, j - highOffset);
+            final int max = Math.min(n, j + lowOffset);
+            if( min > max ) {
+                return false;
+            }
+            if( min > 1 ) {
+                d[min - 1] = Integer.MAX_VALUE;
+            }
+
+            int rowMin = min == 1 ? d[0] : Integer.MAX_VALUE;
+            for( int i = min; i <= max; i++ ) {
+                if( left.charAt(i - 1) == rightJ ) {
+                    d[i] = p[i - 1];
+                } else {
+                    d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+                }
+                rowMin = Math.min(rowMin, d[i]);
+            }
+            // Distances never decrease from one row to the next
+            if( rowMin > maxDistance ) {
+                return false;
+            }
+
+            final int[] tmp = p;
+            p = d;
+            d = tmp;
+        }
+        return p[n] <= maxDistance;
+    }
+
+    /**
+     * Finds a lower bound of the Levenshtein distance from the number of times each character
+     * occurs in each string. Each edit can remove at most one surplus character from each
+     * string, so at least as many edits as the larger surplus are needed. Characters are
+     * counted in buckets, which can only lower the bound.
+     * @param left a string
+     * @param right a string
+     * @return a lower bound of the distance between the strings
+     */
+    private static int getCharacterCountDistance(String left, String right) {
+        final int[] counts = CHARACTER_COUNTS.get();
+        Arrays.fill(counts, 0);
+        for( int i = 0; i < left.length(); i++ ) {
+            counts[left.charAt(i) & (N_CHARACTER_BUCKETS - 1)]++;
+        }
+        for( int i = 0; i < right.length(); i++ ) {
+            counts[right.charAt(i) & (N_CHARACTER_BUCKETS - 1)]--;
+        }
+        int leftSurplus = 0;
+        int rightSurplus = 0;
+        for( int count : counts ) {
+            if( count > 0 ) {
+                leftSurplus += count;
+            } else {
+                rightSurplus -= count;
+            }
+        }
+        return Math.max(leftSurplus, rightSurplus);
+    }
 }
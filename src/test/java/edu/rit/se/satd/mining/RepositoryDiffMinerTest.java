@@ -0,0 +1,38 @@
+package edu.rit.se.satd.mining;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.comments.LineComment;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.comment.model.OldToNewCommentMapping;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RepositoryDiffMinerTest {
+
+    @Test
+    public void identicalCommentsInAFileGetIncreasingDuplicationIds() {
+        final OldToNewCommentMapping first = new OldToNewCommentMapping(comment("TODO remove this", 10), "A.java");
+        final OldToNewCommentMapping second = new OldToNewCommentMapping(comment("TODO remove this", 20), "A.java");
+        final OldToNewCommentMapping otherFile = new OldToNewCommentMapping(comment("TODO remove this", 10), "B.java");
+        final OldToNewCommentMapping otherComment = new OldToNewCommentMapping(comment("FIXME slow", 30), "A.java");
+        final List<OldToNewCommentMapping> mappings = Arrays.asList(first, otherFile, second, otherComment);
+
+        RepositoryDiffMiner.populateDuplicationIds(mappings);
+
+        assertEquals(0, first.getDuplicationId());
+        assertEquals(1, second.getDuplicationId());
+        assertEquals(0, otherFile.getDuplicationId());
+        assertEquals(0, otherComment.getDuplicationId());
+    }
+
+    private static GroupedComment comment(String text, int line) {
+        final LineComment comment = new LineComment(text);
+        comment.setRange(new Range(new Position(line, 5), new Position(line, text.length() + 6)));
+        return GroupedComment.fromJavaParserComment(comment);
+    }
+}
@@ -0,0 +1,67 @@
+package edu.rit.se.satd.mining;
+
+import edu.rit.se.satd.detector.ModelVersion;
+import edu.rit.se.satd.detector.SATDDetector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SATDIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void differentModelsHaveDifferentIndexes() throws IOException {
+        final File model = this.model("original", "binary.model", "weights 0.25 0.75");
+        final File retrainedModel = this.model("retrained", "binary.model", "weights 0.30 0.70");
+
+        assertNotEquals(SATDIndex.getName(new ModelDetector(model)),
+                SATDIndex.getName(new ModelDetector(retrainedModel)));
+    }
+
+    @Test
+    public void sameModelsShareAnIndex() throws IOException {
+        final File model = this.model("original", "binary.model", "weights 0.25 0.75");
+        final File copiedModel = this.model("copied", "binary.model", "weights 0.25 0.75");
+
+        assertEquals(SATDIndex.getName(new ModelDetector(model)),
+                SATDIndex.getName(new ModelDetector(copiedModel)));
+    }
+
+    private File model(String dir, String name, String content) throws IOException {
+        final File model = new File(this.tempFolder.newFolder(dir), name);
+        Files.write(model.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return model;
+    }
+
+    /**
+     * A detector versioned by the model it would load, as the detectors which load models are
+     */
+    private static class ModelDetector implements SATDDetector {
+
+        private final String version;
+
+        private ModelDetector(File model) throws IOException {
+            this.version = ModelVersion.of(ModelDetector.class, model);
+        }
+
+        @Override
+        public boolean isSATD(String satd) {
+            return false;
+        }
+
+        @Override
+        public String getVersion() {
+            return this.version;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package edu.rit.se.satd.writer;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.comments.LineComment;
+import edu.rit.se.git.model.CommitMetaData;
+import edu.rit.se.satd.comment.model.GroupedComment;
+import edu.rit.se.satd.model.SATDDifference;
+import edu.rit.se.satd.model.SATDInstance;
+import edu.rit.se.satd.model.SATDInstanceInFile;
+import edu.rit.se.satd.writer.ColumnarFormat.IntColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.LongColumn;
+import edu.rit.se.satd.writer.ColumnarFormat.StringColumn;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarRoundTripTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void readsEveryValueWrittenAcrossBatchesAndSegments() throws IOException {
+        final File outFile = this.tempFolder.newFile("satd.col");
+        final CommitMetaData first = commit("Alice", "alice@example.com", 1_500_000_000_000L, 1_500_000_100_000L);
+        final CommitMetaData second = commit("Bob", "bob@example.com", 1_600_000_000_000L, 1_600_000_050_000L);
+        // Commits outside the repository have no author or dates, so their strings and dates are null
+        final CommitMetaData devNull = new CommitMetaData(null);
+
+        final List<SATDDifference> firstRun = Arrays.asList(
+                diff(devNull, first, 4, 0),
+                diff(first, second, 4, 4));
+        final List<SATDDifference> secondRun = Arrays.asList(
+                diff(second, devNull, 2, 8),
+                diff(first, second, 3, 0));
+        write(outFile, firstRun);
+        // A second writer appends its own segment, with its own dictionary, to the same file
+        write(outFile, secondRun);
+
+        final List<SATDDifference> written = new ArrayList<>(firstRun);
+        written.addAll(secondRun);
+        final List<Object[]> expected = new ArrayList<>();
+        for( SATDDifference diff : written ) {
+            for( SATDInstance instance : diff.getSatdInstances() ) {
+                expected.add(toRow(diff, instance));
+            }
+        }
+
+        final List<Object[]> read = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        try (ColumnarReader reader = new ColumnarReader(outFile.getPath())) {
+            ColumnarReader.Batch batch;
+            while( (batch = reader.nextBatch()) != null ) {
+                batchSizes.add(batch.getRowCount());
+                for( int row = 0; row < batch.getRowCount(); row++ ) {
+                    read.add(toRow(batch, row));
+                }
+            }
+        }
+
+        // 8 rows in full and partial batches of the first segment, then 5 in the second
+        assertEquals(Arrays.asList(3, 3, 2, 3, 2), batchSizes);
+        assertEquals(expected.size(), read.size());
+        for( int row = 0; row < expected.size(); row++ ) {
+            assertEquals(Arrays.asList(expected.get(row)), Arrays.asList(read.get(row)));
+        }
+        // The rows of commits outside the repository keep their nulls
+        assertNull(read.get(0)[StringColumn.values().length + IntColumn.values().length +
+                LongColumn.OLD_COMMIT_DATE.ordinal()]);
+        assertNull(read.get(8)[StringColumn.NEW_COMMIT_AUTHOR_NAME.ordinal()]);
+    }
+
+    private static void write(File outFile, List<SATDDifference> diffs) throws IOException {
+        final ColumnarOutputWriter writer = new ColumnarOutputWriter(outFile.getPath(), BATCH_SIZE);
+        for( SATDDifference diff : diffs ) {
+            writer.writeDiff(diff);
+        }
+        writer.close();
+    }
+
+    private static CommitMetaData commit(String author, String email, long authorMillis, long commitMillis)
+            throws IOException {
+        final CommitBuilder builder = new CommitBuilder();
+        builder.setTreeId(ObjectId.zeroId());
+        builder.setAuthor(new PersonIdent(author, email, new Date(authorMillis), TimeZone.getTimeZone("UTC")));
+        builder.setCommitter(new PersonIdent(author, email, new Date(commitMillis), TimeZone.getTimeZone("UTC")));
+        builder.setMessage("Commit by " + author);
+        return new CommitMetaData(RevCommit.parse(builder.build()));
+    }
+
+    /**
+     * @return a diff whose instances repeat a few paths and comments, so strings are
+     * found in the dictionary as well as added to it
+     */
+    private static SATDDifference diff(CommitMetaData oldCommit, CommitMetaData newCommit,
+                                       int nInstances, int firstId) {
+        final SATDDifference diff = new SATDDifference("project", "https://example.com/project.git",
+                oldCommit, newCommit);
+        final List<SATDInstance> instances = new ArrayList<>();
+        for( int i = 0; i < nInstances; i++ ) {
+            final int id = firstId + i;
+            final SATDInstance instance = new SATDInstance(
+                    new SATDInstanceInFile("src/Old" + (id % 3) + ".java", comment("TODO fix " + (id % 2), id)),
+                    new SATDInstanceInFile("src/New" + id + ".java", comment("FIXME été " + id, id * 2)),
+                    SATDInstance.SATDResolution.values()[id % SATDInstance.SATDResolution.values().length]);
+            instance.setId(id);
+            instance.setParentId(id - 1);
+            instance.setDuplicationId(id % 2);
+            instances.add(instance);
+        }
+        diff.addSATDInstances(instances);
+        return diff;
+    }
+
+    private static GroupedComment comment(String text, int line) {
+        final LineComment comment = new LineComment(text);
+        comment.setRange(new Range(new Position(line + 1, 1), new Position(line + 1, text.length() + 2)));
+        return GroupedComment.fromJavaParserComment(comment);
+    }
+
+    /**
+     * @return the values the writer is given for an instance, in the order of the columns
+     */
+    private static Object[] toRow(SATDDifference diff, SATDInstance instance) {
+        final GroupedComment oldComment = instance.getOldInstance().getComment();
+        final GroupedComment newComment = instance.getNewInstance().getComment();
+        return new Object[]{
+                diff.getProjectName(), diff.getProjectURI(),
+                diff.getOldCommit().getHash(), diff.getNewCommit().getHash(),
+                diff.getNewCommit().getAuthorName(), diff.getNewCommit().getAuthorEmail(),
+                instance.getOldInstance().getFileName(), oldComment.getComment(), oldComment.getCommentType(),
+                oldComment.getContainingClass(), oldComment.getContainingMethod(),
+                instance.getNewInstance().getFileName(), newComment.getComment(), newComment.getCommentType(),
+                newComment.getContainingClass(), newComment.getContainingMethod(),
+                instance.getResolution().name(),
+                oldComment.getStartLine(), oldComment.getEndLine(), newComment.getStartLine(), newComment.getEndLine(),
+                instance.getId(), instance.getParentId(), instance.getDuplicationId(),
+                toMillis(diff.getOldCommit().getCommitDate()), toMillis(diff.getNewCommit().getCommitDate()),
+                toMillis(diff.getNewCommit().getAuthorDate())
+        };
+    }
+
+    private static Object[] toRow(ColumnarReader.Batch batch, int row) {
+        final List<Object> values = new ArrayList<>();
+        for( StringColumn column : StringColumn.values() ) {
+            values.add(batch.getString(column, row));
+        }
+        for( IntColumn column : IntColumn.values() ) {
+            values.add(batch.getInt(column, row));
+        }
+        for( LongColumn column : LongColumn.values() ) {
+            values.add(batch.getDate(column, row));
+        }
+        return values.toArray();
+    }
+
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+}
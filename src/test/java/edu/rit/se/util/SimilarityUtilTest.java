@@ -0,0 +1,139 @@
+package edu.rit.se.util;
+
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimilarityUtilTest {
+
+    private static final LevenshteinDistance DISTANCE = LevenshteinDistance.getDefaultInstance();
+
+    // Surrogate pairs, and characters which share a character count bucket with ASCII letters
+    private static final String[] ALPHABETS = {
+            "ab",
+            "abcdefgh ",
+            "TODO fix this hack later",
+            "aáš中文",
+            "x😀😁𝄞",
+            "aášāġ"
+    };
+
+    @Test
+    public void emptyStrings() {
+        assertWithinMatches("", "", 0);
+        assertWithinMatches("", "a", 0);
+        assertWithinMatches("", "a", 1);
+        assertWithinMatches("abc", "", 2);
+        assertWithinMatches("abc", "", 3);
+        assertWithinMatches("😀", "", 1);
+        assertWithinMatches("😀", "", 2);
+    }
+
+    @Test
+    public void bandWidthZero() {
+        assertWithinMatches("a", "a", 0);
+        assertWithinMatches("a", "b", 0);
+        assertWithinMatches("abc", "abc", 0);
+        assertWithinMatches("abc", "abd", 0);
+        assertWithinMatches("abc", "ab", 0);
+        assertWithinMatches("😀", "😀", 0);
+        assertWithinMatches("😀", "😁", 0);
+    }
+
+    @Test
+    public void lengthDifferenceLargerThanThreshold() {
+        assertWithinMatches("ab", "abcdef", 3);
+        assertWithinMatches("abcdef", "ab", 3);
+        assertWithinMatches("ab", "abcdef", 4);
+        assertWithinMatches("x", "😀😀😀", 2);
+        assertWithinMatches("x", "😀😀😀", 3);
+    }
+
+    @Test
+    public void nonBmpCharacters() {
+        // Characters outside the BMP are two chars each, and are compared char by char
+        assertWithinMatches("😀 fix", "😁 fix", 0);
+        assertWithinMatches("😀 fix", "😁 fix", 1);
+        assertWithinMatches("😀😁", "😁😀", 1);
+        assertWithinMatches("😀😁", "😁😀", 2);
+        assertWithinMatches("𝄞 music", "music 𝄞", 6);
+        // 'a' and 'š' fall in the same character count bucket
+        assertWithinMatches("aaaa", "šššš", 3);
+        assertWithinMatches("aaaa", "šššš", 4);
+    }
+
+    @Test
+    public void randomPairs() {
+        final Random random = new Random(20200528);
+        for( int pair = 0; pair < 50_000; pair++ ) {
+            final String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            final String left = randomString(random, alphabet, random.nextInt(40));
+            // Most pairs are edits of each other, so their distance is near the threshold
+            final String right = random.nextInt(4) == 0 ?
+                    randomString(random, alphabet, random.nextInt(40)) :
+                    mutate(random, alphabet, left, random.nextInt(10));
+            final int maxLength = Math.max(left.length(), right.length());
+            assertWithinMatches(left, right, random.nextInt(maxLength + 2));
+        }
+    }
+
+    @Test
+    public void longRandomPairs() {
+        // Longer than the rows the distance table starts with
+        final Random random = new Random(7);
+        for( int pair = 0; pair < 200; pair++ ) {
+            final String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+            final String left = randomString(random, alphabet, 200 + random.nextInt(400));
+            final String right = mutate(random, alphabet, left, random.nextInt(150));
+            final int distance = DISTANCE.apply(left, right);
+            for( int maxDistance : new int[]{distance - 1, distance, distance + 1, random.nextInt(300)} ) {
+                if( maxDistance >= 0 ) {
+                    assertWithinMatches(left, right, maxDistance);
+                }
+            }
+        }
+    }
+
+    private static void assertWithinMatches(String left, String right, int maxDistance) {
+        final boolean expected = DISTANCE.apply(left, right) <= maxDistance;
+        assertEquals("\"" + left + "\" and \"" + right + "\" within " + maxDistance,
+                expected, SimilarityUtil.levenshteinDistanceWithin(left, right, maxDistance));
+        assertEquals("\"" + right + "\" and \"" + left + "\" within " + maxDistance,
+                expected, SimilarityUtil.levenshteinDistanceWithin(right, left, maxDistance));
+    }
+
+    /**
+     * @return a string of code points from the alphabet, which may hold surrogate pairs
+     */
+    private static String randomString(Random random, String alphabet, int nCodePoints) {
+        final int[] codePoints = alphabet.codePoints().toArray();
+        final StringBuilder str = new StringBuilder();
+        for( int i = 0; i < nCodePoints; i++ ) {
+            str.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+        }
+        return str.toString();
+    }
+
+    /**
+     * @return the string with a number of random insertions, deletions and substitutions of code points
+     */
+    private static String mutate(Random random, String alphabet, String str, int nEdits) {
+        final StringBuilder mutated = new StringBuilder(str);
+        for( int edit = 0; edit < nEdits; edit++ ) {
+            final int nCodePoints = mutated.codePointCount(0, mutated.length());
+            final int at = mutated.offsetByCodePoints(0, random.nextInt(nCodePoints + 1));
+            final String inserted = randomString(random, alphabet, 1);
+            final int operation = nCodePoints == 0 || at == mutated.length() ? 0 : random.nextInt(3);
+            if( operation == 0 ) {
+                mutated.insert(at, inserted);
+            } else {
+                final int end = mutated.offsetByCodePoints(at, 1);
+                mutated.replace(at, end, operation == 1 ? "" : inserted);
+            }
+        }
+        return mutated.toString();
+    }
+}